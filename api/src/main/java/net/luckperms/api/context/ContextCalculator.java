@@ -107,4 +107,23 @@ public interface ContextCalculator<T> {
         return ImmutableContextSet.empty();
     }
 
+    /**
+     * Gets if this calculator is event-driven.
+     *
+     * <p>An event-driven calculator promises to call
+     * {@link ContextManager#signalContextUpdate(Object)} whenever the contexts
+     * it would submit for a subject change (for example, when a player changes
+     * world or game mode).</p>
+     *
+     * <p>The contexts submitted by event-driven calculators are cached until
+     * an update is signalled, instead of being recalculated every tick. Other
+     * calculators are still called periodically.</p>
+     *
+     * @return true if the calculator signals every change to its contexts
+     * @since 5.4
+     */
+    default boolean isEventDriven() {
+        return false;
+    }
+
 }
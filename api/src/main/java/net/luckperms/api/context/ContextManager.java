@@ -145,7 +145,8 @@ public interface ContextManager {
      * current contexts have changed.
      *
      * <p>It is not strictly necessary to make a call to this method every time a context
-     * changes.</p>
+     * changes, unless the calculator providing the context is
+     * {@link ContextCalculator#isEventDriven() event-driven}.</p>
      *
      * @param subject the subject
      * @since 5.2
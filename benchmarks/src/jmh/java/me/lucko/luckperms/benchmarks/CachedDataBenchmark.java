@@ -0,0 +1,92 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks;
+
+import me.lucko.luckperms.benchmarks.fixture.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.fixture.PermissionGraph;
+import me.lucko.luckperms.common.cacheddata.AbstractCachedDataManager;
+import me.lucko.luckperms.common.model.User;
+
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.query.QueryOptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of (re)building a user's cached data, as happens after every
+ * invalidation: resolving and flattening the inheritance tree into a
+ * {@link me.lucko.luckperms.common.cacheddata.type.PermissionCache} or a
+ * {@link me.lucko.luckperms.common.cacheddata.type.MetaCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CachedDataBenchmark {
+
+    @Param({"50", "500"})
+    public int permissionsPerGroup;
+
+    private BenchmarkPlugin plugin;
+    private AbstractCachedDataManager cachedData;
+    private QueryOptions queryOptions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = new BenchmarkPlugin();
+        PermissionGraph graph = new PermissionGraph(this.plugin, this.permissionsPerGroup);
+
+        User user = graph.getUser();
+        this.cachedData = user.getCachedData();
+        this.queryOptions = graph.getQueryOptions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.close();
+    }
+
+    @Benchmark
+    public CachedPermissionData calculatePermissions() {
+        return this.cachedData.permissionData().calculate(this.queryOptions);
+    }
+
+    @Benchmark
+    public CachedMetaData calculateMeta() {
+        return this.cachedData.metaData().calculate(this.queryOptions);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.context.MutableContextSetImpl;
+
+import net.luckperms.api.context.DefaultContextKeys;
+import net.luckperms.api.context.ImmutableContextSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and comparing {@link ImmutableContextSetImpl}s of the size
+ * typically produced by the platform context calculators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextSetBenchmark {
+
+    private ImmutableContextSet playerContext;
+    private ImmutableContextSet nodeContext;
+    private MutableContextSetImpl mutable;
+
+    @Setup
+    public void setup() {
+        this.playerContext = build();
+        this.nodeContext = new ImmutableContextSetImpl.BuilderImpl()
+                .add(DefaultContextKeys.SERVER_KEY, "survival")
+                .add(DefaultContextKeys.WORLD_KEY, "world_nether")
+                .build();
+
+        this.mutable = new MutableContextSetImpl();
+        this.mutable.addAll(this.playerContext);
+    }
+
+    @Benchmark
+    public ImmutableContextSet build() {
+        return new ImmutableContextSetImpl.BuilderImpl()
+                .add(DefaultContextKeys.SERVER_KEY, "survival")
+                .add(DefaultContextKeys.WORLD_KEY, "world_nether")
+                .add(DefaultContextKeys.DIMENSION_TYPE_KEY, "the_nether")
+                .add(DefaultContextKeys.GAMEMODE_KEY, "survival")
+                .add("proxy", "bungee-1")
+                .add("region", "spawn")
+                .add("region", "market")
+                .build();
+    }
+
+    @Benchmark
+    public ImmutableContextSet immutableCopy() {
+        return this.mutable.immutableCopy();
+    }
+
+    @Benchmark
+    public boolean isSatisfiedBy() {
+        return this.nodeContext.isSatisfiedBy(this.playerContext);
+    }
+
+    @Benchmark
+    public boolean isNotSatisfiedBy() {
+        return this.playerContext.isSatisfiedBy(this.nodeContext);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks;
+
+import me.lucko.luckperms.benchmarks.fixture.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.fixture.PermissionGraph;
+import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.util.Difference;
+
+import net.luckperms.api.context.DefaultContextKeys;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding nodes to (and removing them from) a populated {@link NodeMapMutable}.
+ *
+ * <p>Each invocation adds a node and then removes it again, so that the map stays the
+ * same size for the duration of the run.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NodeMapBenchmark {
+
+    @Param({"50", "500"})
+    public int permissionsPerGroup;
+
+    private BenchmarkPlugin plugin;
+    private NodeMapMutable map;
+    private Node[] nodes;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = new BenchmarkPlugin();
+        PermissionGraph graph = new PermissionGraph(this.plugin, this.permissionsPerGroup);
+
+        this.map = new NodeMapMutable(graph.getUser(), DataType.NORMAL);
+        this.map.addAll(graph.getUser().normalData().asList());
+
+        this.nodes = new Node[64];
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.nodes[i] = Permission.builder()
+                    .permission("benchmark.node" + i + ".use")
+                    .withContext(DefaultContextKeys.SERVER_KEY, (i & 1) == 0 ? "survival" : "creative")
+                    .build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.close();
+    }
+
+    @Benchmark
+    public Difference<Node> addAndRemove() {
+        Node node = this.nodes[this.index++ & (this.nodes.length - 1)];
+        this.map.add(node);
+        return this.map.removeExact(node);
+    }
+}
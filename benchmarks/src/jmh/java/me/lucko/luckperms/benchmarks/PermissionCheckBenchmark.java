@@ -0,0 +1,133 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks;
+
+import me.lucko.luckperms.benchmarks.fixture.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.fixture.PermissionGraph;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PermissionCalculator} lookups for a user with a realistic inheritance tree.
+ *
+ * <p>The "cached" benchmarks go through the calculator's lookup cache (the path taken by
+ * every platform permission check), and once warmed up are served by it. The "uncached"
+ * benchmarks take the same path against a calculator whose lookup cache only holds a single
+ * entry, so that almost every check also pays for the cache load, insertion and eviction
+ * (Caffeine evicts asynchronously, so a few checks still hit). The "resolve" benchmarks
+ * call the processors directly, without the cache.</p>
+ *
+ * <p>"Granted" permissions are set somewhere in the user's inheritance tree, and
+ * "ungranted" permissions are not.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionCheckBenchmark {
+
+    @Param({"50", "500"})
+    public int permissionsPerGroup;
+
+    private BenchmarkPlugin plugin;
+    private PermissionCalculator calculator;
+    private BenchmarkPlugin uncachedPlugin;
+    private PermissionCalculator uncachedCalculator;
+    private String[] granted;
+    private String[] missing;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = new BenchmarkPlugin();
+        PermissionGraph graph = new PermissionGraph(this.plugin, this.permissionsPerGroup);
+
+        this.calculator = graph.getUser().getCachedData().getPermissionData(graph.getQueryOptions()).getCalculator();
+        this.granted = graph.getGrantedPermissions().toArray(new String[0]);
+        this.missing = graph.getMissingPermissions().toArray(new String[0]);
+
+        // a lookup cache of size 1, so consecutive checks for different permissions miss
+        this.uncachedPlugin = new BenchmarkPlugin(adapter -> adapter.set("permission-lookup-cache-size", 1));
+        PermissionGraph uncachedGraph = new PermissionGraph(this.uncachedPlugin, this.permissionsPerGroup);
+        this.uncachedCalculator = uncachedGraph.getUser().getCachedData().getPermissionData(uncachedGraph.getQueryOptions()).getCalculator();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.close();
+        this.uncachedPlugin.close();
+    }
+
+    private String next(String[] permissions) {
+        int i = this.index++;
+        if (this.index == Integer.MAX_VALUE) {
+            this.index = 0;
+        }
+        return permissions[i % permissions.length];
+    }
+
+    @Benchmark
+    public TristateResult cachedGranted() {
+        return this.calculator.checkPermission(next(this.granted));
+    }
+
+    @Benchmark
+    public TristateResult cachedUngranted() {
+        return this.calculator.checkPermission(next(this.missing));
+    }
+
+    @Benchmark
+    public TristateResult uncachedGranted() {
+        return this.uncachedCalculator.checkPermission(next(this.granted));
+    }
+
+    @Benchmark
+    public TristateResult uncachedUngranted() {
+        return this.uncachedCalculator.checkPermission(next(this.missing));
+    }
+
+    @Benchmark
+    public TristateResult resolveGranted() {
+        return this.calculator.apply(next(this.granted));
+    }
+
+    @Benchmark
+    public TristateResult resolveUngranted() {
+        return this.calculator.apply(next(this.missing));
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.fixture;
+
+import me.lucko.luckperms.common.actionlog.LogDispatcher;
+import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.CalculatorInterner;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.extension.SimpleExtensionManager;
+import me.lucko.luckperms.common.http.BytebinClient;
+import me.lucko.luckperms.common.http.BytesocksClient;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.locale.TranslationManager;
+import me.lucko.luckperms.common.locale.TranslationRepository;
+import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.Metrics;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.StandardTrackManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.model.manager.user.StandardUserManager;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+import me.lucko.luckperms.common.sender.DummyConsoleSender;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.tasks.ExpiryScheduler;
+import me.lucko.luckperms.common.tasks.SyncTask;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.webeditor.store.WebEditorStore;
+
+import net.kyori.adventure.text.Component;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A minimal {@link LuckPermsPlugin} which wires together the parts of the common module
+ * used to resolve and cache permission data, without storage, messaging or a platform.
+ *
+ * <p>Storage, sync requests and the console sender are no-ops.</p>
+ */
+public class BenchmarkPlugin implements LuckPermsPlugin, AutoCloseable {
+    private final BenchmarkBootstrap bootstrap;
+    private final LuckPermsConfiguration configuration;
+    private final StandardUserManager userManager;
+    private final StandardGroupManager groupManager;
+    private final StandardTrackManager trackManager;
+    private final BenchmarkContextManager contextManager;
+    private final InheritanceGraphFactory inheritanceGraphFactory;
+    private final CalculatorFactory calculatorFactory;
+    private final CalculatorInterner calculatorInterner;
+    private final VerboseHandler verboseHandler;
+    private final Metrics metrics;
+    private final PermissionRegistry permissionRegistry;
+    private final ExpiryScheduler expiryScheduler;
+    private final LuckPermsApiProvider apiProvider;
+    private final EventDispatcher eventDispatcher;
+    private final Storage storage;
+    private final SyncTask.Buffer syncTaskBuffer;
+    private final Sender consoleSender;
+
+    public BenchmarkPlugin() {
+        this(adapter -> {});
+    }
+
+    public BenchmarkPlugin(Consumer<BenchmarkConfigurationAdapter> configurer) {
+        this.bootstrap = new BenchmarkBootstrap();
+
+        BenchmarkConfigurationAdapter adapter = new BenchmarkConfigurationAdapter(this);
+        configurer.accept(adapter);
+        this.configuration = new LuckPermsConfiguration(this, adapter);
+
+        this.permissionRegistry = new PermissionRegistry(this.bootstrap.getScheduler());
+        this.verboseHandler = new VerboseHandler(this);
+        this.metrics = new Metrics();
+        this.expiryScheduler = new ExpiryScheduler(this);
+        this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.calculatorFactory = new BenchmarkCalculatorFactory(this);
+        this.calculatorInterner = new CalculatorInterner(this.configuration.get(ConfigKeys.SHARE_PERMISSION_CALCULATORS));
+        this.contextManager = new BenchmarkContextManager(this);
+
+        this.userManager = new StandardUserManager(this);
+        this.groupManager = new StandardGroupManager(this);
+        this.trackManager = new StandardTrackManager(this);
+
+        this.apiProvider = new LuckPermsApiProvider(this);
+        this.eventDispatcher = new EventDispatcher(new BenchmarkEventBus(this, this.apiProvider));
+
+        this.storage = new Storage(this, new BenchmarkStorage(this));
+        this.syncTaskBuffer = new SyncTask.Buffer(this) {
+            @Override
+            protected Void perform() {
+                return null;
+            }
+        };
+        this.consoleSender = new DummyConsoleSender(this) {
+            @Override
+            public void sendMessage(Component message) {
+
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        this.expiryScheduler.close();
+        this.bootstrap.getScheduler().shutdownScheduler();
+        this.bootstrap.getScheduler().shutdownExecutor();
+    }
+
+    @Override
+    public LuckPermsBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    @Override
+    public UserManager<? extends User> getUserManager() {
+        return this.userManager;
+    }
+
+    @Override
+    public GroupManager<? extends Group> getGroupManager() {
+        return this.groupManager;
+    }
+
+    @Override
+    public TrackManager<? extends Track> getTrackManager() {
+        return this.trackManager;
+    }
+
+    @Override
+    public LuckPermsConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public Storage getStorage() {
+        return this.storage;
+    }
+
+    @Override
+    public Optional<InternalMessagingService> getMessagingService() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void setMessagingService(InternalMessagingService service) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PluginLogger getLogger() {
+        return this.bootstrap.getPluginLogger();
+    }
+
+    @Override
+    public EventDispatcher getEventDispatcher() {
+        return this.eventDispatcher;
+    }
+
+    @Override
+    public LuckPermsApiProvider getApiProvider() {
+        return this.apiProvider;
+    }
+
+    @Override
+    public SimpleExtensionManager getExtensionManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CommandManager getCommandManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AbstractConnectionListener getConnectionListener() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TranslationManager getTranslationManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public TranslationRepository getTranslationRepository() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DependencyManager getDependencyManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ContextManager<?, ?> getContextManager() {
+        return this.contextManager;
+    }
+
+    @Override
+    public InheritanceGraphFactory getInheritanceGraphFactory() {
+        return this.inheritanceGraphFactory;
+    }
+
+    @Override
+    public CalculatorFactory getCalculatorFactory() {
+        return this.calculatorFactory;
+    }
+
+    @Override
+    public CalculatorInterner getCalculatorInterner() {
+        return this.calculatorInterner;
+    }
+
+    @Override
+    public VerboseHandler getVerboseHandler() {
+        return this.verboseHandler;
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public PermissionRegistry getPermissionRegistry() {
+        return this.permissionRegistry;
+    }
+
+    @Override
+    public LogDispatcher getLogDispatcher() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<FileWatcher> getFileWatcher() {
+        return Optional.empty();
+    }
+
+    @Override
+    public BytebinClient getBytebin() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BytesocksClient getBytesocks() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WebEditorStore getWebEditorStore() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<QueryOptions> getQueryOptionsForUser(User user) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> lookupUniqueId(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean testUsernameValidity(String username) {
+        return true;
+    }
+
+    @Override
+    public Stream<Sender> getOnlineSenders() {
+        return Stream.empty();
+    }
+
+    @Override
+    public Sender getConsoleSender() {
+        return this.consoleSender;
+    }
+
+    @Override
+    public SyncTask.Buffer getSyncTaskBuffer() {
+        return this.syncTaskBuffer;
+    }
+
+    @Override
+    public ExpiryScheduler getExpiryScheduler() {
+        return this.expiryScheduler;
+    }
+}
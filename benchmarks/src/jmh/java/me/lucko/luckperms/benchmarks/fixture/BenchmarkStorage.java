@@ -0,0 +1,203 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.fixture;
+
+import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
+
+import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.model.PlayerSaveResult;
+import net.luckperms.api.node.Node;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A {@link StorageImplementation} which persists nothing.
+ *
+ * <p>Loads are served from the plugin's managers, and writes are discarded.</p>
+ */
+public class BenchmarkStorage implements StorageImplementation {
+    private final LuckPermsPlugin plugin;
+
+    public BenchmarkStorage(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public LuckPermsPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    @Override
+    public String getImplementationName() {
+        return "Benchmark";
+    }
+
+    @Override
+    public void init() {
+        // no-op
+    }
+
+    @Override
+    public void shutdown() {
+        // no-op
+    }
+
+    @Override
+    public void logAction(Action entry) {
+        // no-op
+    }
+
+    @Override
+    public Log getLog() {
+        return Log.empty();
+    }
+
+    @Override
+    public void applyBulkUpdate(BulkUpdate bulkUpdate) {
+        // no-op
+    }
+
+    @Override
+    public User loadUser(UUID uniqueId, String username) {
+        return this.plugin.getUserManager().getOrMake(uniqueId, username);
+    }
+
+    @Override
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) {
+        Map<UUID, User> users = new HashMap<>();
+        for (UUID uniqueId : uniqueIds) {
+            users.put(uniqueId, this.plugin.getUserManager().getOrMake(uniqueId));
+        }
+        return users;
+    }
+
+    @Override
+    public void saveUser(User user) {
+        // no-op
+    }
+
+    @Override
+    public Set<UUID> getUniqueUsers() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Group createAndLoadGroup(String name) {
+        return this.plugin.getGroupManager().getOrMake(name);
+    }
+
+    @Override
+    public Optional<Group> loadGroup(String name) {
+        return Optional.ofNullable(this.plugin.getGroupManager().getIfLoaded(name));
+    }
+
+    @Override
+    public void loadAllGroups() {
+        // no-op
+    }
+
+    @Override
+    public void saveGroup(Group group) {
+        // no-op
+    }
+
+    @Override
+    public void deleteGroup(Group group) {
+        this.plugin.getGroupManager().unload(group.getName());
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Track createAndLoadTrack(String name) {
+        return this.plugin.getTrackManager().getOrMake(name);
+    }
+
+    @Override
+    public Optional<Track> loadTrack(String name) {
+        return Optional.ofNullable(this.plugin.getTrackManager().getIfLoaded(name));
+    }
+
+    @Override
+    public void loadAllTracks() {
+        // no-op
+    }
+
+    @Override
+    public void saveTrack(Track track) {
+        // no-op
+    }
+
+    @Override
+    public void deleteTrack(Track track) {
+        this.plugin.getTrackManager().unload(track.getName());
+    }
+
+    @Override
+    public PlayerSaveResult savePlayerData(UUID uniqueId, String username) {
+        return PlayerSaveResultImpl.noChange();
+    }
+
+    @Override
+    public void deletePlayerData(UUID uniqueId) {
+        // no-op
+    }
+
+    @Override
+    public @Nullable UUID getPlayerUniqueId(String username) {
+        return null;
+    }
+
+    @Override
+    public @Nullable String getPlayerName(UUID uniqueId) {
+        return null;
+    }
+}
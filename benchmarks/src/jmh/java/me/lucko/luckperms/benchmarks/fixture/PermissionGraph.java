@@ -0,0 +1,187 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.fixture;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Suffix;
+import me.lucko.luckperms.common.node.types.Weight;
+
+import net.luckperms.api.context.DefaultContextKeys;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeBuilder;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds a group hierarchy shaped like a typical server setup, and a user who inherits from it.
+ *
+ * <p>The ladder is {@code default <- member <- vip <- moderator <- admin}, with a
+ * {@code builder} group which only applies on the "creative" server. Each group holds a
+ * mixture of global, server-specific and world-specific permissions, a handful of wildcards
+ * and negations, and prefix/suffix/meta nodes.</p>
+ */
+public final class PermissionGraph {
+    public static final String[] LADDER = {"default", "member", "vip", "moderator", "admin"};
+    private static final String[] SERVERS = {"survival", "creative", "lobby"};
+    private static final String[] WORLDS = {"world", "world_nether", "world_the_end"};
+
+    private final BenchmarkPlugin plugin;
+    private final List<Group> groups = new ArrayList<>();
+    private final User user;
+    private final QueryOptions queryOptions;
+    private final List<String> grantedPermissions = new ArrayList<>();
+    private final List<String> missingPermissions = new ArrayList<>();
+
+    /**
+     * Builds the graph.
+     *
+     * @param plugin the plugin
+     * @param permissionsPerGroup the number of permission nodes to give each group
+     */
+    public PermissionGraph(BenchmarkPlugin plugin, int permissionsPerGroup) {
+        this.plugin = plugin;
+        Random random = new Random(permissionsPerGroup);
+
+        String parent = null;
+        for (int i = 0; i < LADDER.length; i++) {
+            Group group = plugin.getGroupManager().getOrMake(LADDER[i]);
+            if (parent != null) {
+                add(group, Inheritance.builder(parent).build());
+            }
+            add(group, Weight.builder((i + 1) * 10).build());
+            add(group, Prefix.builder("[" + LADDER[i] + "] ", (i + 1) * 10).build());
+            add(group, Suffix.builder(" (" + i + ")", (i + 1) * 10).build());
+            add(group, Meta.builder("rank", LADDER[i]).build());
+            add(group, Meta.builder("homes", Integer.toString(i * 2 + 1)).build());
+            populate(group, random, permissionsPerGroup);
+
+            this.groups.add(group);
+            parent = group.getName();
+        }
+
+        Group builder = plugin.getGroupManager().getOrMake("builder");
+        add(builder, Weight.builder(25).build());
+        populate(builder, random, permissionsPerGroup / 2);
+        this.groups.add(builder);
+
+        this.user = plugin.getUserManager().getOrMake(new UUID(random.nextLong(), random.nextLong()), "benchmark");
+        add(this.user, Inheritance.builder("admin").build());
+        add(this.user, Inheritance.builder("builder").withContext(DefaultContextKeys.SERVER_KEY, "creative").build());
+        add(this.user, Meta.builder("homes", "20").build());
+        populate(this.user, random, permissionsPerGroup / 4);
+
+        for (int i = 0; i < permissionsPerGroup; i++) {
+            this.missingPermissions.add("missing" + i + ".command." + random.nextInt(1000));
+        }
+        Collections.shuffle(this.grantedPermissions, random);
+        Collections.shuffle(this.missingPermissions, random);
+
+        this.queryOptions = plugin.getContextManager().formQueryOptions(new ImmutableContextSetImpl.BuilderImpl()
+                .add(DefaultContextKeys.SERVER_KEY, "creative")
+                .add(DefaultContextKeys.WORLD_KEY, "world")
+                .add("gamemode", "creative")
+                .build()
+        );
+    }
+
+    private void populate(PermissionHolder holder, Random random, int count) {
+        String prefix = holder.getIdentifier().getName();
+        for (int i = 0; i < count; i++) {
+            String permission = prefix + "plugin" + (i % 16) + ".feature" + i + ".use";
+            NodeBuilder<?, ?> builder = Permission.builder().permission(permission);
+
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                builder.value(false);
+            } else if (kind == 1) {
+                builder.withContext(DefaultContextKeys.SERVER_KEY, SERVERS[random.nextInt(SERVERS.length)]);
+            } else if (kind == 2) {
+                builder.withContext(DefaultContextKeys.WORLD_KEY, WORLDS[random.nextInt(WORLDS.length)]);
+            }
+
+            add(holder, builder.build());
+            if (kind > 2) {
+                this.grantedPermissions.add(permission);
+            }
+        }
+
+        for (int i = 0; i < count / 32; i++) {
+            add(holder, Permission.builder().permission(prefix + "wildcard" + i + ".*").build());
+            this.grantedPermissions.add(prefix + "wildcard" + i + ".some.child.node");
+        }
+    }
+
+    private static void add(PermissionHolder holder, Node node) {
+        holder.setNode(DataType.NORMAL, node, false);
+    }
+
+    public BenchmarkPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    public List<Group> getGroups() {
+        return this.groups;
+    }
+
+    public User getUser() {
+        return this.user;
+    }
+
+    public QueryOptions getQueryOptions() {
+        return this.queryOptions;
+    }
+
+    /**
+     * Gets permissions which the user has been granted, either directly or via inheritance.
+     *
+     * @return the granted permissions
+     */
+    public List<String> getGrantedPermissions() {
+        return this.grantedPermissions;
+    }
+
+    /**
+     * Gets permissions which do not appear anywhere in the graph.
+     *
+     * @return the missing permissions
+     */
+    public List<String> getMissingPermissions() {
+        return this.missingPermissions;
+    }
+}
@@ -100,6 +100,12 @@ public class BukkitContextManager extends ContextManager<Player, Player> {
         }
     }
 
+    @Override
+    public boolean requiresPolling() {
+        // changes to op status aren't signalled
+        return true;
+    }
+
     @Override
     public QueryOptions formQueryOptions(Player subject, ImmutableContextSet contextSet) {
         QueryOptions.Builder queryOptions = this.plugin.getConfiguration().get(ConfigKeys.GLOBAL_QUERY_OPTIONS).toBuilder();
@@ -128,6 +128,11 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onWorldChange(PlayerChangedWorldEvent e) {
         if (this.world || this.dimensionType) {
@@ -68,6 +68,11 @@ public class BungeePlayerCalculator implements ContextCalculator<ProxiedPlayer>,
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onServerSwitch(ServerSwitchEvent e) {
         this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
@@ -0,0 +1,311 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.event.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an implementation class for each of the event types listed by a
+ * {@code GenerateEventClasses} annotation, along with a registry of factories
+ * used by {@code GeneratedEventClass} to create instances of them.
+ *
+ * <p>Each generated class extends {@code AbstractEvent}, implements the event
+ * interface, and holds the value of each method annotated with {@code Param} in a
+ * final field, set by the constructor in {@code Param} order.</p>
+ */
+@SupportedAnnotationTypes(EventClassProcessor.GENERATE_ANNOTATION)
+public class EventClassProcessor extends AbstractProcessor {
+    static final String GENERATE_ANNOTATION = "me.lucko.luckperms.common.event.gen.GenerateEventClasses";
+
+    private static final String PARAM_ANNOTATION = "net.luckperms.api.event.util.Param";
+    private static final String EVENT_PACKAGE = "net.luckperms.api.event";
+    private static final String GENERATED_PACKAGE = "me.lucko.luckperms.common.event.gen";
+    private static final String ABSTRACT_EVENT = GENERATED_PACKAGE + ".AbstractEvent";
+    private static final String REGISTRY_CLASS = "GeneratedEventFactories";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                try {
+                    generate(element, readEventTypes(element, annotation));
+                } catch (IOException e) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write generated event class: " + e, element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static List<TypeElement> readEventTypes(Element element, TypeElement annotation) {
+        List<TypeElement> eventTypes = new ArrayList<>();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(annotation)) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+                if (!e.getKey().getSimpleName().contentEquals("value")) {
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) e.getValue().getValue();
+                for (AnnotationValue value : values) {
+                    eventTypes.add((TypeElement) ((DeclaredType) value.getValue()).asElement());
+                }
+            }
+        }
+        return eventTypes;
+    }
+
+    private void generate(Element origin, List<TypeElement> eventTypes) throws IOException {
+        List<String> registrations = new ArrayList<>();
+        for (TypeElement eventType : eventTypes) {
+            String eventName = eventType.getQualifiedName().toString();
+            if (!eventName.startsWith(EVENT_PACKAGE + ".") || eventType.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Not a top level API event type: " + eventName, origin);
+                continue;
+            }
+
+            List<Property> properties = readProperties(origin, eventType);
+            String generatedName = GENERATED_PACKAGE + eventName.substring(EVENT_PACKAGE.length());
+            writeEventClass(origin, eventType, generatedName, properties);
+
+            StringBuilder arguments = new StringBuilder("api");
+            for (int i = 0; i < properties.size(); i++) {
+                String castType = properties.get(i).castType;
+                arguments.append(", ");
+                // the properties are already Objects, so a cast would be redundant
+                if (!castType.equals("java.lang.Object")) {
+                    arguments.append('(').append(castType).append(") ");
+                }
+                arguments.append("properties[").append(i).append(']');
+            }
+            registrations.add("        map.put(" + eventName + ".class, new GeneratedEventClass(" + properties.size() + ", (api, properties) -> new " + generatedName + "(" + arguments + ")));");
+        }
+
+        writeRegistry(origin, registrations);
+    }
+
+    private List<Property> readProperties(Element origin, TypeElement eventType) {
+        DeclaredType eventDeclaredType = (DeclaredType) eventType.asType();
+
+        List<Property> properties = new ArrayList<>();
+        for (Element member : this.processingEnv.getElementUtils().getAllMembers(eventType)) {
+            if (member.getKind() != ElementKind.METHOD || member.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) member;
+            Integer index = readParamIndex(method);
+            if (index == null) {
+                continue;
+            }
+
+            // resolve the return type in the context of the event, e.g. ResultEvent<T> -> ResultEvent<String>
+            ExecutableType methodType = (ExecutableType) this.processingEnv.getTypeUtils().asMemberOf(eventDeclaredType, method);
+            TypeMirror returnType = methodType.getReturnType();
+            String castType = returnType.getKind().isPrimitive()
+                    ? this.processingEnv.getTypeUtils().boxedClass((PrimitiveType) returnType).getQualifiedName().toString()
+                    : typeName(returnType);
+            properties.add(new Property(method.getSimpleName().toString(), typeName(returnType), castType, index));
+        }
+
+        properties.sort(Comparator.comparingInt(p -> p.index));
+        for (int i = 1; i < properties.size(); i++) {
+            if (properties.get(i - 1).index == properties.get(i).index) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Duplicate @Param index " + properties.get(i).index + " in " + eventType.getQualifiedName(), origin);
+            }
+        }
+        return properties;
+    }
+
+    private static Integer readParamIndex(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!type.getQualifiedName().contentEquals(PARAM_ANNOTATION)) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+                if (e.getKey().getSimpleName().contentEquals("value")) {
+                    return (Integer) e.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the source representation of a type, without any type annotations.
+     *
+     * @param type the type
+     * @return the source representation
+     */
+    private static String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        } else if (type.getKind() == TypeKind.WILDCARD) {
+            WildcardType wildcard = (WildcardType) type;
+            if (wildcard.getExtendsBound() != null) {
+                return "? extends " + typeName(wildcard.getExtendsBound());
+            } else if (wildcard.getSuperBound() != null) {
+                return "? super " + typeName(wildcard.getSuperBound());
+            }
+            return "?";
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            DeclaredType declared = (DeclaredType) type;
+            String name = ((TypeElement) declared.asElement()).getQualifiedName().toString();
+            if (declared.getTypeArguments().isEmpty()) {
+                return name;
+            }
+            return name + declared.getTypeArguments().stream()
+                    .map(EventClassProcessor::typeName)
+                    .collect(Collectors.joining(", ", "<", ">"));
+        }
+        throw new IllegalArgumentException("Unsupported event property type: " + type);
+    }
+
+    private void writeEventClass(Element origin, TypeElement eventType, String generatedName, List<Property> properties) throws IOException {
+        int split = generatedName.lastIndexOf('.');
+        String packageName = generatedName.substring(0, split);
+        String simpleName = generatedName.substring(split + 1);
+        String eventName = eventType.getQualifiedName().toString();
+
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(generatedName, origin).openWriter()) {
+            writer.write("package " + packageName + ";\n\n");
+            writer.write("/**\n * Generated implementation of {@link " + eventName + "}.\n */\n");
+            writer.write("public final class " + simpleName + " extends " + ABSTRACT_EVENT + " implements " + eventName + " {\n");
+
+            for (Property property : properties) {
+                writer.write("    private final " + property.type + " " + property.name + ";\n");
+            }
+            writer.write("\n");
+
+            StringBuilder parameters = new StringBuilder("net.luckperms.api.LuckPerms api");
+            for (Property property : properties) {
+                parameters.append(", ").append(property.type).append(' ').append(property.name);
+            }
+            writer.write("    public " + simpleName + "(" + parameters + ") {\n");
+            writer.write("        super(api);\n");
+            for (Property property : properties) {
+                writer.write("        this." + property.name + " = " + property.name + ";\n");
+            }
+            writer.write("    }\n\n");
+
+            for (Property property : properties) {
+                writer.write("    @Override\n");
+                writer.write("    public " + property.type + " " + property.name + "() {\n");
+                writer.write("        return this." + property.name + ";\n");
+                writer.write("    }\n\n");
+            }
+
+            writer.write("    @Override\n");
+            writer.write("    public java.lang.Class<? extends net.luckperms.api.event.LuckPermsEvent> getEventType() {\n");
+            writer.write("        return " + eventName + ".class;\n");
+            writer.write("    }\n\n");
+
+            StringBuilder toString = new StringBuilder("\"" + simpleName + "{");
+            for (int i = 0; i < properties.size(); i++) {
+                String name = properties.get(i).name;
+                toString.append(i == 0 ? "" : ", ").append(name).append("=\" + this.").append(name).append(" + \"");
+            }
+            toString.append("}\"");
+            writer.write("    @Override\n");
+            writer.write("    public java.lang.String toString() {\n");
+            writer.write("        return " + toString + ";\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        }
+    }
+
+    private void writeRegistry(Element origin, List<String> registrations) throws IOException {
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(GENERATED_PACKAGE + "." + REGISTRY_CLASS, origin).openWriter()) {
+            writer.write("package " + GENERATED_PACKAGE + ";\n\n");
+            writer.write("/**\n * Generated registry of the factories for each generated event class.\n */\n");
+            writer.write("final class " + REGISTRY_CLASS + " {\n");
+            writer.write("    private " + REGISTRY_CLASS + "() {}\n\n");
+            writer.write("    @SuppressWarnings(\"unchecked\")\n");
+            writer.write("    static void register(java.util.Map<java.lang.Class<? extends net.luckperms.api.event.LuckPermsEvent>, GeneratedEventClass> map) {\n");
+            for (String registration : registrations) {
+                writer.write(registration + "\n");
+            }
+            writer.write("    }\n");
+            writer.write("}\n");
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final String type;
+        private final String castType;
+        private final int index;
+
+        Property(String name, String type, String castType, int index) {
+            this.name = name;
+            this.type = type;
+            this.castType = castType;
+            this.index = index;
+        }
+    }
+
+}
@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class Log {
     private static final Log EMPTY = new Log(ImmutableList.of());
@@ -91,6 +92,13 @@ public class Log {
                 .collect(ImmutableCollectors.toSortedSet());
     }
 
+    public LogPage getPage(LogQuery query, int pageNumber, int pageSize) {
+        List<LoggedAction> matching = this.content.stream()
+                .filter(query::matches)
+                .collect(Collectors.toList());
+        return LogPage.fromContent(matching, pageNumber, pageSize);
+    }
+
     public static class Builder {
         private final List<LoggedAction> content = new ArrayList<>();
 
@@ -0,0 +1,154 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.util.Paginated;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of the (filtered) action log.
+ *
+ * <p>Pages are numbered in chronological order, so page 1 holds the oldest
+ * entries and the last page holds the most recent ones. Storage
+ * implementations only read the entries on the requested page, counting
+ * from the most recent end so that recent pages are cheap to fetch.</p>
+ */
+public final class LogPage {
+
+    /** The page number to request the most recent page */
+    public static final int LATEST = Integer.MIN_VALUE;
+
+    /**
+     * Creates a page by reading the entries it contains using the given selector.
+     *
+     * @param pageNumber the page number to read, or {@link #LATEST}
+     * @param pageSize the number of entries per page
+     * @param totalEntries the total number of entries matching the query
+     * @param selector a function to read entries, counting back from the most recent
+     * @return the page
+     * @throws Exception if the selector throws
+     */
+    public static LogPage create(int pageNumber, int pageSize, int totalEntries, Selector selector) throws Exception {
+        int maxPage = (totalEntries + pageSize - 1) / pageSize;
+        if (pageNumber == LATEST) {
+            pageNumber = Math.max(maxPage, 1);
+        }
+
+        if (pageNumber < 1 || pageNumber > maxPage) {
+            return new LogPage(pageNumber, maxPage, totalEntries, ImmutableList.of());
+        }
+
+        int first = (pageNumber - 1) * pageSize;
+        int last = Math.min(first + pageSize, totalEntries);
+
+        List<LoggedAction> newestFirst = selector.select(totalEntries - last, last - first);
+
+        List<Paginated.Entry<LoggedAction>> entries = new ArrayList<>(newestFirst.size());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            entries.add(new Paginated.Entry<>(first + entries.size() + 1, newestFirst.get(i)));
+        }
+        return new LogPage(pageNumber, maxPage, totalEntries, Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * Creates a page from entries which have already been read into memory.
+     *
+     * @param content all matching entries, in chronological order
+     * @param pageNumber the page number to read, or {@link #LATEST}
+     * @param pageSize the number of entries per page
+     * @return the page
+     */
+    public static LogPage fromContent(List<LoggedAction> content, int pageNumber, int pageSize) {
+        int size = content.size();
+        try {
+            return create(pageNumber, pageSize, size, (skip, limit) -> {
+                List<LoggedAction> list = new ArrayList<>(limit);
+                for (int i = size - 1 - skip; i >= 0 && list.size() < limit; i--) {
+                    list.add(content.get(i));
+                }
+                return list;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final int pageNumber;
+    private final int maxPage;
+    private final int totalEntries;
+    private final List<Paginated.Entry<LoggedAction>> entries;
+
+    private LogPage(int pageNumber, int maxPage, int totalEntries, List<Paginated.Entry<LoggedAction>> entries) {
+        this.pageNumber = pageNumber;
+        this.maxPage = maxPage;
+        this.totalEntries = totalEntries;
+        this.entries = entries;
+    }
+
+    public int getPageNumber() {
+        return this.pageNumber;
+    }
+
+    public int getMaxPage() {
+        return this.maxPage;
+    }
+
+    public int getTotalEntries() {
+        return this.totalEntries;
+    }
+
+    /**
+     * Gets if the requested page exists.
+     *
+     * @return true if the page is within range
+     */
+    public boolean isInRange() {
+        return this.pageNumber >= 1 && this.pageNumber <= this.maxPage;
+    }
+
+    public List<Paginated.Entry<LoggedAction>> getEntries() {
+        return this.entries;
+    }
+
+    @FunctionalInterface
+    public interface Selector {
+
+        /**
+         * Reads matching entries, ordered from the most recent.
+         *
+         * @param skip the number of most recent entries to skip
+         * @param limit the maximum number of entries to return
+         * @return the entries, most recent first
+         * @throws Exception if an error occurs
+         */
+        List<LoggedAction> select(int skip, int limit) throws Exception;
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.actionlog;
+
+import net.luckperms.api.actionlog.Action;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * A filter for reading a subset of the action log.
+ *
+ * <p>Every constraint is optional. Storage implementations push the
+ * constraints down to an index where they can, and fall back to
+ * {@link #matches(Action)} otherwise.</p>
+ */
+public final class LogQuery {
+    private static final LogQuery ALL = new LogQuery(new Builder());
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static LogQuery all() {
+        return ALL;
+    }
+
+    public static LogQuery source(UUID source) {
+        return builder().source(source).build();
+    }
+
+    public static LogQuery user(UUID uniqueId) {
+        return builder().targetType(Action.Target.Type.USER).target(uniqueId).build();
+    }
+
+    public static LogQuery group(String name) {
+        return builder().targetType(Action.Target.Type.GROUP).targetName(name).build();
+    }
+
+    public static LogQuery track(String name) {
+        return builder().targetType(Action.Target.Type.TRACK).targetName(name).build();
+    }
+
+    public static LogQuery search(String search) {
+        return builder().search(search).build();
+    }
+
+    private final @Nullable UUID source;
+    private final Action.Target.@Nullable Type targetType;
+    private final @Nullable UUID targetUniqueId;
+    private final @Nullable String targetName;
+    private final @Nullable String search;
+    private final @Nullable Instant since;
+    private final @Nullable Instant until;
+
+    private LogQuery(Builder builder) {
+        this.source = builder.source;
+        this.targetType = builder.targetType;
+        this.targetUniqueId = builder.targetUniqueId;
+        this.targetName = builder.targetName;
+        this.search = builder.search == null ? null : builder.search.toLowerCase(Locale.ROOT);
+        this.since = builder.since;
+        this.until = builder.until;
+    }
+
+    public @Nullable UUID getSource() {
+        return this.source;
+    }
+
+    public Action.Target.@Nullable Type getTargetType() {
+        return this.targetType;
+    }
+
+    public @Nullable UUID getTargetUniqueId() {
+        return this.targetUniqueId;
+    }
+
+    public @Nullable String getTargetName() {
+        return this.targetName;
+    }
+
+    /**
+     * Gets the text to search for, in lower case.
+     *
+     * @return the search text
+     */
+    public @Nullable String getSearch() {
+        return this.search;
+    }
+
+    /**
+     * Gets the earliest timestamp to include (inclusive).
+     *
+     * @return the earliest timestamp
+     */
+    public @Nullable Instant getSince() {
+        return this.since;
+    }
+
+    /**
+     * Gets the latest timestamp to include (exclusive).
+     *
+     * @return the latest timestamp
+     */
+    public @Nullable Instant getUntil() {
+        return this.until;
+    }
+
+    public boolean isEmpty() {
+        return this == ALL || (this.source == null && this.targetType == null && this.targetUniqueId == null &&
+                this.targetName == null && this.search == null && this.since == null && this.until == null);
+    }
+
+    public boolean matches(Action action) {
+        if (this.source != null && !this.source.equals(action.getSource().getUniqueId())) {
+            return false;
+        }
+        if (this.targetType != null && this.targetType != action.getTarget().getType()) {
+            return false;
+        }
+        if (this.targetUniqueId != null && !this.targetUniqueId.equals(action.getTarget().getUniqueId().orElse(null))) {
+            return false;
+        }
+        if (this.targetName != null && !this.targetName.equals(action.getTarget().getName())) {
+            return false;
+        }
+        if (this.since != null && action.getTimestamp().isBefore(this.since)) {
+            return false;
+        }
+        if (this.until != null && !action.getTimestamp().isBefore(this.until)) {
+            return false;
+        }
+        if (this.search != null) {
+            return action.getSource().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                    action.getTarget().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                    action.getDescription().toLowerCase(Locale.ROOT).contains(this.search);
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "LogQuery(" +
+                "source=" + this.source + ", " +
+                "targetType=" + this.targetType + ", " +
+                "targetUniqueId=" + this.targetUniqueId + ", " +
+                "targetName=" + this.targetName + ", " +
+                "search=" + this.search + ", " +
+                "since=" + this.since + ", " +
+                "until=" + this.until + ")";
+    }
+
+    public static final class Builder {
+        private UUID source = null;
+        private Action.Target.Type targetType = null;
+        private UUID targetUniqueId = null;
+        private String targetName = null;
+        private String search = null;
+        private Instant since = null;
+        private Instant until = null;
+
+        private Builder() {
+
+        }
+
+        public Builder source(@Nullable UUID source) {
+            this.source = source;
+            return this;
+        }
+
+        public Builder targetType(Action.Target.@Nullable Type targetType) {
+            this.targetType = targetType;
+            return this;
+        }
+
+        public Builder target(@Nullable UUID targetUniqueId) {
+            this.targetUniqueId = targetUniqueId;
+            return this;
+        }
+
+        public Builder targetName(@Nullable String targetName) {
+            this.targetName = targetName;
+            return this;
+        }
+
+        public Builder search(@Nullable String search) {
+            this.search = search == null || search.isEmpty() ? null : search;
+            return this;
+        }
+
+        public Builder since(@Nullable Instant since) {
+            this.since = since;
+            return this;
+        }
+
+        public Builder until(@Nullable Instant until) {
+            this.until = until;
+            return this;
+        }
+
+        public LogQuery build() {
+            return new LogQuery(this);
+        }
+    }
+
+}
@@ -25,8 +25,11 @@
 
 package me.lucko.luckperms.common.backup;
 
-import com.google.gson.JsonObject;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.http.AbstractHttpClient;
 import me.lucko.luckperms.common.http.UnsuccessfulRequestException;
 import me.lucko.luckperms.common.locale.Message;
@@ -38,7 +41,6 @@ import me.lucko.luckperms.common.node.utils.NodeJsonSerializer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.storage.Storage;
-import me.lucko.luckperms.common.util.CompletableFutures;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import me.lucko.luckperms.common.util.gson.JArray;
 import me.lucko.luckperms.common.util.gson.JObject;
@@ -48,34 +50,35 @@ import net.kyori.adventure.text.Component;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles export operations
+ *
+ * <p>Data is written to a gzipped JSON stream as it is gathered. Users are
+ * loaded from storage a page at a time, so only a couple of pages are held
+ * in memory at once.</p>
  */
 public abstract class Exporter implements Runnable {
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
@@ -84,13 +87,15 @@ public abstract class Exporter implements Runnable {
     private final Sender executor;
     private final boolean includeUsers;
     private final boolean includeGroups;
+    private final Gson gson;
     protected final ProgressLogger log;
 
-    protected Exporter(LuckPermsPlugin plugin, Sender executor, boolean includeUsers, boolean includeGroups) {
+    protected Exporter(LuckPermsPlugin plugin, Sender executor, boolean includeUsers, boolean includeGroups, Gson gson) {
         this.plugin = plugin;
         this.executor = executor;
         this.includeUsers = includeUsers;
         this.includeGroups = includeGroups;
+        this.gson = gson;
 
         this.log = new ProgressLogger();
         this.log.addListener(plugin.getConsoleSender());
@@ -99,87 +104,123 @@ public abstract class Exporter implements Runnable {
 
     @Override
     public void run() {
-        JsonObject json = new JsonObject();
-        json.add("metadata", new JObject()
-                .add("generatedBy", this.executor.getNameWithLocation())
-                .add("generatedAt", DATE_FORMAT.format(new Date(System.currentTimeMillis())))
-                .toJson());
-
-        if (this.includeGroups) {
-            this.log.log("Gathering group data...");
-            json.add("groups", exportGroups());
-
-            this.log.log("Gathering track data...");
-            json.add("tracks", exportTracks());
-        }
+        try (JsonWriter out = this.gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(openOutput()), StandardCharsets.UTF_8)))) {
+            out.beginObject();
+
+            out.name("metadata");
+            this.gson.toJson(new JObject()
+                    .add("generatedBy", this.executor.getNameWithLocation())
+                    .add("generatedAt", DATE_FORMAT.format(new Date(System.currentTimeMillis())))
+                    .toJson(), out);
+
+            if (this.includeGroups) {
+                this.log.log("Gathering group data...");
+                out.name("groups");
+                exportGroups(out);
+
+                this.log.log("Gathering track data...");
+                out.name("tracks");
+                exportTracks(out);
+            }
+
+            if (this.includeUsers) {
+                this.log.log("Gathering user data...");
+                out.name("users");
+                exportUsers(out);
+            }
 
-        if (this.includeUsers) {
-            this.log.log("Gathering user data...");
-            json.add("users", exportUsers());
+            out.endObject();
+        } catch (IOException | RuntimeException e) {
+            // the data written so far is incomplete, so don't leave it behind
+            this.plugin.getLogger().severe("Error whilst writing export data", e);
+            discardOutput();
+            this.log.log("Error whilst writing export data, see the console for details.");
+            return;
         }
 
-        processOutput(json);
+        processOutput();
     }
 
-    protected abstract void processOutput(JsonObject json);
-
-    private JsonObject exportGroups() {
-        JsonObject out = new JsonObject();
+    /**
+     * Opens the stream the compressed data is written to.
+     *
+     * @return the output stream
+     * @throws IOException if an error occurs
+     */
+    protected abstract OutputStream openOutput() throws IOException;
+
+    /**
+     * Handles the output, once all of the data has been written.
+     */
+    protected abstract void processOutput();
+
+    /**
+     * Discards the output, if the export failed part of the way through.
+     */
+    protected abstract void discardOutput();
+
+    private void exportGroups(JsonWriter out) throws IOException {
         List<Group> groups = this.plugin.getGroupManager().getAll().values().stream()
                 .sorted(Comparator.<Group>comparingInt(o -> o.getWeight().orElse(0)).reversed()
                         .thenComparing(Group::getName)
                 )
                 .collect(Collectors.toList());
 
+        out.beginObject();
         for (Group group : groups) {
-            out.add(group.getName(), new JObject()
+            out.name(group.getName());
+            this.gson.toJson(new JObject()
                     .add("nodes", NodeJsonSerializer.serializeNodes(group.normalData().asSet()))
-                    .toJson());
+                    .toJson(), out);
         }
-        return out;
+        out.endObject();
     }
 
-    private JsonObject exportTracks() {
-        JsonObject out = new JsonObject();
+    private void exportTracks(JsonWriter out) throws IOException {
         Collection<Track> tracks = this.plugin.getTrackManager().getAll().values().stream()
                 .sorted(Comparator.comparing(Track::getName))
                 .collect(Collectors.toList());
 
+        out.beginObject();
         for (Track track : tracks) {
-            out.add(track.getName(), new JObject()
+            out.name(track.getName());
+            this.gson.toJson(new JObject()
                     .add("groups", new JArray().consume(arr -> track.getGroups().forEach(arr::add)))
-                    .toJson());
+                    .toJson(), out);
         }
-        return out;
+        out.endObject();
     }
 
-    private JsonObject exportUsers() {
-        // Users are migrated in separate threads.
-        // This is because there are likely to be a lot of them, and because we can.
-        // It's a big speed improvement, since the database/files are split up and can handle concurrent reads.
+    private void exportUsers(JsonWriter out) throws IOException {
+        // Users are loaded a page at a time, using the storage's bulk loading.
+        // The next page is loaded whilst the current page is written.
 
         this.log.log("Finding a list of unique users to export.");
 
         // Find all of the unique users we need to export
         Storage ds = this.plugin.getStorage();
-        Set<UUID> users = ds.getUniqueUsers().join();
+        List<UUID> users = new ArrayList<>(ds.getUniqueUsers().join());
+        Collections.sort(users);
         this.log.log("Found " + users.size() + " unique users to export.");
 
-        // create a threadpool to process the users concurrently
-        ExecutorService executor = Executors.newFixedThreadPool(32);
+        int pageSize = this.plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_CHUNK_SIZE) * this.plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_PARALLELISM);
+        Iterator<List<UUID>> pages = Lists.partition(users, pageSize).iterator();
 
-        // A set of futures, which are really just the processes we need to wait for.
-        Set<CompletableFuture<Void>> futures = new HashSet<>();
+        int userCount = 0;
+        long lastProgress = System.nanoTime();
 
-        AtomicInteger userCount = new AtomicInteger(0);
-        Map<UUID, JsonObject> out = Collections.synchronizedMap(new TreeMap<>());
+        out.beginObject();
+        CompletableFuture<Map<UUID, User>> next = pages.hasNext() ? ds.loadUsers(new LinkedHashSet<>(pages.next())) : null;
+        while (next != null) {
+            Map<UUID, User> page = next.join();
+            next = pages.hasNext() ? ds.loadUsers(new LinkedHashSet<>(pages.next())) : null;
 
-        // iterate through each user.
-        for (UUID uuid : users) {
-            // register a task for the user, and schedule it's execution with the pool
-            futures.add(CompletableFuture.runAsync(() -> {
-                User user = this.plugin.getStorage().loadUser(uuid, null).join();
-                out.put(user.getUniqueId(), new JObject()
+            List<UUID> pageUsers = new ArrayList<>(page.keySet());
+            Collections.sort(pageUsers);
+            for (UUID uuid : pageUsers) {
+                User user = page.get(uuid);
+                out.name(uuid.toString());
+                this.gson.toJson(new JObject()
                         .consume(obj -> {
                             user.getUsername().ifPresent(username -> obj.add("username", username));
                             if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
@@ -187,84 +228,67 @@ public abstract class Exporter implements Runnable {
                             }
                         })
                         .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
-                        .toJson());
-                this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
-                userCount.incrementAndGet();
-            }, executor));
-        }
-
-        // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
-
-        while (true) {
-            try {
-                overallFuture.get(5, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
-                // abnormal error - just break
-                e.printStackTrace();
-                break;
-            } catch (TimeoutException e) {
-                // still executing - send a progress report and continue waiting
-                this.log.logProgress("Exported " + userCount.get() + " users so far.");
-                continue;
+                        .toJson(), out);
+                this.plugin.getUserManager().getHouseKeeper().cleanup(uuid);
+                userCount++;
             }
 
-            // process is complete
-            break;
-        }
-
-        executor.shutdown();
-
-        JsonObject outJson = new JsonObject();
-        for (Map.Entry<UUID, JsonObject> entry : out.entrySet()) {
-            outJson.add(entry.getKey().toString(), entry.getValue());
+            if (System.nanoTime() - lastProgress > TimeUnit.SECONDS.toNanos(5)) {
+                lastProgress = System.nanoTime();
+                this.log.logProgress("Exported " + userCount + " users so far.");
+            }
         }
-        return outJson;
+        out.endObject();
     }
 
     public static final class SaveFile extends Exporter {
         private final Path filePath;
 
         public SaveFile(LuckPermsPlugin plugin, Sender executor, Path filePath, boolean includeUsers, boolean includeGroups) {
-            super(plugin, executor, includeUsers, includeGroups);
+            super(plugin, executor, includeUsers, includeGroups, GsonProvider.normal());
             this.filePath = filePath;
         }
 
         @Override
-        protected void processOutput(JsonObject json) {
-            this.log.log("Finished gathering data, writing file...");
+        protected OutputStream openOutput() throws IOException {
+            return Files.newOutputStream(this.filePath);
+        }
 
-            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(this.filePath)), StandardCharsets.UTF_8))) {
-                GsonProvider.normal().toJson(json, out);
+        @Override
+        protected void processOutput() {
+            this.log.getListeners().forEach(l -> Message.EXPORT_FILE_SUCCESS.send(l, this.filePath.toFile().getAbsolutePath()));
+        }
+
+        @Override
+        protected void discardOutput() {
+            try {
+                Files.deleteIfExists(this.filePath);
             } catch (IOException e) {
-                e.printStackTrace();
+                this.plugin.getLogger().warn("Unable to delete incomplete export file " + this.filePath, e);
             }
-
-            this.log.getListeners().forEach(l -> Message.EXPORT_FILE_SUCCESS.send(l, this.filePath.toFile().getAbsolutePath()));
         }
     }
 
     public static final class WebUpload extends Exporter {
         private final String label;
+        private final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
 
         public WebUpload(LuckPermsPlugin plugin, Sender executor, boolean includeUsers, boolean includeGroups, String label) {
-            super(plugin, executor, includeUsers, includeGroups);
+            super(plugin, executor, includeUsers, includeGroups, GsonProvider.prettyPrinting());
             this.label = label;
         }
 
         @Override
-        protected void processOutput(JsonObject json) {
-            this.log.log("Finished gathering data, uploading data...");
+        protected OutputStream openOutput() {
+            return this.bytesOut;
+        }
 
-            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytesOut), StandardCharsets.UTF_8)) {
-                GsonProvider.prettyPrinting().toJson(json, writer);
-            } catch (IOException e) {
-                this.plugin.getLogger().severe("Error compressing data", e);
-            }
+        @Override
+        protected void processOutput() {
+            this.log.log("Finished gathering data, uploading data...");
 
             try {
-                String pasteId = this.plugin.getBytebin().postContent(bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
+                String pasteId = this.plugin.getBytebin().postContent(this.bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
                 this.log.getListeners().forEach(l -> Message.EXPORT_WEB_SUCCESS.send(l, pasteId, this.label));
             } catch (UnsuccessfulRequestException e) {
                 this.log.getListeners().forEach(l -> Message.HTTP_REQUEST_FAILURE.send(l, e.getResponse().code(), e.getResponse().message()));
@@ -273,8 +297,12 @@ public abstract class Exporter implements Runnable {
                 this.log.getListeners().forEach(Message.HTTP_UNKNOWN_FAILURE::send);
             }
         }
-    }
 
+        @Override
+        protected void discardOutput() {
+            this.bytesOut.reset();
+        }
+    }
     private static final class ProgressLogger {
         private final Set<Sender> listeners = new HashSet<>();
 
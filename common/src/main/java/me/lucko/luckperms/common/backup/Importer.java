@@ -26,11 +26,13 @@
 package me.lucko.luckperms.common.backup;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
@@ -41,39 +43,65 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.util.CompletableFutures;
 import me.lucko.luckperms.common.util.Uuids;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
 
 import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.node.Node;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Handles import operations
+ *
+ * <p>The data is read as a stream, one entry at a time, and applied in
+ * batches. A first pass over the data counts the entries and checks that
+ * the data can be read, before anything is changed.</p>
  */
 public class Importer implements Runnable {
 
+    /**
+     * The data being imported, which can be read more than once.
+     */
+    @FunctionalInterface
+    public interface Source {
+        Reader open() throws IOException;
+    }
+
+    public static Source fileSource(Path path) {
+        return () -> new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8));
+    }
+
+    public static Source jsonSource(JsonObject data) {
+        String json = GsonProvider.normal().toJson(data);
+        return () -> new StringReader(json);
+    }
+
     private final LuckPermsPlugin plugin;
     private final Set<Sender> notify;
-    private final JsonObject data;
+    private final Source source;
     private final boolean merge;
+    private final int batchSize;
 
-    public Importer(LuckPermsPlugin plugin, Sender executor, JsonObject data, boolean merge) {
+    public Importer(LuckPermsPlugin plugin, Sender executor, Source source, boolean merge) {
         this.plugin = plugin;
 
         if (executor.isConsole()) {
@@ -81,8 +109,9 @@ public class Importer implements Runnable {
         } else {
             this.notify = ImmutableSet.of(executor, plugin.getConsoleSender());
         }
-        this.data = data;
+        this.source = source;
         this.merge = merge;
+        this.batchSize = plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_CHUNK_SIZE) * plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_PARALLELISM);
     }
 
     private static final class UserData {
@@ -97,6 +126,30 @@ public class Importer implements Runnable {
         }
     }
 
+    private enum EntryType {
+        GROUP, TRACK, USER, WEB_EDITOR_HOLDER, WEB_EDITOR_TRACK
+    }
+
+    @FunctionalInterface
+    private interface EntryHandler {
+
+        /**
+         * Handles an entry read from the data.
+         *
+         * @param type the type of entry
+         * @param id the key of the entry, or null if the entry is part of an array
+         * @param data the entry
+         */
+        void accept(EntryType type, String id, JsonObject data);
+
+        /**
+         * Called at the end of each section of the data.
+         */
+        default void endSection() {
+
+        }
+    }
+
     private void processGroup(String groupName, Set<Node> nodes) {
         Group group = this.plugin.getStorage().createAndLoadGroup(groupName, CreationCause.INTERNAL).join();
         if (this.merge) {
@@ -104,7 +157,7 @@ public class Importer implements Runnable {
         } else {
             group.setNodes(DataType.NORMAL, nodes, false);
         }
-        this.plugin.getStorage().saveGroup(group);
+        this.plugin.getStorage().saveGroup(group).join();
     }
 
     private void processTrack(String trackName, List<String> groups) {
@@ -113,8 +166,10 @@ public class Importer implements Runnable {
         this.plugin.getStorage().saveTrack(track).join();
     }
 
-    private void processUser(UUID uuid, UserData userData) {
-        User user = this.plugin.getStorage().loadUser(uuid, userData.username).join();
+    private CompletableFuture<Void> processUser(User user, UserData userData) {
+        if (userData.username != null) {
+            user.setUsername(userData.username, false);
+        }
         if (userData.primaryGroup != null) {
             user.getPrimaryGroup().setStoredValue(userData.primaryGroup);
         }
@@ -123,81 +178,66 @@ public class Importer implements Runnable {
         } else {
             user.setNodes(DataType.NORMAL, userData.nodes, false);
         }
-        this.plugin.getStorage().saveUser(user).join();
-        this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
+        return this.plugin.getStorage().saveUser(user)
+                .whenComplete((v, ex) -> this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId()));
     }
 
-    private Set<Map.Entry<String, JsonElement>> getDataSection(String id) {
-        if (this.data.has(id)) {
-            return this.data.get(id).getAsJsonObject().entrySet();
-        } else {
-            return Collections.emptySet();
+    private void readData(JsonReader reader, EntryHandler handler) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String section = reader.nextName();
+            switch (section) {
+                case "groups":
+                    readObjectEntries(reader, EntryType.GROUP, handler);
+                    break;
+                case "users":
+                    readObjectEntries(reader, EntryType.USER, handler);
+                    break;
+                case "tracks":
+                    // tracks are an object in export data, and an array in web editor data
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        readArrayEntries(reader, EntryType.WEB_EDITOR_TRACK, handler);
+                    } else {
+                        readObjectEntries(reader, EntryType.TRACK, handler);
+                    }
+                    break;
+                case "permissionHolders":
+                    readArrayEntries(reader, EntryType.WEB_EDITOR_HOLDER, handler);
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            handler.endSection();
         }
+        reader.endObject();
     }
 
-    private void parseExportData(Map<String, Set<Node>> groups, Map<String, List<String>> tracks, Map<UUID, UserData> users) {
-        for (Map.Entry<String, JsonElement> group : getDataSection("groups")) {
-            groups.put(group.getKey(), NodeJsonSerializer.deserializeNodes(group.getValue().getAsJsonObject().get("nodes").getAsJsonArray()));
-        }
-        for (Map.Entry<String, JsonElement> track : getDataSection("tracks")) {
-            JsonArray trackGroups = track.getValue().getAsJsonObject().get("groups").getAsJsonArray();
-            List<String> trackGroupsList = new ArrayList<>();
-            trackGroups.forEach(g -> trackGroupsList.add(g.getAsString()));
-            tracks.put(track.getKey(), trackGroupsList);
-        }
-        for (Map.Entry<String, JsonElement> user : getDataSection("users")) {
-            JsonObject jsonData = user.getValue().getAsJsonObject();
-
-            UUID uuid = UUID.fromString(user.getKey());
-            String username = null;
-            String primaryGroup = null;
-            Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
-
-            if (jsonData.has("username")) {
-                username = jsonData.get("username").getAsString();
-            }
-            if (jsonData.has("primaryGroup")) {
-                primaryGroup = jsonData.get("primaryGroup").getAsString();
-            }
-
-            users.put(uuid, new UserData(username, primaryGroup, nodes));
+    private static void readObjectEntries(JsonReader reader, EntryType type, EntryHandler handler) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            handler.accept(type, id, GsonProvider.parser().parse(reader).getAsJsonObject());
         }
+        reader.endObject();
     }
 
-    private void parseWebEditorData(Map<String, Set<Node>> groups, Map<String, List<String>> tracks, Map<UUID, UserData> users) {
-        JsonArray holdersArray = this.data.get("permissionHolders").getAsJsonArray();
-        for (JsonElement holderElement : holdersArray) {
-            JsonObject jsonData = holderElement.getAsJsonObject();
-
-            HolderType type = HolderType.valueOf(jsonData.get("type").getAsString().toUpperCase(Locale.ROOT));
-            String id = jsonData.get("id").getAsString();
-
-            if (type == HolderType.GROUP) {
-                groups.put(id, NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray()));
-            } else {
-                UUID uuid = UUID.fromString(id);
-                String username = null;
-
-                String displayName = jsonData.get("displayName").getAsString();
-                if (!Uuids.PREDICATE.test(displayName)) {
-                    username = displayName;
-                }
-
-                Set<Node> nodes = NodeJsonSerializer.deserializeNodes(jsonData.get("nodes").getAsJsonArray());
-                users.put(uuid, new UserData(username, null, nodes));
-            }
+    private static void readArrayEntries(JsonReader reader, EntryType type, EntryHandler handler) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            handler.accept(type, null, GsonProvider.parser().parse(reader).getAsJsonObject());
         }
+        reader.endArray();
+    }
 
-        JsonArray tracksArray = this.data.get("tracks").getAsJsonArray();
-        for (JsonElement trackElement : tracksArray) {
-            JsonObject jsonData = trackElement.getAsJsonObject();
-
-            String name = jsonData.get("id").getAsString();
-            JsonArray trackGroups = jsonData.get("groups").getAsJsonArray();
-
-            List<String> trackGroupsList = new ArrayList<>();
-            trackGroups.forEach(g -> trackGroupsList.add(g.getAsString()));
-            tracks.put(name, trackGroupsList);
+    private boolean readData(EntryHandler handler) {
+        try (JsonReader reader = new JsonReader(this.source.open())) {
+            readData(reader, handler);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            this.plugin.getLogger().warn("Error whilst reading the data to import", e);
+            this.notify.forEach(Message.IMPORT_FILE_READ_FAILURE::send);
+            return false;
         }
     }
 
@@ -211,83 +251,208 @@ public class Importer implements Runnable {
 
         this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Reading data..."));
 
-        Map<String, Set<Node>> groups = new HashMap<>();
-        Map<String, List<String>> tracks = new HashMap<>();
-        Map<UUID, UserData> users = new HashMap<>();
+        int[] total = new int[1];
+        boolean[] webEditor = new boolean[1];
+        boolean read = readData((type, id, data) -> {
+            total[0]++;
+            webEditor[0] |= type == EntryType.WEB_EDITOR_HOLDER;
+        });
+        if (!read) {
+            return;
+        }
 
-        if (this.data.has("knownPermissions")) {
+        if (webEditor[0]) {
             this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "The data appears to be from a web editor upload - attempting to recover from it"));
-            parseWebEditorData(groups, tracks, users);
-        } else {
-            parseExportData(groups, tracks, users);
         }
 
         this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Waiting for initial update task to complete..."));
 
-        // join the update task future before scheduling command executions
+        // join the update task future before applying any changes
         updateTask.join();
 
-        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Setting up data processor..."));
+        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Found " + total[0] + " data entries - now importing them in batches of " + this.batchSize + "."));
 
-        // create a threadpool for the processing
-        ExecutorService executor = Executors.newFixedThreadPool(16, new ThreadFactoryBuilder().setNameFormat("luckperms-importer-%d").build());
+        Processor processor = new Processor(total[0]);
+        if (!readData(processor)) {
+            return;
+        }
+        processor.endSection();
+
+        long endTime = System.currentTimeMillis();
+        double seconds = (endTime - startTime) / 1000.0;
+
+        this.notify.forEach(s -> Message.IMPORT_END_COMPLETE.send(s, seconds));
+    }
 
-        // A set of futures, which are really just the processes we need to wait for.
-        Set<CompletableFuture<Void>> futures = new HashSet<>();
+    /**
+     * Collects entries into batches, and applies each batch once it is full.
+     */
+    private final class Processor implements EntryHandler {
+        private final int total;
+        private int processedCount = 0;
+        private long lastProgress = System.nanoTime();
 
-        int total = 0;
-        AtomicInteger processedCount = new AtomicInteger(0);
+        private final List<Map.Entry<String, Set<Node>>> groups = new ArrayList<>();
+        private final List<Map.Entry<String, List<String>>> tracks = new ArrayList<>();
+        private final Map<UUID, UserData> users = new LinkedHashMap<>();
 
-        for (Map.Entry<String, Set<Node>> group : groups.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(group).thenAcceptAsync(ent -> {
-                processGroup(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
+        Processor(int total) {
+            this.total = total;
         }
-        for (Map.Entry<String, List<String>> track : tracks.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(track).thenAcceptAsync(ent -> {
-                processTrack(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
+
+        @Override
+        public void accept(EntryType type, String id, JsonObject data) {
+            try {
+                switch (type) {
+                    case GROUP:
+                        this.groups.add(new AbstractMap.SimpleImmutableEntry<>(id, NodeJsonSerializer.deserializeNodes(data.get("nodes").getAsJsonArray())));
+                        break;
+                    case TRACK:
+                        this.tracks.add(new AbstractMap.SimpleImmutableEntry<>(id, readTrackGroups(data)));
+                        break;
+                    case USER: {
+                        UUID uuid = UUID.fromString(id);
+                        String username = null;
+                        String primaryGroup = null;
+                        Set<Node> nodes = NodeJsonSerializer.deserializeNodes(data.get("nodes").getAsJsonArray());
+
+                        if (data.has("username")) {
+                            username = data.get("username").getAsString();
+                        }
+                        if (data.has("primaryGroup")) {
+                            primaryGroup = data.get("primaryGroup").getAsString();
+                        }
+
+                        this.users.put(uuid, new UserData(username, primaryGroup, nodes));
+                        break;
+                    }
+                    case WEB_EDITOR_HOLDER: {
+                        HolderType holderType = HolderType.valueOf(data.get("type").getAsString().toUpperCase(Locale.ROOT));
+                        String holderId = data.get("id").getAsString();
+                        Set<Node> nodes = NodeJsonSerializer.deserializeNodes(data.get("nodes").getAsJsonArray());
+
+                        if (holderType == HolderType.GROUP) {
+                            this.groups.add(new AbstractMap.SimpleImmutableEntry<>(holderId, nodes));
+                        } else {
+                            UUID uuid = UUID.fromString(holderId);
+                            String username = null;
+
+                            String displayName = data.get("displayName").getAsString();
+                            if (!Uuids.PREDICATE.test(displayName)) {
+                                username = displayName;
+                            }
+
+                            this.users.put(uuid, new UserData(username, null, nodes));
+                        }
+                        break;
+                    }
+                    case WEB_EDITOR_TRACK:
+                        this.tracks.add(new AbstractMap.SimpleImmutableEntry<>(data.get("id").getAsString(), readTrackGroups(data)));
+                        break;
+                    default:
+                        throw new AssertionError(type);
+                }
+            } catch (RuntimeException e) {
+                Importer.this.plugin.getLogger().warn("Unable to read import entry " + (id != null ? id : data), e);
+                processed(1);
+            }
+
+            if (this.groups.size() >= Importer.this.batchSize) {
+                applyGroups();
+            }
+            if (this.tracks.size() >= Importer.this.batchSize) {
+                applyTracks();
+            }
+            if (this.users.size() >= Importer.this.batchSize) {
+                applyUsers();
+            }
         }
-        for (Map.Entry<UUID, UserData> user : users.entrySet()) {
-            futures.add(CompletableFuture.completedFuture(user).thenAcceptAsync(ent -> {
-                processUser(ent.getKey(), ent.getValue());
-                processedCount.incrementAndGet();
-            }, executor));
-            total++;
+
+        @Override
+        public void endSection() {
+            applyGroups();
+            applyTracks();
+            applyUsers();
         }
 
-        // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
+        private List<String> readTrackGroups(JsonObject data) {
+            JsonArray trackGroups = data.get("groups").getAsJsonArray();
+            List<String> trackGroupsList = new ArrayList<>();
+            for (JsonElement g : trackGroups) {
+                trackGroupsList.add(g.getAsString());
+            }
+            return trackGroupsList;
+        }
 
-        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "All data entries have been processed and scheduled for import - now waiting for the execution to complete."));
+        private void applyGroups() {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(this.groups.size());
+            for (Map.Entry<String, Set<Node>> group : this.groups) {
+                futures.add(runAsync("group " + group.getKey(), () -> processGroup(group.getKey(), group.getValue())));
+            }
+            CompletableFutures.allOf(futures).join();
+            processed(this.groups.size());
+            this.groups.clear();
+        }
+
+        private void applyTracks() {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(this.tracks.size());
+            for (Map.Entry<String, List<String>> track : this.tracks) {
+                futures.add(runAsync("track " + track.getKey(), () -> processTrack(track.getKey(), track.getValue())));
+            }
+            CompletableFutures.allOf(futures).join();
+            processed(this.tracks.size());
+            this.tracks.clear();
+        }
 
-        while (true) {
+        private void applyUsers() {
+            if (this.users.isEmpty()) {
+                return;
+            }
+
+            // load the whole batch at once, then save each user
+            Map<UUID, User> loaded;
             try {
-                overallFuture.get(2, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
-                // abnormal error - just break
-                e.printStackTrace();
-                break;
-            } catch (TimeoutException e) {
-                // still executing - send a progress report and continue waiting
-                sendProgress(processedCount.get(), total);
-                continue;
+                loaded = Importer.this.plugin.getStorage().loadUsers(this.users.keySet()).join();
+            } catch (Exception e) {
+                Importer.this.plugin.getLogger().warn("Error whilst loading " + this.users.size() + " users to import", e);
+                loaded = null;
             }
 
-            // process is complete
-            break;
-        }
+            if (loaded != null) {
+                List<CompletableFuture<Void>> futures = new ArrayList<>(this.users.size());
+                for (Map.Entry<UUID, UserData> entry : this.users.entrySet()) {
+                    User user = loaded.get(entry.getKey());
+                    if (user != null) {
+                        futures.add(processUser(user, entry.getValue()).exceptionally(e -> {
+                            Importer.this.plugin.getLogger().warn("Error whilst importing user " + entry.getKey(), e);
+                            return null;
+                        }));
+                    }
+                }
+                CompletableFutures.allOf(futures).join();
+            }
 
-        executor.shutdown();
+            processed(this.users.size());
+            this.users.clear();
+        }
 
-        long endTime = System.currentTimeMillis();
-        double seconds = (endTime - startTime) / 1000.0;
+        private CompletableFuture<Void> runAsync(String description, Runnable runnable) {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    runnable.run();
+                } catch (Exception e) {
+                    Importer.this.plugin.getLogger().warn("Error whilst importing " + description, e);
+                }
+            }, Importer.this.plugin.getBootstrap().getScheduler().async());
+        }
 
-        this.notify.forEach(s -> Message.IMPORT_END_COMPLETE.send(s, seconds));
+        private void processed(int count) {
+            this.processedCount += count;
+            if (count != 0 && System.nanoTime() - this.lastProgress > TimeUnit.SECONDS.toNanos(2)) {
+                this.lastProgress = System.nanoTime();
+                sendProgress(this.processedCount, this.total);
+            }
+        }
     }
 
     private void sendProgress(int processedCount, int total) {
@@ -55,6 +55,14 @@ public class UpdateAction implements Action {
         return "update";
     }
 
+    public QueryField getField() {
+        return this.field;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
     @Override
     public Node apply(Node from) {
         switch (this.field) {
@@ -57,7 +57,7 @@ public abstract class ExpiringCache<T> implements Supplier<T> {
         long nanos = this.expirationNanos;
         long now = System.nanoTime();
 
-        if (nanos == 0 || now - nanos >= 0) {
+        if (nanos == 0 || isExpired(now, nanos)) {
             synchronized (this) {
                 if (nanos == this.expirationNanos) { // recheck for lost race
                     // compute the value using the delegate
@@ -76,6 +76,17 @@ public abstract class ExpiringCache<T> implements Supplier<T> {
         return this.value;
     }
 
+    /**
+     * Gets if a value which expires at the given time should be recalculated.
+     *
+     * @param now the current time
+     * @param expirationNanos the time the value expires at
+     * @return true if the value should be recalculated
+     */
+    protected boolean isExpired(long now, long expirationNanos) {
+        return now - expirationNanos >= 0;
+    }
+
     public void invalidate() {
         this.expirationNanos = 0;
     }
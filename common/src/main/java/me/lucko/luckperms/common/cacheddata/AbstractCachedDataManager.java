@@ -46,12 +46,15 @@ import net.luckperms.api.query.QueryOptions;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
@@ -153,20 +156,28 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     
     private PermissionCache calculatePermissions(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long start = System.nanoTime();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         ConcurrentHashMap<String, Node> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
-        return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
+        PermissionCalculator calculator = this.plugin.getCalculatorInterner().intern(getCalculatorFactory(), queryOptions, metadata, sourcePermissions);
+        PermissionCache cache = new PermissionCache(this.plugin, queryOptions, metadata, calculator, sourcePermissions);
+
+        this.plugin.getMetrics().getPermissionDataCalculations().recordSince(start);
+        return cache;
     }
     
     private MonitoredMetaCache calculateMeta(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long start = System.nanoTime();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         MetaAccumulator accumulator = newAccumulator(queryOptions);
         resolveMeta(accumulator, queryOptions);
+        MonitoredMetaCache cache = new MonitoredMetaCache(this.plugin, queryOptions, metadata, accumulator);
 
-        return new MonitoredMetaCache(this.plugin, queryOptions, metadata, accumulator);
+        this.plugin.getMetrics().getMetaDataCalculations().recordSince(start);
+        return cache;
     }
 
     @Override
@@ -175,6 +186,52 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         this.meta.invalidate();
     }
 
+    /**
+     * Attempts to apply changes to each of the permission caches in place.
+     *
+     * <p>Caches which can't be updated in place are invalidated.</p>
+     *
+     * @param permissions the permissions which have changed
+     * @param resolver a function which resolves the node a permission should now map to
+     *                 in the given query options, returning false if it cannot be determined
+     */
+    protected final void applyPermissionChanges(Collection<String> permissions, PermissionResolver resolver) {
+        for (Map.Entry<QueryOptions, PermissionCache> e : this.permission.cache.entrySet()) {
+            QueryOptions queryOptions = e.getKey();
+            PermissionCache cache = e.getValue();
+
+            Map<String, Node> updates = new HashMap<>();
+            boolean resolved = true;
+            for (String permission : permissions) {
+                if (!resolver.resolve(queryOptions, permission, updates)) {
+                    resolved = false;
+                    break;
+                }
+            }
+
+            if (!resolved || !cache.applyChanges(updates)) {
+                this.permission.remove(queryOptions, cache);
+            }
+        }
+    }
+
+    /**
+     * Resolves the node a permission maps to in a given {@link QueryOptions}.
+     */
+    @FunctionalInterface
+    protected interface PermissionResolver {
+
+        /**
+         * Resolves the node the permission should map to, and adds it to the updates map.
+         *
+         * @param queryOptions the query options
+         * @param permission the permission
+         * @param updates the map to add the result to (null values are allowed)
+         * @return true if resolved, false if the result could not be determined
+         */
+        boolean resolve(QueryOptions queryOptions, String permission, Map<String, Node> updates);
+    }
+
     @Override
     public final void invalidatePermissionCalculators() {
         this.permission.cache.values().forEach(PermissionCache::invalidateCache);
@@ -189,6 +246,14 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         private final Function<QueryOptions, C> cacheLoader;
         private final LoadingMap<QueryOptions, C> cache;
 
+        // incremented after each removal from the cache, to invalidate the last lookup
+        private final AtomicInteger epoch = new AtomicInteger();
+
+        // the result of the most recent lookup. subjects usually query using the same
+        // QueryOptions instance until their contexts change, so the result can be
+        // returned again without hashing and comparing the query options.
+        private volatile LastLookup<C> lastLookup = null;
+
         public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
             this.cacheLoader = cacheLoader;
             this.cache = LoadingMap.of(this.cacheLoader);
@@ -196,17 +261,32 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
         public void cleanup() {
             this.cache.values().removeIf(value -> ((UsageTracked) value).usedSince(TimeUnit.MINUTES.toMillis(2)));
+            this.epoch.incrementAndGet();
         }
 
         @Override
         public @NonNull C get(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
+            LastLookup<C> last = this.lastLookup;
+            if (last != null && last.queryOptions == queryOptions && last.epoch == this.epoch.get()) {
+                ((UsageTracked) last.value).recordUsage();
+                return last.value;
+            }
+
+            // read the epoch before the lookup, so a concurrent removal invalidates the result
+            int epoch = this.epoch.get();
             C data = this.cache.get(queryOptions);
             ((UsageTracked) data).recordUsage();
+            this.lastLookup = new LastLookup<>(queryOptions, data, epoch);
             return data;
         }
 
+        public void remove(QueryOptions queryOptions, C value) {
+            this.cache.remove(queryOptions, value);
+            this.epoch.incrementAndGet();
+        }
+
         @Override
         public @NonNull C calculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
@@ -219,6 +299,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             CompletableFuture.runAsync(() -> {
                 final C value = this.cacheLoader.apply(queryOptions);
                 this.cache.put(queryOptions, value);
+                this.epoch.incrementAndGet();
             }, CaffeineFactory.executor());
         }
 
@@ -228,6 +309,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
             // invalidate the previous value until we're done recalculating
             this.cache.remove(queryOptions);
+            this.epoch.incrementAndGet();
 
             // request recalculation from the cache
             return CompletableFuture.supplyAsync(() -> this.cache.get(queryOptions), CaffeineFactory.executor());
@@ -249,11 +331,25 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         public void invalidate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
             this.cache.remove(queryOptions);
+            this.epoch.incrementAndGet();
         }
 
         @Override
         public void invalidate() {
             this.cache.clear();
+            this.epoch.incrementAndGet();
+        }
+    }
+
+    private static final class LastLookup<C> {
+        private final QueryOptions queryOptions;
+        private final C value;
+        private final int epoch;
+
+        LastLookup(QueryOptions queryOptions, C value, int epoch) {
+            this.queryOptions = queryOptions;
+            this.value = value;
+            this.epoch = epoch;
         }
     }
     
@@ -27,15 +27,21 @@ package me.lucko.luckperms.common.cacheddata;
 
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.util.Difference;
 
 import net.luckperms.api.metastacking.MetaStackDefinition;
 import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeType;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.IntFunction;
 
 /**
@@ -80,6 +86,41 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
         return this.holder.exportPermissions(mapFactory, queryOptions, true, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
     }
 
+    /**
+     * Attempts to apply changes to the holders own nodes to the existing caches
+     * in place, instead of invalidating them.
+     *
+     * <p>This is only possible if the changes are limited to plain permission nodes,
+     * which do not affect the holders inheritance, meta or the ordering of its nodes.</p>
+     *
+     * @param changes the changes
+     * @return true if the changes were applied, false if the caches must be invalidated
+     */
+    public boolean applyChanges(Difference<Node> changes) {
+        Set<String> permissions = new HashSet<>();
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            Node node = change.value();
+            if (!NodeType.PERMISSION.matches(node) || WildcardProcessor.isRootWildcard(node.getKey()) || !node.resolveShorthand().isEmpty()) {
+                return false;
+            }
+            permissions.add(node.getKey().toLowerCase(Locale.ROOT));
+        }
+
+        boolean applyingShorthand = getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND);
+        applyPermissionChanges(permissions, (queryOptions, permission, updates) -> {
+            Node node = this.holder.findFirstInheritedNode(queryOptions, n -> n.getKey().toLowerCase(Locale.ROOT).equals(permission));
+
+            // the permission may still be provided by the shorthand form of another node
+            if (node == null && applyingShorthand) {
+                return false;
+            }
+
+            updates.put(permission, node);
+            return true;
+        });
+        return true;
+    }
+
     @Override
     protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
         this.holder.accumulateMeta(accumulator, queryOptions);
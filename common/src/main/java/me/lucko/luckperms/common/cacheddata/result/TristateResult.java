@@ -89,6 +89,18 @@ public final class TristateResult implements Result<Tristate, Node> {
         this.overriddenResult = overriddenResult;
     }
 
+    /**
+     * Creates a copy of this result, attributed to a different node.
+     *
+     * @param node the node
+     * @return a new result
+     */
+    public TristateResult withNode(@Nullable Node node) {
+        TristateResult result = new TristateResult(this.result, node, this.processorClass);
+        result.overriddenResult = this.overriddenResult;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "TristateResult(" +
@@ -30,8 +30,8 @@ import com.google.common.collect.Maps;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.UsageTracked;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 
 import net.luckperms.api.cacheddata.CachedPermissionData;
@@ -43,6 +43,8 @@ import net.luckperms.api.util.Tristate;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -51,11 +53,21 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class PermissionCache extends UsageTracked implements CachedPermissionData {
 
+    /**
+     * The plugin instance
+     */
+    private final LuckPermsPlugin plugin;
+
     /**
      * The query options this container is holding data for
      */
     private final QueryOptions queryOptions;
 
+    /**
+     * Info about the holder this container is holding data for
+     */
+    private final CacheMetadata metadata;
+
     /**
      * The raw set of permission strings.
      */
@@ -70,16 +82,63 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      * The calculator instance responsible for resolving the raw permission strings in the permission map.
      * This calculator will attempt to resolve all regex/wildcard permissions, as well as account for
      * defaults & attachment permissions (if applicable.)
+     *
+     * <p>The calculator may be shared with other caches which resolved an equivalent permission map.</p>
      */
     private final PermissionCalculator calculator;
 
-    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Node> sourcePermissions) {
+    /**
+     * If the calculator is shared, a mapping from the nodes in the calculators source map
+     * to the equivalent nodes in {@link #permissions}, for nodes which are not the same instance.
+     *
+     * <p>Used to ensure results are attributed to the nodes this holder actually has.</p>
+     */
+    private final Map<Node, Node> sharedNodeMappings;
+
+    public PermissionCache(LuckPermsPlugin plugin, QueryOptions queryOptions, CacheMetadata metadata, PermissionCalculator calculator, ConcurrentHashMap<String, Node> sourcePermissions) {
+        this.plugin = plugin;
         this.queryOptions = queryOptions;
+        this.metadata = metadata;
         this.permissions = sourcePermissions;
         this.permissionsView = Collections.unmodifiableMap(Maps.transformValues(this.permissions, Node::getValue));
+        this.calculator = calculator;
+        this.sharedNodeMappings = createSharedNodeMappings(calculator.getSourcePermissions(), sourcePermissions);
+    }
+
+    private static Map<Node, Node> createSharedNodeMappings(Map<String, Node> sharedPermissions, Map<String, Node> permissions) {
+        if (sharedPermissions == permissions) {
+            return null;
+        }
+
+        Map<Node, Node> mappings = new IdentityHashMap<>();
+        for (Map.Entry<String, Node> e : permissions.entrySet()) {
+            Node node = e.getValue();
+            Node sharedNode = sharedPermissions.get(e.getKey());
+            if (sharedNode != null && sharedNode != node) {
+                mappings.put(sharedNode, node);
+            }
+        }
+        return mappings.isEmpty() ? null : mappings;
+    }
+
+    private TristateResult mapSharedResult(TristateResult result) {
+        if (result == null) {
+            return null;
+        }
+
+        Node node = result.node();
+        Node mappedNode = node == null ? null : this.sharedNodeMappings.get(node);
 
-        this.calculator = calculatorFactory.build(queryOptions, metadata);
-        this.calculator.setSourcePermissions(this.permissions);
+        TristateResult overridden = result.overriddenResult();
+        TristateResult mappedOverridden = mapSharedResult(overridden);
+
+        if (mappedNode == null && mappedOverridden == overridden) {
+            return result;
+        }
+
+        TristateResult mapped = result.withNode(mappedNode != null ? mappedNode : node);
+        mapped.setOverriddenResult(mappedOverridden);
+        return mapped;
     }
 
     @Override
@@ -87,6 +146,40 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         this.calculator.invalidateCache();
     }
 
+    /**
+     * Attempts to apply changes to the permission map in place.
+     *
+     * <p>Only possible if the calculator backing this cache is not shared
+     * with any other cache.</p>
+     *
+     * @param updates the permissions to update, mapped to the node they should
+     *                now resolve to, or null if they should be removed
+     * @return true if the changes were applied, false if the cache must be rebuilt
+     */
+    public boolean applyChanges(Map<String, Node> updates) {
+        Map<String, Node> changes = new HashMap<>();
+        for (Map.Entry<String, Node> e : updates.entrySet()) {
+            if (this.permissions.get(e.getKey()) != e.getValue()) {
+                changes.put(e.getKey(), e.getValue());
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return true;
+        }
+
+        if (this.sharedNodeMappings != null || this.calculator.getSourcePermissions() != this.permissions) {
+            return false;
+        }
+        if (!this.plugin.getCalculatorInterner().release(this.calculator)) {
+            return false;
+        }
+
+        // the calculator uses this.permissions as its source map, so this updates both
+        this.calculator.applyChanges(changes);
+        return true;
+    }
+
     public PermissionCalculator getCalculator() {
         return this.calculator;
     }
@@ -100,7 +193,18 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        return this.calculator.checkPermission(permission, origin);
+
+        // get the result
+        TristateResult result = this.calculator.checkPermission(permission);
+        if (this.sharedNodeMappings != null) {
+            result = mapSharedResult(result);
+        }
+
+        // log this permission lookup to the verbose handler
+        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.queryOptions, permission, result);
+
+        // return the result
+        return result;
     }
 
     @Override
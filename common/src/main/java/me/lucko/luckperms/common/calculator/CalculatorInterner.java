@@ -0,0 +1,224 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+
+import net.luckperms.api.model.PermissionHolder;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Interns {@link PermissionCalculator}s, so that holders which resolve to an identical
+ * set of source permissions (in the same {@link QueryOptions}) share a single calculator,
+ * including its processors and lookup cache.
+ *
+ * <p>Calculators are only weakly referenced by the interner, and are released once all
+ * of the caches using them have been invalidated.</p>
+ */
+public class CalculatorInterner {
+
+    /** If calculators should be shared */
+    private final boolean enabled;
+
+    /** The interned calculators */
+    private final Cache<Fingerprint, PermissionCalculator> calculators = CaffeineFactory.newBuilder()
+            .weakValues()
+            .build();
+
+    public CalculatorInterner(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets a calculator for the given source permissions, either by reusing an
+     * existing equivalent calculator or by building a new one.
+     *
+     * @param calculatorFactory the factory to build new calculators with
+     * @param queryOptions the query options
+     * @param metadata the metadata of the cache requesting the calculator
+     * @param sourcePermissions the resolved source permissions
+     * @return a calculator
+     */
+    public PermissionCalculator intern(CalculatorFactory calculatorFactory, QueryOptions queryOptions, CacheMetadata metadata, Map<String, Node> sourcePermissions) {
+        if (!this.enabled) {
+            return build(calculatorFactory, queryOptions, metadata, sourcePermissions);
+        }
+
+        Fingerprint fingerprint = new Fingerprint(calculatorFactory, queryOptions, metadata.getHolderType(), sourcePermissions);
+        return this.calculators.asMap().compute(fingerprint, (f, existing) -> {
+            if (existing != null) {
+                existing.shared = true;
+                return existing;
+            }
+
+            PermissionCalculator calculator = build(calculatorFactory, queryOptions, metadata, sourcePermissions);
+            calculator.internKey = f;
+            return calculator;
+        });
+    }
+
+    /**
+     * Removes a calculator from the interner, so that its source permissions
+     * can be modified.
+     *
+     * @param calculator the calculator
+     * @return true if the calculator is not in use by any other cache, and
+     *         can therefore be modified
+     */
+    public boolean release(PermissionCalculator calculator) {
+        Object key = calculator.internKey;
+        if (key != null) {
+            this.calculators.asMap().remove(key, calculator);
+            calculator.internKey = null;
+        }
+
+        // the calculator can no longer be handed out, so this is stable
+        return !calculator.shared;
+    }
+
+    private static PermissionCalculator build(CalculatorFactory calculatorFactory, QueryOptions queryOptions, CacheMetadata metadata, Map<String, Node> sourcePermissions) {
+        PermissionCalculator calculator = calculatorFactory.build(queryOptions, metadata);
+        calculator.setSourcePermissions(sourcePermissions);
+        return calculator;
+    }
+
+    /**
+     * Gets the number of calculators currently interned.
+     *
+     * @return the number of calculators
+     */
+    public long size() {
+        return this.calculators.estimatedSize();
+    }
+
+    /**
+     * Identifies the inputs to a {@link PermissionCalculator} by content.
+     *
+     * <p>Nodes are compared using their standard equality rules, plus the holder they were
+     * inherited from. Nodes a user holds directly are treated as equivalent regardless of
+     * which user holds them.</p>
+     */
+    private static final class Fingerprint {
+        private final CalculatorFactory calculatorFactory;
+        private final QueryOptions queryOptions;
+        private final HolderType holderType;
+        private final Map<String, Node> sourcePermissions;
+        private final int hashCode;
+
+        Fingerprint(CalculatorFactory calculatorFactory, QueryOptions queryOptions, HolderType holderType, Map<String, Node> sourcePermissions) {
+            this.calculatorFactory = calculatorFactory;
+            this.queryOptions = queryOptions;
+            this.holderType = holderType;
+            this.sourcePermissions = sourcePermissions;
+            this.hashCode = calculateHashCode();
+        }
+
+        private int calculateHashCode() {
+            // sum the entry hashes, so the result is independent of iteration order
+            int sourceHash = 0;
+            for (Map.Entry<String, Node> e : this.sourcePermissions.entrySet()) {
+                Node node = e.getValue();
+                sourceHash += e.getKey().hashCode() ^ node.hashCode() ^ originHashCode(node);
+            }
+
+            int result = System.identityHashCode(this.calculatorFactory);
+            result = 31 * result + this.queryOptions.hashCode();
+            result = 31 * result + Objects.hashCode(this.holderType);
+            result = 31 * result + sourceHash;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint other = (Fingerprint) o;
+
+            if (this.hashCode != other.hashCode ||
+                    this.calculatorFactory != other.calculatorFactory ||
+                    this.holderType != other.holderType ||
+                    this.sourcePermissions.size() != other.sourcePermissions.size() ||
+                    !this.queryOptions.equals(other.queryOptions)) {
+                return false;
+            }
+
+            for (Map.Entry<String, Node> e : this.sourcePermissions.entrySet()) {
+                Node node = e.getValue();
+                Node otherNode = other.sourcePermissions.get(e.getKey());
+                if (otherNode == null || (node != otherNode && (!node.equals(otherNode) || !originEquals(node, otherNode)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        private static InheritanceOriginMetadata origin(Node node) {
+            return node.getMetadata(InheritanceOriginMetadata.KEY).orElse(null);
+        }
+
+        private static boolean isUserOrigin(InheritanceOriginMetadata origin) {
+            return origin.getOrigin().getType().equals(PermissionHolder.Identifier.USER_TYPE);
+        }
+
+        private static int originHashCode(Node node) {
+            InheritanceOriginMetadata origin = origin(node);
+            if (origin == null) {
+                return 0;
+            }
+            if (isUserOrigin(origin)) {
+                return origin.getDataType().hashCode();
+            }
+            return origin.hashCode();
+        }
+
+        private static boolean originEquals(Node node, Node otherNode) {
+            InheritanceOriginMetadata origin = origin(node);
+            InheritanceOriginMetadata otherOrigin = origin(otherNode);
+            if (origin == null || otherOrigin == null) {
+                return origin == otherOrigin;
+            }
+            if (isUserOrigin(origin) && isUserOrigin(otherOrigin)) {
+                return origin.getDataType() == otherOrigin.getDataType();
+            }
+            return Objects.equals(origin, otherOrigin);
+        }
+    }
+
+}
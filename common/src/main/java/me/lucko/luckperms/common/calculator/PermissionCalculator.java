@@ -25,18 +25,22 @@
 
 package me.lucko.luckperms.common.calculator;
 
-import me.lucko.luckperms.common.cache.LoadingMap;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
-import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 
 import net.luckperms.api.node.Node;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
@@ -49,19 +53,42 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     /** The plugin instance */
     private final LuckPermsPlugin plugin;
 
-    /** Info about the nature of this calculator. */
+    /** Info about the nature of this calculator (or the first cache it was built for, if shared) */
     private final CacheMetadata metadata;
 
     /** The processors which back this calculator */
     private final PermissionProcessor[] processors;
 
+    /** The source permissions currently used by the processors */
+    private Map<String, Node> sourcePermissions = Collections.emptyMap();
+
+    /** The trie compiled from {@link #sourcePermissions} */
+    private PermissionTrie sourceTrie = PermissionTrie.EMPTY;
+
+    /** The key this calculator is interned under, if any */
+    volatile Object internKey;
+
+    /** If this calculator has been handed out by the interner more than once */
+    volatile boolean shared;
+
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final LoadingCache<String, TristateResult> lookupCache;
 
     public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
         this.plugin = plugin;
         this.metadata = metadata;
         this.processors = processors.toArray(new PermissionProcessor[0]);
+
+        // bound the size of the cache, so permissions which are only checked
+        // once or twice (e.g. dynamic per-entity/per-block nodes) don't cause
+        // it to grow without limit. Caffeine uses a W-TinyLFU policy, so
+        // frequently checked permissions will not be displaced by these.
+        Caffeine<Object, Object> builder = CaffeineFactory.newBuilder();
+        int maximumSize = plugin.getConfiguration().get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE);
+        if (maximumSize > 0) {
+            builder.maximumSize(maximumSize);
+        }
+        this.lookupCache = builder.build(this::apply);
     }
 
     /**
@@ -70,25 +97,20 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * <p>The result is calculated using the calculators backing 'processors'.</p>
      *
      * @param permission the permission to check
-     * @param origin marks where this check originated from
      * @return the result
      */
-    public TristateResult checkPermission(String permission, CheckOrigin origin) {
-        // get the result
-        TristateResult result = this.lookupCache.get(permission);
-
-        // log this permission lookup to the verbose handler
-        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
-
-        // return the result
-        return result;
+    public TristateResult checkPermission(String permission) {
+        this.plugin.getMetrics().recordPermissionCheck(permission);
+        return this.lookupCache.get(permission);
     }
 
     @Override
-    public TristateResult apply(@NonNull String permission) {
+    public TristateResult apply(@NonNull String key) {
+        long start = System.nanoTime();
+
         // convert the permission to lowercase, as all values in the backing map are also lowercase.
         // this allows fast case insensitive lookups
-        permission = permission.toLowerCase(Locale.ROOT);
+        String permission = key.toLowerCase(Locale.ROOT);
 
         // offer the permission to the permission vault
         // we only need to do this once per permission, so it doesn't matter
@@ -99,6 +121,8 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         for (PermissionProcessor processor : this.processors) {
             result = processor.hasPermission(result, permission);
         }
+
+        this.plugin.getMetrics().recordPermissionCalculation(key, System.nanoTime() - start);
         return result;
     }
 
@@ -109,16 +133,64 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @param sourceMap the source map
      */
     public synchronized void setSourcePermissions(Map<String, Node> sourceMap) {
+        this.sourcePermissions = sourceMap;
+
+        // compile the trie once, it is shared between all of the processors
+        this.sourceTrie = PermissionTrie.compile(sourceMap);
+
+        for (PermissionProcessor processor : this.processors) {
+            processor.setSource(sourceMap, this.sourceTrie);
+            processor.refresh();
+        }
+    }
+
+    /**
+     * Applies changes to the source permissions map in place.
+     *
+     * <p>The source map is updated, and the trie is updated by copying only the
+     * affected paths, instead of being recompiled.</p>
+     *
+     * @param changes the changed entries, mapped to null if they were removed
+     */
+    public synchronized void applyChanges(Map<String, Node> changes) {
+        PermissionTrie sourceTrie = this.sourceTrie;
+        for (Map.Entry<String, Node> e : changes.entrySet()) {
+            String permission = e.getKey();
+            Node node = e.getValue();
+
+            if (node == null) {
+                this.sourcePermissions.remove(permission);
+            } else {
+                this.sourcePermissions.put(permission, node);
+            }
+            sourceTrie = sourceTrie.with(permission, node);
+        }
+        this.sourceTrie = sourceTrie;
+
         for (PermissionProcessor processor : this.processors) {
-            processor.setSource(sourceMap);
+            processor.setSource(this.sourcePermissions, sourceTrie);
             processor.refresh();
         }
+        this.lookupCache.invalidateAll();
+    }
+
+    /**
+     * Gets the source permissions map currently used when calculating results.
+     *
+     * @return the source map
+     */
+    public Map<String, Node> getSourcePermissions() {
+        return this.sourcePermissions;
+    }
+
+    public CacheMetadata getMetadata() {
+        return this.metadata;
     }
 
     public void invalidateCache() {
         for (PermissionProcessor processor : this.processors) {
             processor.invalidate();
         }
-        this.lookupCache.clear();
+        this.lookupCache.invalidateAll();
     }
 }
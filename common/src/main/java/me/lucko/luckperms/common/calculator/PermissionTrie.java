@@ -0,0 +1,422 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.node.AbstractNode;
+
+import net.luckperms.api.node.Node;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable segment trie compiled from a source permission map.
+ *
+ * <p>Each level of the trie corresponds to one {@link AbstractNode#NODE_SEPARATOR separated}
+ * segment of a permission. Lookups walk the characters of the permission being checked
+ * exactly once, hashing each segment in place, so no substrings are created.</p>
+ *
+ * <p>A single trie is compiled by the {@link PermissionCalculator} whenever its source
+ * map changes, and is shared between the processors which need it.</p>
+ */
+public final class PermissionTrie {
+
+    /** An empty trie */
+    public static final PermissionTrie EMPTY = new PermissionTrie(new TrieNode(), null);
+
+    /**
+     * Compiles a trie from the given source map.
+     *
+     * @param sourceMap the source map
+     * @return a trie
+     */
+    public static PermissionTrie compile(Map<String, Node> sourceMap) {
+        if (sourceMap.isEmpty()) {
+            return EMPTY;
+        }
+
+        Builder root = new Builder();
+        Node rootWildcard = null;
+
+        for (Map.Entry<String, Node> e : sourceMap.entrySet()) {
+            String key = e.getKey();
+            Node node = e.getValue();
+
+            if (WildcardProcessor.isRootWildcard(key)) {
+                // prefer the unquoted form if both are present
+                if (rootWildcard == null || key.length() == 1) {
+                    rootWildcard = node;
+                }
+            }
+
+            // index the exact permission
+            root.traverse(key, key.length()).exact = node;
+
+            // index "a.b.*" as a wildcard on the "a.b" node
+            if (key.length() > 2 && key.endsWith(WildcardProcessor.WILDCARD_SUFFIX)) {
+                root.traverse(key, key.length() - 2).wildcard = node;
+            }
+        }
+
+        return new PermissionTrie(root.build(), rootWildcard);
+    }
+
+    /** The root of the trie */
+    private final TrieNode root;
+
+    /** The root wildcard ("*") node, if present */
+    private final Node rootWildcard;
+
+    private PermissionTrie(TrieNode root, Node rootWildcard) {
+        this.root = root;
+        this.rootWildcard = rootWildcard;
+    }
+
+    /**
+     * Returns a copy of this trie with the entry for the given permission replaced.
+     *
+     * <p>Only the nodes on the path to the permission are copied, the rest of
+     * the trie is shared with this instance.</p>
+     *
+     * @param permission the permission, which must not be the root wildcard
+     * @param node the new node, or null to remove the entry
+     * @return the updated trie
+     */
+    public PermissionTrie with(String permission, @Nullable Node node) {
+        if (WildcardProcessor.isRootWildcard(permission)) {
+            throw new IllegalArgumentException("Cannot update root wildcard: " + permission);
+        }
+
+        TrieNode root = this.root.with(permission, 0, permission.length(), node, false);
+        if (permission.length() > 2 && permission.endsWith(WildcardProcessor.WILDCARD_SUFFIX)) {
+            root = root.with(permission, 0, permission.length() - 2, node, true);
+        }
+        return root == this.root ? this : new PermissionTrie(root, this.rootWildcard);
+    }
+
+    /**
+     * Gets the node exactly matching the given permission.
+     *
+     * @param permission the permission
+     * @return the node, or null
+     */
+    public @Nullable Node getExact(String permission) {
+        TrieNode node = this.root;
+        int length = permission.length();
+        int start = 0;
+        int hash = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = permission.charAt(i);
+            if (c == AbstractNode.NODE_SEPARATOR) {
+                node = node.child(permission, start, i, hash);
+                if (node == null) {
+                    return null;
+                }
+                start = i + 1;
+                hash = 0;
+            } else {
+                hash = 31 * hash + c;
+            }
+        }
+
+        node = node.child(permission, start, length, hash);
+        return node == null ? null : node.exact;
+    }
+
+    /**
+     * Gets the most specific wildcard node ("a.b.*") which matches the given
+     * permission, falling back to the root wildcard if none match.
+     *
+     * @param permission the permission
+     * @return the node, or null
+     */
+    public @Nullable Node getWildcard(String permission) {
+        Node match = this.rootWildcard;
+
+        TrieNode node = this.root;
+        int length = permission.length();
+        int start = 0;
+        int hash = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = permission.charAt(i);
+            if (c == AbstractNode.NODE_SEPARATOR) {
+                node = node.child(permission, start, i, hash);
+                if (node == null) {
+                    break;
+                }
+                if (node.wildcard != null) {
+                    match = node.wildcard;
+                }
+                start = i + 1;
+                hash = 0;
+            } else {
+                hash = 31 * hash + c;
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * Gets the most specific node exactly matching one of the parents of the
+     * given permission (for example "a.b" or "a" for "a.b.c").
+     *
+     * @param permission the permission
+     * @return the node, or null
+     */
+    public @Nullable Node getParent(String permission) {
+        Node match = null;
+
+        TrieNode node = this.root;
+        int length = permission.length();
+        int start = 0;
+        int hash = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = permission.charAt(i);
+            if (c == AbstractNode.NODE_SEPARATOR) {
+                node = node.child(permission, start, i, hash);
+                if (node == null) {
+                    break;
+                }
+                // the empty string is not a parent
+                if (i != 0 && node.exact != null) {
+                    match = node.exact;
+                }
+                start = i + 1;
+                hash = 0;
+            } else {
+                hash = 31 * hash + c;
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * Gets the root wildcard ("*") node.
+     *
+     * @return the node, or null
+     */
+    public @Nullable Node getRootWildcard() {
+        return this.rootWildcard;
+    }
+
+    /**
+     * A compiled node in the trie.
+     *
+     * <p>Children are stored in an open-addressed hash table keyed by segment,
+     * using the same hash function as {@link String#hashCode()} so that
+     * segment hashes can be computed incrementally during a lookup.</p>
+     */
+    private static final class TrieNode {
+        private static final String[] EMPTY_KEYS = new String[0];
+        private static final int[] EMPTY_HASHES = new int[0];
+        private static final TrieNode[] EMPTY_CHILDREN = new TrieNode[0];
+
+        Node exact;
+        Node wildcard;
+
+        String[] keys = EMPTY_KEYS;
+        int[] hashes = EMPTY_HASHES;
+        TrieNode[] children = EMPTY_CHILDREN;
+
+        @Nullable TrieNode child(String permission, int start, int end, int hash) {
+            String[] keys = this.keys;
+            if (keys.length == 0) {
+                return null;
+            }
+
+            int mask = keys.length - 1;
+            int len = end - start;
+            for (int idx = spread(hash) & mask; ; idx = (idx + 1) & mask) {
+                String key = keys[idx];
+                if (key == null) {
+                    return null;
+                }
+                if (this.hashes[idx] == hash && key.length() == len && permission.regionMatches(start, key, 0, len)) {
+                    return this.children[idx];
+                }
+            }
+        }
+
+        // returns a copy of this node with the value for key[start, end) replaced
+        TrieNode with(String key, int start, int end, @Nullable Node value, boolean wildcard) {
+            int separator = key.indexOf(AbstractNode.NODE_SEPARATOR, start);
+            int segmentEnd = separator == -1 || separator >= end ? end : separator;
+            String segment = key.substring(start, segmentEnd);
+            int hash = segment.hashCode();
+
+            TrieNode child = child(key, start, segmentEnd, hash);
+            if (child == null) {
+                if (value == null) {
+                    return this;
+                }
+                child = new TrieNode();
+            }
+
+            TrieNode newChild;
+            if (segmentEnd == end) {
+                if ((wildcard ? child.wildcard : child.exact) == value) {
+                    return this;
+                }
+                newChild = child.copy();
+                if (wildcard) {
+                    newChild.wildcard = value;
+                } else {
+                    newChild.exact = value;
+                }
+            } else {
+                newChild = child.with(key, segmentEnd + 1, end, value, wildcard);
+                if (newChild == child) {
+                    return this;
+                }
+            }
+
+            TrieNode copy = copy();
+            copy.putChild(segment, hash, newChild);
+            return copy;
+        }
+
+        private TrieNode copy() {
+            TrieNode copy = new TrieNode();
+            copy.exact = this.exact;
+            copy.wildcard = this.wildcard;
+            copy.keys = this.keys.clone();
+            copy.hashes = this.hashes.clone();
+            copy.children = this.children.clone();
+            return copy;
+        }
+
+        // replaces or inserts a child, resizing the table if required
+        private void putChild(String key, int hash, TrieNode child) {
+            int size = 0;
+            for (String k : this.keys) {
+                if (k != null) {
+                    if (k.equals(key)) {
+                        insert(key, hash, child);
+                        return;
+                    }
+                    size++;
+                }
+            }
+
+            // keep the load factor at or below 0.5
+            int capacity = Integer.highestOneBit(size * 2 + 1) << 1;
+            if (capacity > this.keys.length) {
+                String[] oldKeys = this.keys;
+                int[] oldHashes = this.hashes;
+                TrieNode[] oldChildren = this.children;
+
+                this.keys = new String[capacity];
+                this.hashes = new int[capacity];
+                this.children = new TrieNode[capacity];
+
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        insert(oldKeys[i], oldHashes[i], oldChildren[i]);
+                    }
+                }
+            }
+            insert(key, hash, child);
+        }
+
+        private void insert(String key, int hash, TrieNode child) {
+            int mask = this.keys.length - 1;
+            int idx = spread(hash) & mask;
+            while (this.keys[idx] != null && !this.keys[idx].equals(key)) {
+                idx = (idx + 1) & mask;
+            }
+            this.keys[idx] = key;
+            this.hashes[idx] = hash;
+            this.children[idx] = child;
+        }
+
+        static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * A mutable node used while compiling the trie.
+     */
+    private static final class Builder {
+        private final Map<String, Builder> children = new HashMap<>();
+        Node exact;
+        Node wildcard;
+
+        // traverses the segments of key[0, end), creating nodes as required
+        Builder traverse(String key, int end) {
+            Builder node = this;
+            int start = 0;
+            for (int i = 0; i < end; i++) {
+                if (key.charAt(i) == AbstractNode.NODE_SEPARATOR) {
+                    node = node.children.computeIfAbsent(key.substring(start, i), s -> new Builder());
+                    start = i + 1;
+                }
+            }
+            return node.children.computeIfAbsent(key.substring(start, end), s -> new Builder());
+        }
+
+        TrieNode build() {
+            TrieNode node = new TrieNode();
+            node.exact = this.exact;
+            node.wildcard = this.wildcard;
+
+            if (!this.children.isEmpty()) {
+                // size the table to keep the load factor at or below 0.5
+                int capacity = Integer.highestOneBit(this.children.size() * 2 - 1) << 1;
+                int mask = capacity - 1;
+
+                node.keys = new String[capacity];
+                node.hashes = new int[capacity];
+                node.children = new TrieNode[capacity];
+
+                for (Map.Entry<String, Builder> e : this.children.entrySet()) {
+                    String key = e.getKey();
+                    int hash = key.hashCode();
+
+                    int idx = TrieNode.spread(hash) & mask;
+                    while (node.keys[idx] != null) {
+                        idx = (idx + 1) & mask;
+                    }
+
+                    node.keys[idx] = key;
+                    node.hashes[idx] = hash;
+                    node.children[idx] = e.getValue().build();
+                }
+            }
+
+            return node;
+        }
+    }
+
+}
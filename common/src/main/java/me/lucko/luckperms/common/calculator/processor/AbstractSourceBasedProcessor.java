@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
+import me.lucko.luckperms.common.calculator.PermissionTrie;
+
 import net.luckperms.api.node.Node;
 
 import java.util.Collections;
@@ -32,10 +34,12 @@ import java.util.Map;
 
 public abstract class AbstractSourceBasedProcessor extends AbstractPermissionProcessor implements PermissionProcessor {
     protected Map<String, Node> sourceMap = Collections.emptyMap();
+    protected PermissionTrie sourceTrie = PermissionTrie.EMPTY;
 
     @Override
-    public void setSource(Map<String, Node> sourceMap) {
+    public void setSource(Map<String, Node> sourceMap, PermissionTrie sourceTrie) {
         this.sourceMap = sourceMap;
+        this.sourceTrie = sourceTrie;
     }
 
 }
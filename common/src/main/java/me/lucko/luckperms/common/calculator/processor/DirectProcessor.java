@@ -32,7 +32,7 @@ public class DirectProcessor extends AbstractSourceBasedProcessor implements Per
 
     @Override
     public TristateResult hasPermission(String permission) {
-        return RESULT_FACTORY.result(this.sourceMap.get(permission));
+        return RESULT_FACTORY.result(this.sourceTrie.getExact(permission));
     }
 
 }
@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.calculator.processor;
 
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.PermissionTrie;
 
 import net.luckperms.api.node.Node;
 
@@ -53,8 +54,9 @@ public interface PermissionProcessor {
      * Sets the source permissions which should be used by this processor
      *
      * @param sourceMap the source map
+     * @param sourceTrie a trie compiled from the source map
      */
-    default void setSource(Map<String, Node> sourceMap) {
+    default void setSource(Map<String, Node> sourceMap, PermissionTrie sourceTrie) {
 
     }
 
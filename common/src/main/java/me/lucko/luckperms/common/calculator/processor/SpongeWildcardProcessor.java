@@ -26,33 +26,13 @@
 package me.lucko.luckperms.common.calculator.processor;
 
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.node.AbstractNode;
-
-import net.luckperms.api.node.Node;
 
 public class SpongeWildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
 
     @Override
     public TristateResult hasPermission(String permission) {
-        String node = permission;
-
-        while (true) {
-            int endIndex = node.lastIndexOf(AbstractNode.NODE_SEPARATOR);
-            if (endIndex == -1) {
-                break;
-            }
-
-            node = node.substring(0, endIndex);
-            if (!node.isEmpty()) {
-                Node n = this.sourceMap.get(node);
-                if (n != null) {
-                    return RESULT_FACTORY.result(n);
-                }
-            }
-        }
-
-        return TristateResult.UNDEFINED;
+        return RESULT_FACTORY.result(this.sourceTrie.getParent(permission));
     }
 
 }
@@ -25,16 +25,7 @@
 
 package me.lucko.luckperms.common.calculator.processor;
 
-import com.google.common.collect.ImmutableMap;
-
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.node.AbstractNode;
-
-import net.luckperms.api.node.Node;
-import net.luckperms.api.util.Tristate;
-
-import java.util.Collections;
-import java.util.Map;
 
 public class WildcardProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
@@ -51,50 +42,8 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
         return isRootWildcard(permission) || permission.endsWith(WILDCARD_SUFFIX) && permission.length() > 2;
     }
 
-    private Map<String, TristateResult> wildcardPermissions = Collections.emptyMap();
-    private TristateResult rootWildcardState = TristateResult.UNDEFINED;
-
     @Override
     public TristateResult hasPermission(String permission) {
-        String node = permission;
-
-        while (true) {
-            int endIndex = node.lastIndexOf(AbstractNode.NODE_SEPARATOR);
-            if (endIndex == -1) {
-                break;
-            }
-
-            node = node.substring(0, endIndex);
-            if (!node.isEmpty()) {
-                TristateResult match = this.wildcardPermissions.get(node);
-                if (match != null && match.result() != Tristate.UNDEFINED) {
-                    return match;
-                }
-            }
-        }
-
-        return this.rootWildcardState;
-    }
-
-    @Override
-    public void refresh() {
-        ImmutableMap.Builder<String, TristateResult> builder = ImmutableMap.builder();
-        for (Map.Entry<String, Node> e : this.sourceMap.entrySet()) {
-            String key = e.getKey();
-            if (!key.endsWith(WILDCARD_SUFFIX) || key.length() <= 2) {
-                continue;
-            }
-            key = key.substring(0, key.length() - 2);
-
-            TristateResult value = RESULT_FACTORY.result(e.getValue());
-            builder.put(key, value);
-        }
-        this.wildcardPermissions = builder.build();
-
-        Node rootWildcard = this.sourceMap.get(ROOT_WILDCARD);
-        if (rootWildcard == null) {
-            rootWildcard = this.sourceMap.get(ROOT_WILDCARD_WITH_QUOTES);
-        }
-        this.rootWildcardState = rootWildcard == null ? TristateResult.UNDEFINED : RESULT_FACTORY.result(rootWildcard);
+        return RESULT_FACTORY.result(this.sourceTrie.getWildcard(permission));
     }
 }
@@ -45,6 +45,7 @@ import me.lucko.luckperms.common.commands.misc.EditorCommand;
 import me.lucko.luckperms.common.commands.misc.ExportCommand;
 import me.lucko.luckperms.common.commands.misc.ImportCommand;
 import me.lucko.luckperms.common.commands.misc.InfoCommand;
+import me.lucko.luckperms.common.commands.misc.MetricsCommand;
 import me.lucko.luckperms.common.commands.misc.NetworkSyncCommand;
 import me.lucko.luckperms.common.commands.misc.ReloadConfigCommand;
 import me.lucko.luckperms.common.commands.misc.SearchCommand;
@@ -123,6 +124,7 @@ public class CommandManager {
                 .add(new ReloadConfigCommand())
                 .add(new BulkUpdateCommand())
                 .add(new TranslationsCommand())
+                .add(new MetricsCommand())
                 .add(new ApplyEditsCommand())
                 .add(new TrustEditorCommand())
                 .add(new CreateGroup())
@@ -86,6 +86,9 @@ public enum CommandSpec {
     TRANSLATIONS("/%s translations",
             arg("install", false)
     ),
+    METRICS("/%s metrics",
+            arg("export", false)
+    ),
     APPLY_EDITS("/%s applyedits <code>",
             arg("code", true)
     ),
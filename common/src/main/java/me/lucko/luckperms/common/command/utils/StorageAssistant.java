@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.command.utils;
 
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
@@ -40,7 +42,7 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
- * Utility methods for saving users, groups and tracks.
+ * Utility methods for loading and saving users, groups, tracks and the action log.
  */
 public final class StorageAssistant {
     private StorageAssistant() {}
@@ -74,6 +76,16 @@ public final class StorageAssistant {
         return track;
     }
 
+    public static LogPage loadLogPage(LogQuery query, int pageNumber, int pageSize, Sender sender, LuckPermsPlugin plugin) {
+        try {
+            return plugin.getStorage().getLogPage(query, pageNumber, pageSize).get();
+        } catch (Exception e) {
+            plugin.getLogger().warn("Error whilst loading log", e);
+            Message.LOG_LOAD_ERROR.send(sender);
+            return null;
+        }
+    }
+
     public static void save(User user, Sender sender, LuckPermsPlugin plugin) {
         try {
             plugin.getStorage().saveUser(user).get();
@@ -98,7 +110,8 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        group.invalidateDependentCaches();
+        return pushGroupUpdate(group.getName(), plugin);
     }
 
     public static CompletableFuture<Void> save(Track track, Sender sender, LuckPermsPlugin plugin) {
@@ -110,7 +123,9 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        plugin.getGroupManager().invalidateAllGroupCaches();
+        plugin.getUserManager().invalidateAllUserCaches();
+        return pushTrackUpdate(track.getName(), plugin);
     }
 
     public static void save(PermissionHolder holder, Sender sender, LuckPermsPlugin plugin) {
@@ -125,13 +140,19 @@ public final class StorageAssistant {
         }
     }
 
-    public static CompletableFuture<Void> invalidateCachesAndPushUpdates(LuckPermsPlugin plugin) {
-        plugin.getGroupManager().invalidateAllGroupCaches();
-        plugin.getUserManager().invalidateAllUserCaches();
+    public static CompletableFuture<Void> pushGroupUpdate(String groupName, LuckPermsPlugin plugin) {
+        Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
+        if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
+            return messagingService.get().requestGroupUpdate(groupName);
+        } else {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
+    public static CompletableFuture<Void> pushTrackUpdate(String trackName, LuckPermsPlugin plugin) {
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
-            return messagingService.get().getUpdateBuffer().request();
+            return messagingService.get().requestTrackUpdate(trackName);
         } else {
             return CompletableFuture.completedFuture(null);
         }
@@ -98,6 +98,7 @@ public class GroupRename extends ChildCommand<Group> {
             return;
         }
 
+        StorageAssistant.pushGroupUpdate(target.getName(), plugin);
         newGroup.setNodes(DataType.NORMAL, target.normalData().asList(), false);
 
         Message.RENAME_SUCCESS.send(sender, target.getFormattedDisplayName(), newGroup.getFormattedDisplayName());
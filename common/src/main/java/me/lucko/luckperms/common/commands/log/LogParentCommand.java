@@ -27,22 +27,21 @@ package me.lucko.luckperms.common.commands.log;
 
 import com.google.common.collect.ImmutableList;
 
-import me.lucko.luckperms.common.actionlog.Log;
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.command.abstraction.ParentCommand;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
-import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LogParentCommand extends ParentCommand<Log, Void> {
+public class LogParentCommand extends ParentCommand<Storage, Void> {
     private final ReentrantLock lock = new ReentrantLock();
 
     public LogParentCommand() {
-        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Log>>builder()
+        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Storage>>builder()
                 .add(new LogRecent())
                 .add(new LogSearch())
                 .add(new LogNotify())
@@ -59,18 +58,13 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
     }
 
     @Override
-    protected Log getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
-        Log log = plugin.getStorage().getLog().join();
-
-        if (log == null) {
-            Message.LOG_LOAD_ERROR.send(sender);
-        }
-
-        return log;
+    protected Storage getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
+        // each command reads only the entries it needs from storage
+        return plugin.getStorage();
     }
 
     @Override
-    protected void cleanup(Log log, LuckPermsPlugin plugin) {
+    protected void cleanup(Storage storage, LuckPermsPlugin plugin) {
 
     }
 
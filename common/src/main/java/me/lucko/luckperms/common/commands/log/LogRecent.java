@@ -25,22 +25,25 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.command.utils.StorageAssistant;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.UUID;
 
-public class LogRecent extends ChildCommand<Log> {
+public class LogRecent extends ChildCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
     
     public LogRecent() {
@@ -48,18 +51,22 @@ public class LogRecent extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         if (args.isEmpty()) {
             // No page or user
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), false, sender, content);
+            LogPage log = StorageAssistant.loadLogPage(LogQuery.all(), LogPage.LATEST, ENTRIES_PER_PAGE, sender, plugin);
+            if (log != null) {
+                showLog(log, false, sender);
+            }
             return;
         }
 
-        int page = args.getIntOrDefault(0, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(page, false, sender, content);
+        int page = args.getIntOrDefault(0, LogPage.LATEST);
+        if (page != LogPage.LATEST) {
+            LogPage log = StorageAssistant.loadLogPage(LogQuery.all(), page, ENTRIES_PER_PAGE, sender, plugin);
+            if (log != null) {
+                showLog(log, false, sender);
+            }
             return;
         }
 
@@ -69,28 +76,27 @@ public class LogRecent extends ChildCommand<Log> {
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getContent(uuid));
-        page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, true, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), true, sender, content);
+        page = args.getIntOrDefault(1, LogPage.LATEST);
+        LogPage log = StorageAssistant.loadLogPage(LogQuery.source(uuid), page, ENTRIES_PER_PAGE, sender, plugin);
+        if (log != null) {
+            showLog(log, true, sender);
         }
     }
 
-    private static void showLog(int page, boolean specificUser, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(LogPage log, boolean specificUser, Sender sender) {
+        int maxPage = log.getMaxPage();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
-        if (page < 1 || page > maxPage) {
+        if (!log.isInRange()) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        int page = log.getPageNumber();
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         if (specificUser) {
             String name = entries.stream().findAny().get().value().getSource().getName();
             if (name.contains("@")) {
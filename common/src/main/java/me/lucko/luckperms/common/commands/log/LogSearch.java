@@ -25,21 +25,24 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.command.utils.StorageAssistant;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 
-public class LogSearch extends ChildCommand<Log> {
+public class LogSearch extends ChildCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
 
     public LogSearch() {
@@ -47,8 +50,8 @@ public class LogSearch extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
-        int page = Integer.MIN_VALUE;
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
+        int page = LogPage.LATEST;
         if (args.size() > 1) {
             try {
                 page = Integer.parseInt(args.get(args.size() - 1));
@@ -59,32 +62,26 @@ public class LogSearch extends ChildCommand<Log> {
         }
 
         final String query = String.join(" ", args);
-        Paginated<LoggedAction> content = new Paginated<>(log.getSearch(query));
-
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, query, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), query, sender, content);
+        LogPage log = StorageAssistant.loadLogPage(LogQuery.search(query), page, ENTRIES_PER_PAGE, sender, plugin);
+        if (log != null) {
+            showLog(log, query, sender);
         }
     }
 
-    private static void showLog(int page, String query, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(LogPage log, String query, Sender sender) {
+        int maxPage = log.getMaxPage();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
-        if (page == Integer.MIN_VALUE) {
-            page = maxPage;
-        }
-
-        if (page < 1 || page > maxPage) {
+        if (!log.isInRange()) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        int page = log.getPageNumber();
+        List<Paginated.Entry<LoggedAction>> entries = log.getEntries();
         Message.LOG_SEARCH_HEADER.send(sender, query, page, maxPage);
 
         for (Paginated.Entry<LoggedAction> e : entries) {
@@ -47,6 +47,7 @@ import me.lucko.luckperms.common.command.utils.ArgumentList;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.util.Predicates;
@@ -163,7 +164,18 @@ public class BulkUpdateCommand extends SingleCommand {
 
     private static void runOperation(BulkUpdate operation, LuckPermsPlugin plugin, Sender sender) {
         Message.BULK_UPDATE_STARTING.send(sender);
+
+        // report progress for implementations which process holders one by one
+        BulkUpdateStatistics progress = operation.getStatistics();
+        SchedulerTask progressTask = plugin.getBootstrap().getScheduler().asyncRepeating(() -> {
+            int total = progress.getTotalHolders();
+            if (total != 0) {
+                Message.BULK_UPDATE_PROGRESS.send(sender, progress.getProcessedHolders(), total);
+            }
+        }, 10, TimeUnit.SECONDS);
+
         plugin.getStorage().applyBulkUpdate(operation).whenCompleteAsync((v, ex) -> {
+            progressTask.cancel();
             if (ex == null) {
                 plugin.getSyncTaskBuffer().requestDirectly();
                 Message.BULK_UPDATE_SUCCESS.send(sender);
@@ -37,16 +37,11 @@ import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.util.Predicates;
-import me.lucko.luckperms.common.util.gson.GsonProvider;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.GZIPInputStream;
 
 public class ImportCommand extends SingleCommand {
     private final AtomicBoolean running = new AtomicBoolean(false);
@@ -64,7 +59,7 @@ public class ImportCommand extends SingleCommand {
 
         boolean fromFile = !args.remove("--upload");
 
-        JsonObject data;
+        Importer.Source source;
         if (fromFile) {
             String fileName = args.get(0);
             Path dataDirectory = plugin.getBootstrap().getDataDirectory();
@@ -98,16 +93,11 @@ public class ImportCommand extends SingleCommand {
                 return;
             }
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
-                data = GsonProvider.normal().fromJson(reader, JsonObject.class);
-            } catch (IOException e) {
-                plugin.getLogger().warn("Error whilst reading from the import file", e);
-                Message.IMPORT_FILE_READ_FAILURE.send(sender);
-                this.running.set(false);
-                return;
-            }
+            // the file is read as a stream whilst the data is imported
+            source = Importer.fileSource(path);
         } else {
             String code = args.get(0);
+            JsonObject data;
 
             if (code.isEmpty()) {
                 Message.IMPORT_WEB_INVALID_CODE.send(sender, code);
@@ -129,9 +119,16 @@ public class ImportCommand extends SingleCommand {
                 Message.IMPORT_UNABLE_TO_READ.send(sender, code);
                 return;
             }
+
+            if (!this.running.compareAndSet(false, true)) {
+                Message.IMPORT_ALREADY_RUNNING.send(sender);
+                return;
+            }
+
+            source = Importer.jsonSource(data);
         }
 
-        Importer importer = new Importer(plugin, sender, data, !args.contains("--replace"));
+        Importer importer = new Importer(plugin, sender, source, !args.contains("--replace"));
 
         // Run the importer in its own thread.
         plugin.getBootstrap().getScheduler().executeAsync(() -> {
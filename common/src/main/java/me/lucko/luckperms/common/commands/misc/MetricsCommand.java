@@ -0,0 +1,131 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.commands.misc;
+
+import me.lucko.luckperms.common.command.abstraction.SingleCommand;
+import me.lucko.luckperms.common.command.access.CommandPermission;
+import me.lucko.luckperms.common.command.spec.CommandSpec;
+import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.metrics.LatencyHistogram;
+import me.lucko.luckperms.common.metrics.Metrics;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.tasks.MetricsExportTask;
+import me.lucko.luckperms.common.util.Predicates;
+
+import net.kyori.adventure.text.Component;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class MetricsCommand extends SingleCommand {
+    private static final int TOP_PERMISSIONS = 10;
+
+    public MetricsCommand() {
+        super(CommandSpec.METRICS, "Metrics", CommandPermission.METRICS, Predicates.notInRange(0, 1));
+    }
+
+    @Override
+    public void execute(LuckPermsPlugin plugin, Sender sender, ArgumentList args, String label) {
+        if (args.size() >= 1 && args.get(0).equalsIgnoreCase("export")) {
+            MetricsExportTask task = new MetricsExportTask(plugin);
+            try {
+                task.export();
+            } catch (IOException e) {
+                plugin.getLogger().warn("Unable to export metrics to " + task.getFile(), e);
+                Message.METRICS_EXPORT_FAILURE.send(sender);
+                return;
+            }
+            Message.METRICS_EXPORT_SUCCESS.send(sender, task.getFile().toString());
+            return;
+        }
+
+        Metrics metrics = plugin.getMetrics();
+        LatencyHistogram.Snapshot calculations = metrics.getPermissionCalculations().snapshot();
+        long checks = metrics.getPermissionChecks();
+        double hitRate = checks == 0 ? 0 : Math.max(0, checks - calculations.count()) * 100d / checks;
+
+        Message.METRICS_HEADER.send(sender);
+        Message.METRICS_PERMISSION_CHECKS.send(sender, checks, hitRate);
+        sendTiming(sender, Component.translatable("luckperms.command.metrics.permission-calculations-key"), calculations);
+        sendTiming(sender, Component.translatable("luckperms.command.metrics.permission-data-key"), metrics.getPermissionDataCalculations().snapshot());
+        sendTiming(sender, Component.translatable("luckperms.command.metrics.meta-data-key"), metrics.getMetaDataCalculations().snapshot());
+        sendTiming(sender, Component.translatable("luckperms.command.metrics.contexts-key"), metrics.getContextCalculations().snapshot());
+        sendTiming(sender, Component.translatable("luckperms.command.metrics.event-driven-contexts-key"), metrics.getEventDrivenContextCalculations().snapshot());
+
+        for (Map.Entry<String, Metrics.StorageOperationMetrics> e : new TreeMap<>(metrics.getStorageOperations()).entrySet()) {
+            LatencyHistogram.Snapshot snapshot = e.getValue().getLatency().snapshot();
+            if (snapshot.count() != 0) {
+                sendTiming(sender, Component.translatable("luckperms.command.metrics.storage-operation-key", Component.text(e.getKey())), snapshot);
+            }
+        }
+
+        Message.METRICS_TOP_PERMISSIONS_HEADER.send(sender);
+        metrics.getPermissions().entrySet().stream()
+                .map(e -> new PermissionChecks(e.getKey(), e.getValue().getChecks()))
+                .sorted(Comparator.comparingLong(PermissionChecks::checks).reversed())
+                .limit(TOP_PERMISSIONS)
+                .forEach(e -> Message.METRICS_TOP_PERMISSION_ENTRY.send(sender, e.permission(), e.checks()));
+    }
+
+    private static void sendTiming(Sender sender, Component name, LatencyHistogram.Snapshot snapshot) {
+        Message.METRICS_TIMING_ENTRY.send(sender, name, snapshot.count(), formatNanos(snapshot.percentile(0.5)), formatNanos(snapshot.percentile(0.99)), formatNanos(snapshot.max()));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fµs", nanos / 1_000d);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1_000_000d);
+        } else {
+            return String.format("%.2fs", nanos / 1_000_000_000d);
+        }
+    }
+
+    private static final class PermissionChecks {
+        private final String permission;
+        private final long checks;
+
+        PermissionChecks(String permission, long checks) {
+            this.permission = permission;
+            this.checks = checks;
+        }
+
+        public String permission() {
+            return this.permission;
+        }
+
+        public long checks() {
+            return this.checks;
+        }
+    }
+
+}
@@ -85,6 +85,7 @@ public class TrackRename extends ChildCommand<Track> {
             return;
         }
 
+        StorageAssistant.pushTrackUpdate(target.getName(), plugin);
         newTrack.setGroups(target.getGroups());
 
         Message.RENAME_SUCCESS.send(sender, Component.text(target.getName()), Component.text(newTrack.getName()));
@@ -70,6 +70,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.booleanKey;
+import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.integerKey;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.key;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.lowercaseStringKey;
 import static me.lucko.luckperms.common.config.generic.key.ConfigKeyFactory.mapKey;
@@ -336,6 +337,17 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> POST_TRAVERSAL_INHERITANCE_SORT = booleanKey("post-traversal-inheritance-sort", false);
 
+    /**
+     * The maximum number of permission lookups each permission calculator should cache.
+     * A value <= 0 will disable the limit.
+     */
+    public static final ConfigKey<Integer> PERMISSION_LOOKUP_CACHE_SIZE = notReloadable(integerKey("permission-lookup-cache-size", 5000));
+
+    /**
+     * If holders with identical resolved permissions should share permission calculators
+     */
+    public static final ConfigKey<Boolean> SHARE_PERMISSION_CALCULATORS = notReloadable(booleanKey("share-permission-calculators", true));
+
     /**
      * The meta value selector
      */
@@ -606,6 +618,39 @@ public final class ConfigKeys {
         return ImmutableMap.copyOf(map);
     }));
 
+    /**
+     * The number of users loaded together in each chunk, when loading many users at once
+     */
+    public static final ConfigKey<Integer> USER_BULK_LOAD_CHUNK_SIZE = notReloadable(key(c -> {
+        return Math.max(1, c.getInteger("user-bulk-loading.chunk-size", 500));
+    }));
+
+    /**
+     * The number of chunks of users loaded at the same time
+     */
+    public static final ConfigKey<Integer> USER_BULK_LOAD_PARALLELISM = notReloadable(key(c -> {
+        return Math.max(1, c.getInteger("user-bulk-loading.parallelism", 4));
+    }));
+
+    /**
+     * A stack trace is captured for one in every n checks recorded by verbose
+     */
+    public static final ConfigKey<Integer> VERBOSE_TRACE_SAMPLING_RATE = key(c -> {
+        return Math.max(1, c.getInteger("verbose.trace-sampling-rate", 1));
+    });
+
+    /**
+     * The maximum number of stack trace elements kept for each check recorded by verbose
+     */
+    public static final ConfigKey<Integer> VERBOSE_TRACE_DEPTH = key(c -> {
+        return Math.max(1, c.getInteger("verbose.trace-depth", 64));
+    });
+
+    /**
+     * How many seconds to wait between exports of the metrics file. A value <= 0 will disable exporting.
+     */
+    public static final ConfigKey<Integer> METRICS_EXPORT_INTERVAL = notReloadable(integerKey("metrics.prometheus-export-interval", -1));
+
     /**
      * The name of the messaging service in use, or "none" if not enabled
      */
@@ -626,6 +671,13 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> BROADCAST_RECEIVED_LOG_ENTRIES = notReloadable(booleanKey("broadcast-received-log-entries", false));
 
+    /**
+     * If messages sent via the messaging service should be combined into compact binary frames
+     */
+    public static final ConfigKey<Boolean> MESSAGING_BINARY_ENCODING = notReloadable(key(c -> {
+        return c.getString("messaging-encoding", "json").equalsIgnoreCase("binary");
+    }));
+
     /**
      * If redis messaging is enabled
      */
@@ -25,6 +25,9 @@
 
 package me.lucko.luckperms.common.context;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSatisfyMode;
 import net.luckperms.api.context.ContextSet;
@@ -37,6 +40,15 @@ import java.util.Objects;
 
 public abstract class AbstractContextSet implements ContextSet {
 
+    /**
+     * Interner for context keys and values.
+     *
+     * <p>The same handful of keys and values appear in almost every context set, so
+     * interning them saves memory and lets most string comparisons short-circuit on
+     * reference equality.</p>
+     */
+    private static final Interner<String> STRING_INTERNER = Interners.newWeakInterner();
+
     @Override
     public boolean isSatisfiedBy(@NonNull ContextSet other, @NonNull ContextSatisfyMode mode) {
         if (this == other) {
@@ -72,7 +84,7 @@ public abstract class AbstractContextSet implements ContextSet {
         if (!Context.isValidKey(key)) {
             throw new IllegalArgumentException("key is (effectively) empty");
         }
-        return key.toLowerCase(Locale.ROOT);
+        return STRING_INTERNER.intern(key.toLowerCase(Locale.ROOT));
     }
 
     static String sanitizeValue(String value) {
@@ -80,7 +92,7 @@ public abstract class AbstractContextSet implements ContextSet {
         if (!Context.isValidValue(value)) {
             throw new IllegalArgumentException("value is (effectively) empty");
         }
-        return value.toLowerCase(Locale.ROOT);
+        return STRING_INTERNER.intern(value.toLowerCase(Locale.ROOT));
     }
 
     public static boolean isGlobalServerWorldEntry(String key, String value) {
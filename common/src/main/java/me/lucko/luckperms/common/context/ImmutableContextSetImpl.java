@@ -27,11 +27,7 @@ package me.lucko.luckperms.common.context;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Multimaps;
-
-import me.lucko.luckperms.common.context.comparator.ContextComparator;
 
 import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSatisfyMode;
@@ -42,7 +38,6 @@ import net.luckperms.api.context.MutableContextSet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
@@ -68,12 +63,35 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
     private final int size;
     private final int hashCode;
 
-    private ImmutableSetMultimap<String, String> cachedMap;
+    // index of the distinct keys in the array, in sorted order.
+    // the entries for keys[i] occupy array[offsets[i]] (inclusive) to array[offsets[i + 1]] (exclusive)
+    private final String[] keys;
+    private final int[] offsets;
+
+    private Map<String, Set<String>> cachedMap;
 
     ImmutableContextSetImpl(Context[] contexts) {
         this.array = contexts; // always sorted
         this.size = this.array.length;
         this.hashCode = Arrays.hashCode(this.array);
+
+        int keyCount = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (i == 0 || !this.array[i].getKey().equals(this.array[i - 1].getKey())) {
+                keyCount++;
+            }
+        }
+
+        this.keys = new String[keyCount];
+        this.offsets = new int[keyCount + 1];
+        for (int i = 0, k = 0; i < this.size; i++) {
+            if (i == 0 || !this.array[i].getKey().equals(this.array[i - 1].getKey())) {
+                this.keys[k] = this.array[i].getKey();
+                this.offsets[k] = i;
+                k++;
+            }
+        }
+        this.offsets[keyCount] = this.size;
     }
 
     @Override
@@ -87,20 +105,9 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
         return this;
     }
 
-    public ImmutableSetMultimap<String, String> toMultimap() {
-        if (this.cachedMap == null) {
-            ImmutableSetMultimap.Builder<String, String> builder = ImmutableSetMultimap.builder();
-            for (Context entry : this.array) {
-                builder.put(entry.getKey(), entry.getValue());
-            }
-            this.cachedMap = builder.build();
-        }
-        return this.cachedMap;
-    }
-
     @Override
     public @NonNull MutableContextSet mutableCopy() {
-        return new MutableContextSetImpl(toMultimap());
+        return new MutableContextSetImpl(this.array, this.keys.length);
     }
 
     @Override
@@ -110,7 +117,14 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
 
     @Override
     public @NonNull Map<String, Set<String>> toMap() {
-        return Multimaps.asMap(toMultimap());
+        if (this.cachedMap == null) {
+            ImmutableMap.Builder<String, Set<String>> builder = ImmutableMap.builder();
+            for (int i = 0; i < this.keys.length; i++) {
+                builder.put(this.keys[i], valuesAt(i));
+            }
+            this.cachedMap = builder.build();
+        }
+        return this.cachedMap;
     }
 
     @Deprecated
@@ -129,6 +143,10 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
 
     @Override
     protected boolean otherContainsAll(ContextSet other, ContextSatisfyMode mode) {
+        if (other instanceof ImmutableContextSetImpl) {
+            return otherContainsAll((ImmutableContextSetImpl) other, mode);
+        }
+
         switch (mode) {
             // Use other.contains
             case ALL_VALUES_PER_KEY: {
@@ -142,26 +160,19 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
 
             // Use other.containsAny
             case AT_LEAST_ONE_VALUE_PER_KEY: {
-                // exploit the ordered nature to only scan through the array once.
-                Context[] array = this.array;
-                for (int i = 0, len = array.length; i < len; i++) {
-                    Context e = array[i];
-
-                    boolean otherContains = other.contains(e.getKey(), e.getValue());
-                    if (otherContains) {
-                        // skip forward past any other entries with the same key
-                        while (i+1 < len && array[i+1].getKey().equals(e.getKey())) {
-                            i++;
-                        }
-                    } else {
-                        // if this is the last one of the key, return false
-                        int next = i + 1;
-                        if (next >= len || !array[next].getKey().equals(e.getKey())) {
-                            return false;
+                // use the key index to only check each key once.
+                for (int k = 0; k < this.keys.length; k++) {
+                    boolean otherContains = false;
+                    for (int i = this.offsets[k], end = this.offsets[k + 1]; i < end; i++) {
+                        if (other.contains(this.keys[k], this.array[i].getValue())) {
+                            otherContains = true;
+                            break;
                         }
                     }
+                    if (!otherContains) {
+                        return false;
+                    }
                 }
-
                 return true;
             }
             default:
@@ -169,6 +180,112 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
         }
     }
 
+    /**
+     * Tests whether another immutable set contains all of this set, according to the mode.
+     *
+     * <p>Both arrays are sorted, so this is done by merging them in a single pass,
+     * using the key indexes to jump between keys. No objects are allocated.</p>
+     *
+     * @param other the other set
+     * @param mode the satisfy mode
+     * @return if the other set contains this set
+     */
+    private boolean otherContainsAll(ImmutableContextSetImpl other, ContextSatisfyMode mode) {
+        if (mode != ContextSatisfyMode.ALL_VALUES_PER_KEY && mode != ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        boolean allValues = mode == ContextSatisfyMode.ALL_VALUES_PER_KEY;
+
+        Context[] array = this.array;
+        Context[] otherArray = other.array;
+        String[] otherKeys = other.keys;
+        int otherKeyCount = otherKeys.length;
+
+        int j = 0;
+        for (int k = 0, keyCount = this.keys.length; k < keyCount; k++) {
+            String key = this.keys[k];
+
+            // advance to the same key in the other set
+            int c = 1;
+            while (j < otherKeyCount && (c = compare(otherKeys[j], key)) < 0) {
+                j++;
+            }
+            if (c != 0) {
+                return false;
+            }
+
+            int i = this.offsets[k];
+            int end = this.offsets[k + 1];
+            int otherI = other.offsets[j];
+            int otherEnd = other.offsets[j + 1];
+            j++;
+
+            if (allValues) {
+                // every value for the key must be present
+                if (end - i > otherEnd - otherI) {
+                    return false;
+                }
+                while (i < end) {
+                    if (otherI == otherEnd) {
+                        return false;
+                    }
+                    c = compare(array[i].getValue(), otherArray[otherI].getValue());
+                    if (c == 0) {
+                        i++;
+                        otherI++;
+                    } else if (c > 0) {
+                        otherI++;
+                    } else {
+                        return false;
+                    }
+                }
+            } else {
+                // at least one value for the key must be present
+                boolean found = false;
+                while (i < end && otherI < otherEnd) {
+                    c = compare(array[i].getValue(), otherArray[otherI].getValue());
+                    if (c == 0) {
+                        found = true;
+                        break;
+                    } else if (c > 0) {
+                        otherI++;
+                    } else {
+                        i++;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("StringEquality")
+    private static int compare(String a, String b) {
+        // keys and values are interned, so will usually be reference equal
+        return a == b ? 0 : a.compareTo(b);
+    }
+
+    private int indexOfKey(String key) {
+        return Arrays.binarySearch(this.keys, key);
+    }
+
+    private ImmutableSet<String> valuesAt(int keyIndex) {
+        int start = this.offsets[keyIndex];
+        int end = this.offsets[keyIndex + 1];
+        if (end - start == 1) {
+            return ImmutableSet.of(this.array[start].getValue());
+        }
+
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int i = start; i < end; i++) {
+            builder.add(this.array[i].getValue());
+        }
+        return builder.build();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) return true;
@@ -198,26 +315,46 @@ public final class ImmutableContextSetImpl extends AbstractContextSet implements
     @Override
     public boolean containsKey(@NonNull String key) {
         Objects.requireNonNull(key, "key");
-        return Arrays.binarySearch(this.array, new ContextImpl(key, null), ContextComparator.ONLY_KEY) >= 0;
+        return indexOfKey(key) >= 0;
     }
 
     @Override
     public @NonNull Set<String> getValues(@NonNull String key) {
-        Collection<String> values = toMap().get(sanitizeKey(key));
-        return values != null ? ImmutableSet.copyOf(values) : ImmutableSet.of();
+        int keyIndex = indexOfKey(sanitizeKey(key));
+        return keyIndex >= 0 ? valuesAt(keyIndex) : ImmutableSet.of();
     }
 
     @Override
     public boolean contains(@NonNull Context entry) {
         Objects.requireNonNull(entry, "entry");
-        return Arrays.binarySearch(this.array, entry) >= 0;
+        return contains(entry.getKey(), entry.getValue());
     }
 
     @Override
     public boolean contains(@NonNull String key, @NonNull String value) {
         Objects.requireNonNull(key, "key");
         Objects.requireNonNull(value, "value");
-        return contains(new ContextImpl(key, value));
+
+        int keyIndex = indexOfKey(key);
+        if (keyIndex < 0) {
+            return false;
+        }
+
+        // binary search the values for the key
+        int low = this.offsets[keyIndex];
+        int high = this.offsets[keyIndex + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(this.array[mid].getValue(), value);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -59,6 +59,14 @@ public final class MutableContextSetImpl extends AbstractContextSet implements M
         this.map = Multimaps.synchronizedSetMultimap(HashMultimap.create(other));
     }
 
+    MutableContextSetImpl(Context[] contexts, int expectedKeys) {
+        SetMultimap<String, String> map = HashMultimap.create(expectedKeys, Math.max(1, contexts.length / Math.max(1, expectedKeys)));
+        for (Context context : contexts) {
+            map.put(context.getKey(), context.getValue());
+        }
+        this.map = Multimaps.synchronizedSetMultimap(map);
+    }
+
     @Override
     public boolean isImmutable() {
         return false;
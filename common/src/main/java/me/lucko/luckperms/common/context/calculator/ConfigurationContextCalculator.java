@@ -59,4 +59,10 @@ public class ConfigurationContextCalculator implements StaticContextCalculator {
         calculate(builder::add);
         return builder.build();
     }
+
+    @Override
+    public boolean isEventDriven() {
+        // only changes when the configuration is reloaded
+        return true;
+    }
 }
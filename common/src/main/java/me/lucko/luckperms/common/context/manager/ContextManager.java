@@ -45,6 +45,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 /**
@@ -63,6 +64,9 @@ public abstract class ContextManager<S, P extends S> {
     // caches static context lookups
     private final StaticLookupCache staticLookupCache = new StaticLookupCache();
 
+    // incremented to invalidate all cached context lookups
+    private final AtomicInteger cacheEpoch = new AtomicInteger();
+
     protected ContextManager(LuckPermsPlugin plugin, Class<S> subjectClass, Class<P> playerClass) {
         this.plugin = plugin;
         this.subjectClass = subjectClass;
@@ -111,12 +115,46 @@ public abstract class ContextManager<S, P extends S> {
         // invalidate their cache
         invalidateCache(subject);
 
+        // platform events are often called just before the change they signal is applied,
+        // so invalidate again a tick later in case the old contexts were cached in between
+        if (this.calculators.hasEventDrivenCalculators()) {
+            this.plugin.getBootstrap().getScheduler().asyncLater(() -> invalidateCache(subject), 50L, TimeUnit.MILLISECONDS);
+        }
+
         // call event
         this.plugin.getEventDispatcher().dispatchContextUpdate(subject);
     }
 
     protected abstract void invalidateCache(S subject);
 
+    /**
+     * Invalidates the cached contexts of all subjects, and the cached static contexts.
+     */
+    public void invalidateCaches() {
+        this.cacheEpoch.incrementAndGet();
+    }
+
+    /**
+     * Gets the current cache epoch, which changes whenever {@link #invalidateCaches()} is called.
+     *
+     * @return the cache epoch
+     */
+    public int getCacheEpoch() {
+        return this.cacheEpoch.get();
+    }
+
+    /**
+     * Gets if the query options of a subject must be recalculated periodically,
+     * because some of the state they are formed from doesn't signal its changes.
+     *
+     * <p>This is the case if any registered calculators are not event-driven.</p>
+     *
+     * @return true if query options must be recalculated periodically
+     */
+    public boolean requiresPolling() {
+        return this.calculators.polledCalculators().length != 0;
+    }
+
     public void registerCalculator(ContextCalculator<? super S> calculator) {
         String calculatorClass = calculator.getClass().getName();
 
@@ -129,10 +167,12 @@ public abstract class ContextManager<S, P extends S> {
         }
 
         this.calculators.add(calculator);
+        invalidateCaches();
     }
 
     public void unregisterCalculator(ContextCalculator<? super S> calculator) {
         this.calculators.remove(calculator);
+        invalidateCaches();
     }
 
     protected void callContextCalculator(ContextCalculator<? super S> calculator, S subject, ContextConsumer consumer) {
@@ -152,14 +192,61 @@ public abstract class ContextManager<S, P extends S> {
     }
 
     protected QueryOptions calculate(S subject) {
+        return calculate(subject, calculateEventDriven(subject));
+    }
+
+    /**
+     * Calculates the contexts submitted by the event-driven calculators.
+     *
+     * <p>The result only changes when a context update is signalled, or when
+     * the caches are invalidated.</p>
+     *
+     * @param subject the subject
+     * @return the contexts
+     */
+    protected ImmutableContextSet calculateEventDriven(S subject) {
+        long start = System.nanoTime();
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
-        for (ContextCalculator<? super S> calculator : this.calculators.calculators()) {
+        for (ContextCalculator<? super S> calculator : this.calculators.eventDrivenCalculators()) {
             callContextCalculator(calculator, subject, consumer);
         }
 
-        return formQueryOptions(subject, accumulator.build());
+        ImmutableContextSet contexts = accumulator.build();
+        this.plugin.getMetrics().getEventDrivenContextCalculations().recordSince(start);
+        return contexts;
+    }
+
+    /**
+     * Calculates the query options for a subject, using the contexts previously
+     * calculated by {@link #calculateEventDriven(Object)}.
+     *
+     * @param subject the subject
+     * @param eventDrivenContexts the contexts submitted by the event-driven calculators
+     * @return the query options
+     */
+    protected QueryOptions calculate(S subject, ImmutableContextSet eventDrivenContexts) {
+        long start = System.nanoTime();
+        ContextCalculator<? super S>[] polledCalculators = this.calculators.polledCalculators();
+
+        QueryOptions queryOptions;
+        if (polledCalculators.length == 0) {
+            queryOptions = formQueryOptions(subject, eventDrivenContexts);
+        } else {
+            ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
+            accumulator.addAll(eventDrivenContexts);
+            ContextConsumer consumer = accumulator::add;
+
+            for (ContextCalculator<? super S> calculator : polledCalculators) {
+                callContextCalculator(calculator, subject, consumer);
+            }
+
+            queryOptions = formQueryOptions(subject, accumulator.build());
+        }
+
+        this.plugin.getMetrics().getContextCalculations().recordSince(start);
+        return queryOptions;
     }
 
     private QueryOptions calculateStatic() {
@@ -191,14 +278,27 @@ public abstract class ContextManager<S, P extends S> {
     }
 
     private final class StaticLookupCache extends ExpiringCache<QueryOptions> {
+        private volatile int epoch;
+
         StaticLookupCache() {
             super(50L, TimeUnit.MILLISECONDS);
         }
 
         @Override
         public @NonNull QueryOptions supply() {
+            this.epoch = getCacheEpoch();
             return calculateStatic();
         }
+
+        @Override
+        protected boolean isExpired(long now, long expirationNanos) {
+            if (this.epoch != getCacheEpoch()) {
+                return true;
+            }
+
+            // only recalculate periodically if some static calculators don't signal their changes
+            return !ContextManager.this.calculators.staticEventDriven() && super.isExpired(now, expirationNanos);
+        }
     }
 
     private static String getCalculatorClass(ContextCalculator<?> calculator) {
@@ -217,6 +317,9 @@ public abstract class ContextManager<S, P extends S> {
 
         private volatile ContextCalculator<? super S>[] calculatorsArray;
         private volatile StaticContextCalculator[] staticCalculatorsArray;
+        private volatile ContextCalculator<? super S>[] eventDrivenCalculatorsArray;
+        private volatile ContextCalculator<? super S>[] polledCalculatorsArray;
+        private volatile boolean staticEventDriven;
 
         CalculatorList() {
             this.calculators = new ArrayList<>();
@@ -228,6 +331,19 @@ public abstract class ContextManager<S, P extends S> {
         private void bake() {
             this.calculatorsArray = this.calculators.toArray(new ContextCalculator[0]);
             this.staticCalculatorsArray = this.staticCalculators.toArray(new StaticContextCalculator[0]);
+
+            List<ContextCalculator<? super S>> eventDriven = new ArrayList<>();
+            List<ContextCalculator<? super S>> polled = new ArrayList<>();
+            for (ContextCalculator<? super S> calculator : this.calculators) {
+                if (calculator.isEventDriven()) {
+                    eventDriven.add(calculator);
+                } else {
+                    polled.add(calculator);
+                }
+            }
+            this.eventDrivenCalculatorsArray = eventDriven.toArray(new ContextCalculator[0]);
+            this.polledCalculatorsArray = polled.toArray(new ContextCalculator[0]);
+            this.staticEventDriven = this.staticCalculators.stream().allMatch(ContextCalculator::isEventDriven);
         }
 
         public void add(ContextCalculator<? super S> calculator) {
@@ -262,6 +378,22 @@ public abstract class ContextManager<S, P extends S> {
         public StaticContextCalculator[] staticCalculators() {
             return this.staticCalculatorsArray;
         }
+
+        public ContextCalculator<? super S>[] eventDrivenCalculators() {
+            return this.eventDrivenCalculatorsArray;
+        }
+
+        public ContextCalculator<? super S>[] polledCalculators() {
+            return this.polledCalculatorsArray;
+        }
+
+        public boolean hasEventDrivenCalculators() {
+            return this.eventDrivenCalculatorsArray.length != 0;
+        }
+
+        public boolean staticEventDriven() {
+            return this.staticEventDriven;
+        }
     }
 
 }
@@ -33,16 +33,31 @@ import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of {@link QueryOptionsSupplier} that caches results.
  *
+ * <p>The contexts submitted by event-driven calculators are kept until the
+ * cache is invalidated. Only the remaining (polled) calculators are called
+ * again when the cache expires, and if there are none, the query options are
+ * kept until the cache is invalidated too.</p>
+ *
  * @param <T> the player type
  */
 public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> implements QueryOptionsSupplier {
     private final T subject;
     private final ContextManager<T, ?> contextManager;
 
+    // incremented each time the cache is invalidated
+    private final AtomicInteger version = new AtomicInteger();
+
+    // the contexts from event-driven calculators, and when they were calculated
+    private volatile EventDrivenContexts eventDrivenContexts = null;
+
+    // the last calculated value, returned again if an equal value is calculated
+    private QueryOptions lastValue = null;
+
     public QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
         super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
         this.subject = subject;
@@ -51,7 +66,44 @@ public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> impl
 
     @Override
     protected @NonNull QueryOptions supply() {
-        return this.contextManager.calculate(this.subject);
+        EventDrivenContexts eventDriven = this.eventDrivenContexts;
+        if (eventDriven == null || !eventDriven.isValid()) {
+            // read the version and epoch before calculating, so that a concurrent
+            // invalidation causes the contexts to be calculated again
+            int version = this.version.get();
+            int epoch = this.contextManager.getCacheEpoch();
+            ImmutableContextSet contexts = this.contextManager.calculateEventDriven(this.subject);
+
+            eventDriven = new EventDrivenContexts(version, epoch, contexts);
+            this.eventDrivenContexts = eventDriven;
+        }
+
+        QueryOptions value = this.contextManager.calculate(this.subject, eventDriven.contexts);
+
+        // keep the same instance whilst the value doesn't change
+        QueryOptions lastValue = this.lastValue;
+        if (value.equals(lastValue)) {
+            return lastValue;
+        }
+        this.lastValue = value;
+        return value;
+    }
+
+    @Override
+    protected boolean isExpired(long now, long expirationNanos) {
+        EventDrivenContexts eventDriven = this.eventDrivenContexts;
+        if (eventDriven == null || !eventDriven.isValid()) {
+            return true;
+        }
+
+        // only recalculate periodically if some calculators don't signal their changes
+        return this.contextManager.requiresPolling() && super.isExpired(now, expirationNanos);
+    }
+
+    @Override
+    public void invalidate() {
+        this.version.incrementAndGet();
+        super.invalidate();
     }
 
     @Override
@@ -63,4 +115,20 @@ public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> impl
     public ImmutableContextSet getContextSet() {
         return get().context();
     }
+
+    private final class EventDrivenContexts {
+        private final int version;
+        private final int epoch;
+        private final ImmutableContextSet contexts;
+
+        EventDrivenContexts(int version, int epoch, ImmutableContextSet contexts) {
+            this.version = version;
+            this.epoch = epoch;
+            this.contexts = contexts;
+        }
+
+        boolean isValid() {
+            return this.version == QueryOptionsCache.this.version.get() && this.epoch == QueryOptionsCache.this.contextManager.getCacheEpoch();
+        }
+    }
 }
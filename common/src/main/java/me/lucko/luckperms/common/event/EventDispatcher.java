@@ -31,6 +31,7 @@ import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.api.implementation.ApiPermissionHolder;
 import me.lucko.luckperms.common.cacheddata.GroupCachedDataManager;
 import me.lucko.luckperms.common.cacheddata.UserCachedDataManager;
+import me.lucko.luckperms.common.event.gen.GenerateEventClasses;
 import me.lucko.luckperms.common.event.gen.GeneratedEventClass;
 import me.lucko.luckperms.common.event.model.EntitySourceImpl;
 import me.lucko.luckperms.common.event.model.SenderPlatformEntity;
@@ -104,6 +105,48 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+@GenerateEventClasses({
+        ContextUpdateEvent.class,
+        ExtensionLoadEvent.class,
+        GroupCacheLoadEvent.class,
+        GroupCreateEvent.class,
+        GroupDataRecalculateEvent.class,
+        GroupDeleteEvent.class,
+        GroupLoadAllEvent.class,
+        GroupLoadEvent.class,
+        LogBroadcastEvent.class,
+        LogNetworkPublishEvent.class,
+        LogNotifyEvent.class,
+        LogPublishEvent.class,
+        LogReceiveEvent.class,
+        NodeAddEvent.class,
+        NodeClearEvent.class,
+        NodeRemoveEvent.class,
+        PlayerDataSaveEvent.class,
+        PlayerLoginProcessEvent.class,
+        UniqueIdDetermineTypeEvent.class,
+        UniqueIdLookupEvent.class,
+        UsernameLookupEvent.class,
+        UsernameValidityCheckEvent.class,
+        ConfigReloadEvent.class,
+        PostSyncEvent.class,
+        PreNetworkSyncEvent.class,
+        PreSyncEvent.class,
+        TrackCreateEvent.class,
+        TrackDeleteEvent.class,
+        TrackLoadAllEvent.class,
+        TrackLoadEvent.class,
+        TrackAddGroupEvent.class,
+        TrackClearEvent.class,
+        TrackRemoveGroupEvent.class,
+        UserCacheLoadEvent.class,
+        UserDataRecalculateEvent.class,
+        UserFirstLoginEvent.class,
+        UserLoadEvent.class,
+        UserUnloadEvent.class,
+        UserDemoteEvent.class,
+        UserPromoteEvent.class
+})
 public final class EventDispatcher {
     private final AbstractEventBus<?> eventBus;
 
@@ -117,7 +160,7 @@ public final class EventDispatcher {
 
     private LuckPermsEvent generate(Class<? extends LuckPermsEvent> eventClass, Object... params) {
         try {
-            return GeneratedEventClass.generate(eventClass).newInstance(this.eventBus.getApiProvider(), params);
+            return GeneratedEventClass.get(eventClass).newInstance(this.eventBus.getApiProvider(), params);
         } catch (Throwable e) {
             throw new RuntimeException("Exception occurred whilst generating event instance", e);
         }
@@ -391,50 +434,4 @@ public final class EventDispatcher {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public static Class<? extends LuckPermsEvent>[] getKnownEventTypes() {
-        return new Class[]{
-                ContextUpdateEvent.class,
-                ExtensionLoadEvent.class,
-                GroupCacheLoadEvent.class,
-                GroupCreateEvent.class,
-                GroupDataRecalculateEvent.class,
-                GroupDeleteEvent.class,
-                GroupLoadAllEvent.class,
-                GroupLoadEvent.class,
-                LogBroadcastEvent.class,
-                LogNetworkPublishEvent.class,
-                LogNotifyEvent.class,
-                LogPublishEvent.class,
-                LogReceiveEvent.class,
-                NodeAddEvent.class,
-                NodeClearEvent.class,
-                NodeRemoveEvent.class,
-                PlayerDataSaveEvent.class,
-                PlayerLoginProcessEvent.class,
-                UniqueIdDetermineTypeEvent.class,
-                UniqueIdLookupEvent.class,
-                UsernameLookupEvent.class,
-                UsernameValidityCheckEvent.class,
-                ConfigReloadEvent.class,
-                PostSyncEvent.class,
-                PreNetworkSyncEvent.class,
-                PreSyncEvent.class,
-                TrackCreateEvent.class,
-                TrackDeleteEvent.class,
-                TrackLoadAllEvent.class,
-                TrackLoadEvent.class,
-                TrackAddGroupEvent.class,
-                TrackClearEvent.class,
-                TrackRemoveGroupEvent.class,
-                UserCacheLoadEvent.class,
-                UserDataRecalculateEvent.class,
-                UserFirstLoginEvent.class,
-                UserLoadEvent.class,
-                UserUnloadEvent.class,
-                UserDemoteEvent.class,
-                UserPromoteEvent.class
-        };
-    }
-
 }
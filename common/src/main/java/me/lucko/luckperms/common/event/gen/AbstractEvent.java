@@ -30,8 +30,6 @@ import net.luckperms.api.event.LuckPermsEvent;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.lang.invoke.MethodHandles;
-
 /**
  * Abstract implementation of {@link LuckPermsEvent}.
  */
@@ -46,9 +44,4 @@ public abstract class AbstractEvent implements LuckPermsEvent {
     public @NonNull LuckPerms getLuckPerms() {
         return this.api;
     }
-
-    // Overridden by the subclass. Used by GeneratedEventClass to get setter method handles.
-    public MethodHandles.Lookup mhl() {
-        throw new UnsupportedOperationException();
-    }
 }
@@ -25,12 +25,17 @@
 
 package me.lucko.luckperms.common.inheritance;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.collect.ImmutableList;
+
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.graph.Graph;
 import me.lucko.luckperms.common.graph.TraversalAlgorithm;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
@@ -38,7 +43,9 @@ import net.luckperms.api.query.QueryOptions;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link Graph} which represents an "inheritance tree".
@@ -51,6 +58,14 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
      */
     private final QueryOptions queryOptions;
 
+    /**
+     * Memoized results of {@link #traverse(PermissionHolder)}, keyed by start node.
+     */
+    private final Cache<PermissionHolder, ResolvedTraversal> traversalCache = CaffeineFactory.newBuilder()
+            .weakKeys()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
     public InheritanceGraph(LuckPermsPlugin plugin, QueryOptions queryOptions) {
         this.plugin = plugin;
         this.queryOptions = queryOptions;
@@ -101,15 +116,69 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
     /**
      * Perform a traversal according to the rules defined in the configuration.
      *
+     * <p>The result is memoized until the structure of the inheritance graph changes.</p>
+     *
      * @param startNode the start node in the inheritance graph
      * @return an iterable
      */
     public Iterable<PermissionHolder> traverse(PermissionHolder startNode) {
-        return traverse(
-                this.plugin.getConfiguration().get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM),
-                this.plugin.getConfiguration().get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT),
-                startNode
-        );
+        TraversalAlgorithm algorithm = this.plugin.getConfiguration().get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM);
+        boolean postTraversalSort = this.plugin.getConfiguration().get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT);
+
+        // read the versions before traversing, so a concurrent change will cause
+        // the result to be considered stale
+        int version = this.plugin.getInheritanceGraphFactory().getVersion();
+        int holderVersion = startNode.getInheritanceVersion();
+
+        // the primary group of a user affects the ordering of their parents
+        String primaryGroup = startNode instanceof User ? ((User) startNode).getPrimaryGroup().getStoredValue().orElse(null) : null;
+
+        ResolvedTraversal cached = this.traversalCache.getIfPresent(startNode);
+        if (cached != null && cached.isValid(version, holderVersion, algorithm, postTraversalSort, primaryGroup)) {
+            return cached.holders;
+        }
+
+        List<PermissionHolder> holders = ImmutableList.copyOf(traverse(algorithm, postTraversalSort, startNode));
+
+        // record the start node as a dependent of each group it inherits from,
+        // so changes to those groups only invalidate the holders they affect
+        for (PermissionHolder holder : holders) {
+            if (holder != startNode && holder instanceof Group) {
+                ((Group) holder).registerDependent(startNode);
+            }
+        }
+
+        this.traversalCache.put(startNode, new ResolvedTraversal(holders, version, holderVersion, algorithm, postTraversalSort, primaryGroup));
+        return holders;
+    }
+
+    /**
+     * A memoized traversal, and the state it was resolved with.
+     */
+    private static final class ResolvedTraversal {
+        private final List<PermissionHolder> holders;
+        private final int version;
+        private final int holderVersion;
+        private final TraversalAlgorithm algorithm;
+        private final boolean postTraversalSort;
+        private final String primaryGroup;
+
+        ResolvedTraversal(List<PermissionHolder> holders, int version, int holderVersion, TraversalAlgorithm algorithm, boolean postTraversalSort, String primaryGroup) {
+            this.holders = holders;
+            this.version = version;
+            this.holderVersion = holderVersion;
+            this.algorithm = algorithm;
+            this.postTraversalSort = postTraversalSort;
+            this.primaryGroup = primaryGroup;
+        }
+
+        boolean isValid(int version, int holderVersion, TraversalAlgorithm algorithm, boolean postTraversalSort, String primaryGroup) {
+            return this.version == version &&
+                    this.holderVersion == holderVersion &&
+                    this.algorithm == algorithm &&
+                    this.postTraversalSort == postTraversalSort &&
+                    Objects.equals(this.primaryGroup, primaryGroup);
+        }
     }
 
 }
@@ -25,13 +25,27 @@
 
 package me.lucko.luckperms.common.inheritance;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Provides {@link InheritanceGraph}s.
+ *
+ * <p>Graphs are cached per {@link QueryOptions}, and each graph memoizes the
+ * traversals it performs. Changes to the inheritance nodes of a user only
+ * invalidate the traversals starting at that user, whereas changes to the
+ * inheritance or weight nodes of a group, or a group being loaded or unloaded,
+ * invalidate all memoized traversals.</p>
  */
 public class InheritanceGraphFactory {
     private final LuckPermsPlugin plugin;
@@ -39,10 +53,20 @@ public class InheritanceGraphFactory {
     private final InheritanceGraph nonContextualGraph;
     private final InheritanceGraph defaultContextualGraph;
 
+    private final LoadingCache<QueryOptions, InheritanceGraph> graphs;
+
+    /**
+     * Incremented each time the structure of the inheritance graph changes
+     */
+    private final AtomicInteger version = new AtomicInteger(0);
+
     public InheritanceGraphFactory(LuckPermsPlugin plugin) {
         this.plugin = plugin;
         this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL);
         this.defaultContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        this.graphs = CaffeineFactory.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build(queryOptions -> new InheritanceGraph(this.plugin, queryOptions));
     }
 
     public InheritanceGraph getGraph(QueryOptions queryOptions) {
@@ -51,7 +75,43 @@ public class InheritanceGraphFactory {
         } else if (queryOptions == QueryOptionsImpl.DEFAULT_CONTEXTUAL) {
             return this.defaultContextualGraph;
         } else {
-            return new InheritanceGraph(this.plugin, queryOptions);
+            return this.graphs.get(queryOptions);
+        }
+    }
+
+    /**
+     * Gets the current version of the inheritance graph structure.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Invalidates all memoized traversals.
+     *
+     * <p>Should be called when a group is loaded or unloaded.</p>
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the memoized traversals affected by a change to the inheritance
+     * or weight nodes held by the given holder.
+     *
+     * <p>Groups can appear in the traversals of any other holder, so a change to a
+     * group invalidates all memoized traversals. Nothing inherits from a user, so a
+     * change to a user only invalidates the traversals starting at that user.</p>
+     *
+     * @param holder the holder which changed
+     */
+    public void invalidate(PermissionHolder holder) {
+        if (holder instanceof Group) {
+            invalidate();
+        } else {
+            holder.invalidateInheritanceVersion();
         }
     }
 
@@ -2960,6 +2960,14 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args2<Integer, Integer> BULK_UPDATE_PROGRESS = (processed, total) -> prefixed(translatable()
+            // "&7Processed &f{}&7 of &f{}&7 users and groups."
+            .key("luckperms.command.bulkupdate.progress")
+            .color(GRAY)
+            .args(text(processed, WHITE), text(total, WHITE))
+            .append(FULL_STOP)
+    );
+
     Args0 BULK_UPDATE_SUCCESS = () -> prefixed(translatable()
             // "&bBulk update completed successfully."
             .key("luckperms.command.bulkupdate.success")
@@ -3093,6 +3101,81 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args0 METRICS_HEADER = () -> prefixed(translatable()
+            // "&bMetrics:"
+            .key("luckperms.command.metrics.title")
+            .color(AQUA)
+            .append(text(':'))
+    );
+
+    Args2<Long, Double> METRICS_PERMISSION_CHECKS = (checks, hitRate) -> prefixed(text()
+            // "&f-  &3Permission checks: &a{} &7({}% cached)"
+            .color(DARK_AQUA)
+            .append(text("-  ", WHITE))
+            .append(translatable("luckperms.command.metrics.permission-checks-key"))
+            .append(text(": "))
+            .append(text(checks, GREEN))
+            .append(space())
+            .append(text()
+                    .color(GRAY)
+                    .append(OPEN_BRACKET)
+                    .append(translatable("luckperms.command.metrics.cached", text(String.format("%.1f", hitRate), GREEN)))
+                    .append(CLOSE_BRACKET)
+            )
+    );
+
+    Args5<Component, Long, String, String, String> METRICS_TIMING_ENTRY = (name, count, median, p99, max) -> prefixed(text()
+            // "&f-  &3{}: &a{} &7calls, p50 &a{}&7, p99 &a{}&7, max &a{}"
+            .color(DARK_AQUA)
+            .append(text("-  ", WHITE))
+            .append(name)
+            .append(text(": "))
+            .append(translatable()
+                    .key("luckperms.command.metrics.timing")
+                    .color(GRAY)
+                    .args(
+                            text(count, GREEN),
+                            text(median, GREEN),
+                            text(p99, GREEN),
+                            text(max, GREEN)
+                    )
+            )
+    );
+
+    Args0 METRICS_TOP_PERMISSIONS_HEADER = () -> prefixed(translatable()
+            // "&bMost checked permissions:"
+            .key("luckperms.command.metrics.top-permissions")
+            .color(AQUA)
+            .append(text(':'))
+    );
+
+    Args2<String, Long> METRICS_TOP_PERMISSION_ENTRY = (permission, checks) -> prefixed(text()
+            // "&f-  &b{} &7- &a{} &7checks"
+            .color(GRAY)
+            .append(text("-  ", WHITE))
+            .append(text(permission, AQUA))
+            .append(text(" - "))
+            .append(translatable("luckperms.command.metrics.checks", text(checks, GREEN)))
+    );
+
+    Args1<String> METRICS_EXPORT_SUCCESS = file -> prefixed(translatable()
+            // "&aSuccessfully exported metrics to &b{}&a."
+            .key("luckperms.command.metrics.export.success")
+            .color(GREEN)
+            .args(text(file, AQUA))
+            .append(FULL_STOP)
+    );
+
+    Args0 METRICS_EXPORT_FAILURE = () -> prefixed(text()
+            // "&cUnable to export metrics. Check the console for errors."
+            .color(RED)
+            .append(translatable("luckperms.command.metrics.export.failure"))
+            .append(FULL_STOP)
+            .append(space())
+            .append(translatable("luckperms.command.misc.check-console-for-errors"))
+            .append(FULL_STOP)
+    );
+
     Args4<String, String, Component, Boolean> USER_INFO_GENERAL = (username, uuid, uuidType, online) -> join(newline(),
             // "&b&l> &bUser Info: &f{}"
             // "&f- &3UUID: &f{}"
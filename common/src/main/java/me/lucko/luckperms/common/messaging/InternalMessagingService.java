@@ -32,6 +32,9 @@ import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.messenger.Messenger;
 import net.luckperms.api.messenger.MessengerProvider;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 public interface InternalMessagingService {
 
     /**
@@ -53,6 +56,9 @@ public interface InternalMessagingService {
     /**
      * Gets the buffer for sending updates to other servers
      *
+     * <p>Requests made using the buffer inform other servers about a general
+     * change, and cause them to perform a full sync.</p>
+     *
      * @return the update buffer
      */
     BufferedRequest<Void> getUpdateBuffer();
@@ -63,6 +69,33 @@ public interface InternalMessagingService {
      */
     void pushUpdate();
 
+    /**
+     * Uses the messaging service to inform other servers about changes to
+     * specific groups and tracks.
+     *
+     * @param groups the names of the groups which changed
+     * @param tracks the names of the tracks which changed
+     */
+    void pushUpdate(Set<String> groups, Set<String> tracks);
+
+    /**
+     * Buffers an update for a specific group, to be sent to other servers
+     * along with any other changes made within the buffer period.
+     *
+     * @param groupName the name of the group
+     * @return a future which completes when the update has been sent
+     */
+    CompletableFuture<Void> requestGroupUpdate(String groupName);
+
+    /**
+     * Buffers an update for a specific track, to be sent to other servers
+     * along with any other changes made within the buffer period.
+     *
+     * @param trackName the name of the track
+     * @return a future which completes when the update has been sent
+     */
+    CompletableFuture<Void> requestTrackUpdate(String trackName);
+
     /**
      * Pushes an update for a specific user.
      *
@@ -31,11 +31,14 @@ import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
 import me.lucko.luckperms.common.messaging.message.ActionLogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.BatchMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.tasks.PartialSyncTask;
 import me.lucko.luckperms.common.util.ExpiringSet;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import me.lucko.luckperms.common.util.gson.JObject;
@@ -52,14 +55,20 @@ import net.luckperms.api.messenger.message.type.UserUpdateMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 public class LuckPermsMessagingService implements InternalMessagingService, IncomingMessageConsumer {
     private final LuckPermsPlugin plugin;
     private final ExpiringSet<UUID> receivedMessages;
     private final PushUpdateBuffer updateBuffer;
+    private final OutgoingMessageBuffer outgoingBuffer;
+    private final boolean binaryEncoding;
 
     private final MessengerProvider messengerProvider;
     private final Messenger messenger;
@@ -73,6 +82,8 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
         this.receivedMessages = new ExpiringSet<>(1, TimeUnit.HOURS);
         this.updateBuffer = new PushUpdateBuffer(plugin);
+        this.outgoingBuffer = new OutgoingMessageBuffer(plugin.getBootstrap().getScheduler(), this::sendMessages);
+        this.binaryEncoding = plugin.getConfiguration().get(ConfigKeys.MESSAGING_BINARY_ENCODING);
     }
 
     @Override
@@ -92,6 +103,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
     @Override
     public void close() {
+        this.outgoingBuffer.flush();
         this.messenger.close();
     }
 
@@ -108,20 +120,27 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
     @Override
     public void pushUpdate() {
-        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
-            UUID requestId = generatePingId();
-            this.plugin.getLogger().info("[Messaging] Sending ping with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UpdateMessageImpl(requestId));
-        });
+        this.outgoingBuffer.add(new UpdateMessageImpl(generatePingId()));
+    }
+
+    @Override
+    public void pushUpdate(Set<String> groups, Set<String> tracks) {
+        this.outgoingBuffer.add(new UpdateMessageImpl(generatePingId(), groups, tracks));
+    }
+
+    @Override
+    public CompletableFuture<Void> requestGroupUpdate(String groupName) {
+        return this.updateBuffer.requestGroup(groupName);
+    }
+
+    @Override
+    public CompletableFuture<Void> requestTrackUpdate(String trackName) {
+        return this.updateBuffer.requestTrack(trackName);
     }
 
     @Override
     public void pushUserUpdate(User user) {
-        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
-            UUID requestId = generatePingId();
-            this.plugin.getLogger().info("[Messaging] Sending user ping for '" + user.getPlainDisplayName() + "' with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
-        });
+        this.outgoingBuffer.add(new UserUpdateMessageImpl(generatePingId(), user.getUniqueId()));
     }
 
     @Override
@@ -133,11 +152,52 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
                 return;
             }
 
-            this.plugin.getLogger().info("[Messaging] Sending log with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new ActionLogMessageImpl(requestId, logEntry));
+            this.outgoingBuffer.add(new ActionLogMessageImpl(requestId, logEntry));
         });
     }
 
+    /**
+     * Sends messages which have been combined by the {@link OutgoingMessageBuffer}.
+     *
+     * @param messages the messages to send
+     */
+    private void sendMessages(List<AbstractMessage> messages) {
+        if (this.binaryEncoding && messages.size() > 1) {
+            for (AbstractMessage message : BatchMessageImpl.pack(messages, this::generatePingId)) {
+                if (message instanceof BatchMessageImpl) {
+                    BatchMessageImpl batch = (BatchMessageImpl) message;
+                    this.plugin.getLogger().info("[Messaging] Sending batch of " + batch.getMessages().size() + " messages with id: " + batch.getId());
+                    this.messenger.sendOutgoingMessage(batch);
+                } else {
+                    sendMessage(message);
+                }
+            }
+            return;
+        }
+
+        for (AbstractMessage message : messages) {
+            sendMessage(message);
+        }
+    }
+
+    private void sendMessage(AbstractMessage message) {
+        if (message instanceof UpdateMessageImpl && ((UpdateMessageImpl) message).isPartial()) {
+            UpdateMessageImpl update = (UpdateMessageImpl) message;
+            this.plugin.getLogger().info("[Messaging] Sending ping for groups " + update.getGroups() + " and tracks " + update.getTracks() + " with id: " + message.getId());
+        } else if (message instanceof UpdateMessageImpl) {
+            this.plugin.getLogger().info("[Messaging] Sending ping with id: " + message.getId());
+        } else if (message instanceof UserUpdateMessageImpl) {
+            UUID uniqueId = ((UserUpdateMessageImpl) message).getUserUniqueId();
+            User user = this.plugin.getUserManager().getIfLoaded(uniqueId);
+            String name = user != null ? user.getPlainDisplayName() : uniqueId.toString();
+            this.plugin.getLogger().info("[Messaging] Sending user ping for '" + name + "' with id: " + message.getId());
+        } else if (message instanceof ActionLogMessageImpl) {
+            this.plugin.getLogger().info("[Messaging] Sending log with id: " + message.getId());
+        }
+
+        this.messenger.sendOutgoingMessage(message);
+    }
+
     @Override
     public boolean consumeIncomingMessage(@NonNull Message message) {
         Objects.requireNonNull(message, "message");
@@ -146,6 +206,11 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             return false;
         }
 
+        if (message instanceof BatchMessageImpl) {
+            processIncomingBatch((BatchMessageImpl) message);
+            return true;
+        }
+
         // determine if the message can be handled by us
         boolean valid = message instanceof UpdateMessage ||
                 message instanceof UserUpdateMessage ||
@@ -174,6 +239,17 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
     private boolean consumeIncomingMessageAsString0(@NonNull String encodedString) {
         Objects.requireNonNull(encodedString, "encodedString");
+
+        if (BatchMessageImpl.isBatch(encodedString)) {
+            BatchMessageImpl batch = BatchMessageImpl.decode(encodedString);
+            if (!this.receivedMessages.add(batch.getId())) {
+                return false;
+            }
+
+            processIncomingBatch(batch);
+            return true;
+        }
+
         JsonObject parsed = Objects.requireNonNull(GsonProvider.normal().fromJson(encodedString, JsonObject.class), "parsed");
         JsonObject json = parsed.getAsJsonObject();
 
@@ -235,10 +311,32 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         return GsonProvider.normal().toJson(json);
     }
 
+    private void processIncomingBatch(BatchMessageImpl batch) {
+        this.plugin.getLogger().info("[Messaging] Received batch of " + batch.getMessages().size() + " messages with id: " + batch.getId());
+
+        for (Message message : batch.getMessages()) {
+            if (this.receivedMessages.add(message.getId())) {
+                processIncomingMessage(message);
+            }
+        }
+    }
+
     private void processIncomingMessage(Message message) {
         if (message instanceof UpdateMessage) {
             UpdateMessage msg = (UpdateMessage) message;
 
+            if (msg instanceof UpdateMessageImpl && ((UpdateMessageImpl) msg).isPartial()) {
+                UpdateMessageImpl update = (UpdateMessageImpl) msg;
+                this.plugin.getLogger().info("[Messaging] Received update ping for groups " + update.getGroups() + " and tracks " + update.getTracks() + " with id: " + msg.getId());
+
+                if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msg.getId())) {
+                    return;
+                }
+
+                this.plugin.getBootstrap().getScheduler().executeAsync(new PartialSyncTask(this.plugin, update.getGroups(), update.getTracks()));
+                return;
+            }
+
             this.plugin.getLogger().info("[Messaging] Received update ping with id: " + msg.getId());
 
             if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msg.getId())) {
@@ -271,14 +369,73 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         }
     }
 
+    /**
+     * Buffers outgoing update pings.
+     *
+     * <p>Requests made within the buffer period are combined into a single ping.
+     * If only specific groups and tracks were requested, the ping carries their names
+     * so that receivers can reload just those. Otherwise, a full update is sent.</p>
+     */
     private final class PushUpdateBuffer extends BufferedRequest<Void> {
+        private final Object lock = new Object();
+        private boolean fullUpdate = false;
+        private Set<String> groups = new HashSet<>();
+        private Set<String> tracks = new HashSet<>();
+
         PushUpdateBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
         }
 
+        @Override
+        public CompletableFuture<Void> request() {
+            synchronized (this.lock) {
+                this.fullUpdate = true;
+            }
+            return super.request();
+        }
+
+        @Override
+        public Void requestDirectly() {
+            synchronized (this.lock) {
+                this.fullUpdate = true;
+            }
+            return super.requestDirectly();
+        }
+
+        CompletableFuture<Void> requestGroup(String groupName) {
+            synchronized (this.lock) {
+                this.groups.add(groupName);
+            }
+            return super.request();
+        }
+
+        CompletableFuture<Void> requestTrack(String trackName) {
+            synchronized (this.lock) {
+                this.tracks.add(trackName);
+            }
+            return super.request();
+        }
+
         @Override
         protected Void perform() {
-            pushUpdate();
+            boolean fullUpdate;
+            Set<String> groups;
+            Set<String> tracks;
+            synchronized (this.lock) {
+                fullUpdate = this.fullUpdate;
+                groups = this.groups;
+                tracks = this.tracks;
+
+                this.fullUpdate = false;
+                this.groups = new HashSet<>();
+                this.tracks = new HashSet<>();
+            }
+
+            if (fullUpdate) {
+                pushUpdate();
+            } else if (!groups.isEmpty() || !tracks.isEmpty()) {
+                pushUpdate(groups, tracks);
+            }
             return null;
         }
     }
@@ -0,0 +1,122 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging;
+
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
+import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Combines outgoing messages sent within a short window of each other.
+ *
+ * <ul>
+ *     <li>Update messages are merged into one. A full update absorbs any partial updates.</li>
+ *     <li>Repeated user update messages for the same user are only sent once.</li>
+ *     <li>Log messages are sent in the order they were added.</li>
+ * </ul>
+ */
+public class OutgoingMessageBuffer {
+    private static final long WINDOW_MILLIS = 100;
+
+    private final SchedulerAdapter scheduler;
+    private final Consumer<List<AbstractMessage>> sender;
+
+    private final Object lock = new Object();
+    private UpdateMessageImpl update = null;
+    private final Map<UUID, UserUpdateMessageImpl> userUpdates = new LinkedHashMap<>();
+    private final List<AbstractMessage> logs = new ArrayList<>();
+    private boolean flushScheduled = false;
+
+    public OutgoingMessageBuffer(SchedulerAdapter scheduler, Consumer<List<AbstractMessage>> sender) {
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    public void add(AbstractMessage message) {
+        synchronized (this.lock) {
+            if (message instanceof UpdateMessageImpl) {
+                this.update = this.update == null ? (UpdateMessageImpl) message : merge(this.update, (UpdateMessageImpl) message);
+            } else if (message instanceof UserUpdateMessageImpl) {
+                this.userUpdates.putIfAbsent(((UserUpdateMessageImpl) message).getUserUniqueId(), (UserUpdateMessageImpl) message);
+            } else {
+                this.logs.add(message);
+            }
+
+            if (!this.flushScheduled) {
+                this.flushScheduled = true;
+                this.scheduler.asyncLater(this::flush, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void flush() {
+        List<AbstractMessage> messages;
+        synchronized (this.lock) {
+            this.flushScheduled = false;
+
+            messages = new ArrayList<>(1 + this.userUpdates.size() + this.logs.size());
+            if (this.update != null) {
+                messages.add(this.update);
+            }
+            messages.addAll(this.userUpdates.values());
+            messages.addAll(this.logs);
+
+            this.update = null;
+            this.userUpdates.clear();
+            this.logs.clear();
+        }
+
+        if (!messages.isEmpty()) {
+            this.sender.accept(messages);
+        }
+    }
+
+    private static UpdateMessageImpl merge(UpdateMessageImpl existing, UpdateMessageImpl other) {
+        if (!existing.isPartial()) {
+            return existing;
+        }
+        if (!other.isPartial()) {
+            return other;
+        }
+
+        Set<String> groups = new HashSet<>(existing.getGroups());
+        groups.addAll(other.getGroups());
+        Set<String> tracks = new HashSet<>(existing.getTracks());
+        tracks.addAll(other.getTracks());
+        return new UpdateMessageImpl(existing.getId(), groups, tracks);
+    }
+}
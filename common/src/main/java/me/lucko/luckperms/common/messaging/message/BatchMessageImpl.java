@@ -0,0 +1,289 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonObject;
+
+import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+
+import net.luckperms.api.messenger.message.Message;
+import net.luckperms.api.messenger.message.type.ActionLogMessage;
+import net.luckperms.api.messenger.message.type.UpdateMessage;
+import net.luckperms.api.messenger.message.type.UserUpdateMessage;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * A frame containing several messages, in a compact binary encoding.
+ *
+ * <p>The frame is encoded as {@link #PREFIX} followed by the base64 of:</p>
+ * <ul>
+ *     <li>the format version (byte)</li>
+ *     <li>the frame id (two longs)</li>
+ *     <li>the number of messages (varint)</li>
+ *     <li>for each message: its type (byte), its id (two longs) and its content</li>
+ * </ul>
+ *
+ * <p>Strings are encoded as a varint length followed by their UTF-8 bytes.</p>
+ */
+public class BatchMessageImpl extends AbstractMessage {
+    public static final String PREFIX = "lpbatch:";
+
+    private static final byte VERSION = 1;
+
+    /**
+     * The maximum length of an encoded frame, leaving room for the rest of a
+     * plugin message packet, which is limited to 32767 bytes
+     */
+    static final int MAX_ENCODED_LENGTH = 32000;
+
+    /** The maximum size of the version, frame id and message count (before base64) */
+    private static final int MAX_HEADER_SIZE = 1 + 16 + 5;
+
+    /** The maximum size of the encoded messages in a single frame (before base64) */
+    private static final int MAX_CONTENT_SIZE = (MAX_ENCODED_LENGTH - PREFIX.length()) / 4 * 3 - MAX_HEADER_SIZE;
+
+    private static final byte TYPE_UPDATE = 1;
+    private static final byte TYPE_USER_UPDATE = 2;
+    private static final byte TYPE_LOG = 3;
+
+    public static boolean isBatch(String encodedString) {
+        return encodedString.startsWith(PREFIX);
+    }
+
+    /**
+     * Packs the given messages into as few frames as possible.
+     *
+     * <p>Messages which are too large to fit in a frame on their own are
+     * returned as they are, in order, to be sent unbatched.</p>
+     *
+     * @param messages the messages
+     * @param idSupplier supplies ids for the frames
+     * @return the frames, and any messages too large to be batched
+     */
+    public static List<AbstractMessage> pack(List<? extends AbstractMessage> messages, Supplier<UUID> idSupplier) {
+        List<AbstractMessage> frames = new ArrayList<>();
+
+        List<Message> frameMessages = new ArrayList<>();
+        ByteArrayDataOutput frameContent = ByteStreams.newDataOutput();
+        int frameSize = 0;
+
+        for (AbstractMessage message : messages) {
+            byte[] encoded = encodeMessage(message);
+
+            if (!frameMessages.isEmpty() && frameSize + encoded.length > MAX_CONTENT_SIZE) {
+                frames.add(new BatchMessageImpl(idSupplier.get(), frameMessages, frameContent.toByteArray()));
+                frameMessages = new ArrayList<>();
+                frameContent = ByteStreams.newDataOutput();
+                frameSize = 0;
+            }
+
+            if (encoded.length > MAX_CONTENT_SIZE) {
+                frames.add(message);
+                continue;
+            }
+
+            frameMessages.add(message);
+            frameContent.write(encoded);
+            frameSize += encoded.length;
+        }
+
+        if (!frameMessages.isEmpty()) {
+            frames.add(new BatchMessageImpl(idSupplier.get(), frameMessages, frameContent.toByteArray()));
+        }
+        return frames;
+    }
+
+    public static BatchMessageImpl decode(String encodedString) {
+        byte[] buf = Base64.getDecoder().decode(encodedString.substring(PREFIX.length()));
+        ByteArrayDataInput in = ByteStreams.newDataInput(buf);
+
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported batch format version: " + version);
+        }
+
+        UUID id = readUuid(in);
+        int count = readVarInt(in);
+
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(decodeMessage(in));
+        }
+
+        return new BatchMessageImpl(id, messages, null);
+    }
+
+    private final List<Message> messages;
+    private final byte[] content;
+
+    private BatchMessageImpl(UUID id, List<Message> messages, byte[] content) {
+        super(id);
+        this.messages = ImmutableList.copyOf(messages);
+        this.content = content;
+    }
+
+    public List<Message> getMessages() {
+        return this.messages;
+    }
+
+    @Override
+    public @NonNull String asEncodedString() {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeByte(VERSION);
+        writeUuid(out, getId());
+        writeVarInt(out, this.messages.size());
+        if (this.content != null) {
+            out.write(this.content);
+        } else {
+            for (Message message : this.messages) {
+                out.write(encodeMessage(message));
+            }
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private static byte[] encodeMessage(Message message) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        if (message instanceof UpdateMessage) {
+            out.writeByte(TYPE_UPDATE);
+            writeUuid(out, message.getId());
+
+            if (message instanceof UpdateMessageImpl && ((UpdateMessageImpl) message).isPartial()) {
+                UpdateMessageImpl update = (UpdateMessageImpl) message;
+                out.writeBoolean(true);
+                writeStrings(out, update.getGroups());
+                writeStrings(out, update.getTracks());
+            } else {
+                out.writeBoolean(false);
+            }
+        } else if (message instanceof UserUpdateMessage) {
+            out.writeByte(TYPE_USER_UPDATE);
+            writeUuid(out, message.getId());
+            writeUuid(out, ((UserUpdateMessage) message).getUserUniqueId());
+        } else if (message instanceof ActionLogMessage) {
+            out.writeByte(TYPE_LOG);
+            writeUuid(out, message.getId());
+            writeString(out, GsonProvider.normal().toJson(ActionJsonSerializer.serialize(((ActionLogMessage) message).getAction())));
+        } else {
+            throw new IllegalArgumentException("Unknown message type: " + message.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    private static Message decodeMessage(ByteArrayDataInput in) {
+        byte type = in.readByte();
+        UUID id = readUuid(in);
+        switch (type) {
+            case TYPE_UPDATE: {
+                boolean partial = in.readBoolean();
+                if (!partial) {
+                    return new UpdateMessageImpl(id);
+                }
+                Set<String> groups = readStrings(in);
+                Set<String> tracks = readStrings(in);
+                return new UpdateMessageImpl(id, groups, tracks);
+            }
+            case TYPE_USER_UPDATE:
+                return new UserUpdateMessageImpl(id, readUuid(in));
+            case TYPE_LOG:
+                return new ActionLogMessageImpl(id, ActionJsonSerializer.deserialize(GsonProvider.normal().fromJson(readString(in), JsonObject.class)));
+            default:
+                throw new IllegalStateException("Unknown message type: " + type);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayDataOutput out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteArrayDataInput in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("VarInt too big");
+    }
+
+    private static void writeUuid(ByteArrayDataOutput out, UUID uuid) {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteArrayDataInput in) {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeString(ByteArrayDataOutput out, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteArrayDataInput in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(ByteArrayDataOutput out, Set<String> strings) {
+        writeVarInt(out, strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static Set<String> readStrings(ByteArrayDataInput in) {
+        int count = readVarInt(in);
+        ImmutableSet.Builder<String> strings = ImmutableSet.builder();
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings.build();
+    }
+}
@@ -25,30 +25,97 @@
 
 package me.lucko.luckperms.common.messaging.message;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.util.gson.JArray;
+import me.lucko.luckperms.common.util.gson.JObject;
 
 import net.luckperms.api.messenger.message.type.UpdateMessage;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Set;
 import java.util.UUID;
 
 public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage {
     public static final String TYPE = "update";
 
     public static UpdateMessageImpl decode(@Nullable JsonElement content, UUID id) {
-        return new UpdateMessageImpl(id);
+        // older versions send no content, and ignore it when receiving,
+        // in which case a full sync is performed.
+        if (content == null || !content.isJsonObject()) {
+            return new UpdateMessageImpl(id);
+        }
+
+        JsonObject object = content.getAsJsonObject();
+        return new UpdateMessageImpl(id, decodeNames(object.get("groups")), decodeNames(object.get("tracks")));
+    }
+
+    private static Set<String> decodeNames(@Nullable JsonElement element) {
+        if (element == null || !element.isJsonArray()) {
+            return ImmutableSet.of();
+        }
+
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (JsonElement name : element.getAsJsonArray()) {
+            names.add(name.getAsString());
+        }
+        return names.build();
     }
 
+    private final boolean partial;
+    private final Set<String> groups;
+    private final Set<String> tracks;
+
     public UpdateMessageImpl(UUID id) {
         super(id);
+        this.partial = false;
+        this.groups = ImmutableSet.of();
+        this.tracks = ImmutableSet.of();
+    }
+
+    public UpdateMessageImpl(UUID id, Set<String> groups, Set<String> tracks) {
+        super(id);
+        this.partial = true;
+        this.groups = ImmutableSet.copyOf(groups);
+        this.tracks = ImmutableSet.copyOf(tracks);
+    }
+
+    /**
+     * Gets if the update only concerns the groups and tracks given by
+     * {@link #getGroups()} and {@link #getTracks()}.
+     *
+     * <p>If false, the receiver should perform a full sync.</p>
+     *
+     * @return if the update is partial
+     */
+    public boolean isPartial() {
+        return this.partial;
+    }
+
+    public Set<String> getGroups() {
+        return this.groups;
+    }
+
+    public Set<String> getTracks() {
+        return this.tracks;
     }
 
     @Override
     public @NonNull String asEncodedString() {
-        return LuckPermsMessagingService.encodeMessageAsString(TYPE, getId(), null);
+        if (!this.partial) {
+            return LuckPermsMessagingService.encodeMessageAsString(TYPE, getId(), null);
+        }
+
+        return LuckPermsMessagingService.encodeMessageAsString(
+                TYPE, getId(), new JObject()
+                        .add("groups", new JArray().addAll(this.groups))
+                        .add("tracks", new JArray().addAll(this.tracks))
+                        .toJson()
+        );
     }
 }
@@ -36,6 +36,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -44,9 +45,19 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public abstract class AbstractSqlMessenger implements Messenger {
 
+    /** How long the dedicated polling connection is kept before it is returned to the pool */
+    private static final long POLL_CONNECTION_LIFETIME = TimeUnit.MINUTES.toMillis(5);
+
     private final IncomingMessageConsumer consumer;
     private long lastId = -1;
 
+    // a connection held open for polling, to avoid borrowing one from the pool for every poll
+    private final Object pollLock = new Object();
+    private Connection pollConnection;
+    private PreparedStatement latestIdStatement;
+    private PreparedStatement selectStatement;
+    private long pollConnectionOpened;
+
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private boolean closed = false;
 
@@ -103,33 +114,101 @@ public abstract class AbstractSqlMessenger implements Messenger {
         } finally {
             this.lock.readLock().unlock();
         }
+
+        onMessageSent();
     }
 
-    public void pollMessages() {
+    /**
+     * Called after a message has been written to the table.
+     */
+    protected void onMessageSent() {
+
+    }
+
+    /**
+     * Checks for and consumes any new messages.
+     *
+     * <p>A cheap probe for the latest id is made first, and rows are only
+     * selected if it has changed since the last poll.</p>
+     *
+     * @return true if any new messages were received
+     */
+    public boolean pollMessages() {
         this.lock.readLock().lock();
         if (this.closed) {
             this.lock.readLock().unlock();
-            return;
+            return false;
         }
 
-        try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("SELECT `id`, `msg` FROM `" + getTableName() + "` WHERE `id` > ? AND (NOW() - `time` < 30)")) {
-                ps.setLong(1, this.lastId);
-                try (ResultSet rs = ps.executeQuery()) {
+        synchronized (this.pollLock) {
+            try {
+                preparePollConnection();
+
+                long latestId = -1;
+                try (ResultSet rs = this.latestIdStatement.executeQuery()) {
+                    if (rs.next()) {
+                        latestId = rs.getLong("latest");
+                    }
+                }
+
+                if (latestId <= this.lastId) {
+                    // the table may have been cleared
+                    this.lastId = Math.min(this.lastId, latestId);
+                    return false;
+                }
+
+                boolean received = false;
+                this.selectStatement.setLong(1, this.lastId);
+                try (ResultSet rs = this.selectStatement.executeQuery()) {
                     while (rs.next()) {
                         long id = rs.getLong("id");
                         this.lastId = Math.max(this.lastId, id);
 
                         String message = rs.getString("msg");
                         this.consumer.consumeIncomingMessageAsString(message);
+                        received = true;
                     }
                 }
+                return received;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                closePollConnection();
+                return false;
+            } finally {
+                this.lock.readLock().unlock();
             }
+        }
+    }
+
+    private void preparePollConnection() throws SQLException {
+        if (this.pollConnection != null && System.currentTimeMillis() - this.pollConnectionOpened > POLL_CONNECTION_LIFETIME) {
+            // return the connection to the pool periodically, so that it can be retired
+            closePollConnection();
+        }
+
+        if (this.pollConnection == null) {
+            this.pollConnection = getConnection();
+            this.pollConnectionOpened = System.currentTimeMillis();
+            this.latestIdStatement = this.pollConnection.prepareStatement("SELECT MAX(`id`) as `latest` FROM `" + getTableName() + "`");
+            this.selectStatement = this.pollConnection.prepareStatement("SELECT `id`, `msg` FROM `" + getTableName() + "` WHERE `id` > ? AND (NOW() - `time` < 30)");
+        }
+    }
+
+    private void closePollConnection() {
+        if (this.pollConnection == null) {
+            return;
+        }
+
+        try {
+            // closes the statements too
+            this.pollConnection.close();
         } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            this.lock.readLock().unlock();
+            // ignore
         }
+
+        this.pollConnection = null;
+        this.latestIdStatement = null;
+        this.selectStatement = null;
     }
 
     public void runHousekeeping() {
@@ -155,6 +234,9 @@ public abstract class AbstractSqlMessenger implements Messenger {
         this.lock.writeLock().lock();
         try {
             this.closed = true;
+            synchronized (this.pollLock) {
+                closePollConnection();
+            }
         } finally {
             this.lock.writeLock().unlock();
         }
@@ -37,9 +37,21 @@ import java.sql.SQLException;
 import java.util.concurrent.TimeUnit;
 
 public class SqlMessenger extends AbstractSqlMessenger {
+
+    /** The poll interval used while messages are being exchanged */
+    private static final long MIN_POLL_INTERVAL = 500;
+    /** The poll interval which idle polling backs off to */
+    private static final long MAX_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(8);
+
     private final LuckPermsPlugin plugin;
     private final SqlStorage sqlStorage;
 
+    private final Object pollScheduleLock = new Object();
+    private long pollInterval = MIN_POLL_INTERVAL;
+    private boolean polling = false;
+    private int pollGeneration = 0;
+    private boolean closing = false;
+
     private SchedulerTask pollTask;
     private SchedulerTask housekeepingTask;
 
@@ -59,13 +71,73 @@ public class SqlMessenger extends AbstractSqlMessenger {
 
         // schedule poll tasks
         SchedulerAdapter scheduler = this.plugin.getBootstrap().getScheduler();
-        this.pollTask = scheduler.asyncRepeating(this::pollMessages, 1, TimeUnit.SECONDS);
+        schedulePoll(MIN_POLL_INTERVAL);
         this.housekeepingTask = scheduler.asyncRepeating(this::runHousekeeping, 30, TimeUnit.SECONDS);
     }
 
+    private void schedulePoll(long delay) {
+        synchronized (this.pollScheduleLock) {
+            if (this.closing) {
+                return;
+            }
+            int generation = this.pollGeneration;
+            this.pollTask = this.plugin.getBootstrap().getScheduler().asyncLater(() -> poll(generation), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll(int generation) {
+        synchronized (this.pollScheduleLock) {
+            // the task was superseded by a reschedule, but had already started
+            if (this.closing || generation != this.pollGeneration) {
+                return;
+            }
+            this.polling = true;
+        }
+
+        boolean received = false;
+        try {
+            received = pollMessages();
+        } finally {
+            synchronized (this.pollScheduleLock) {
+                this.polling = false;
+
+                // poll quickly while messages are being exchanged, and back off exponentially when idle
+                if (received) {
+                    this.pollInterval = MIN_POLL_INTERVAL;
+                } else {
+                    this.pollInterval = Math.min(this.pollInterval * 2, MAX_POLL_INTERVAL);
+                }
+                schedulePoll(this.pollInterval);
+            }
+        }
+    }
+
+    @Override
+    protected void onMessageSent() {
+        // other servers are likely to reply, so start polling quickly again
+        synchronized (this.pollScheduleLock) {
+            if (this.closing || this.polling || this.pollInterval == MIN_POLL_INTERVAL) {
+                this.pollInterval = MIN_POLL_INTERVAL;
+                return;
+            }
+
+            this.pollInterval = MIN_POLL_INTERVAL;
+            this.pollGeneration++;
+            SchedulerTask task = this.pollTask;
+            if (task != null) {
+                task.cancel();
+            }
+            schedulePoll(MIN_POLL_INTERVAL);
+        }
+    }
+
     @Override
     public void close() {
-        SchedulerTask task = this.pollTask;
+        SchedulerTask task;
+        synchronized (this.pollScheduleLock) {
+            this.closing = true;
+            task = this.pollTask;
+        }
         if (task != null) {
             task.cancel();
         }
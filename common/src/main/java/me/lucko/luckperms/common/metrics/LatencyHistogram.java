@@ -0,0 +1,189 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size histogram of latencies, measured in nanoseconds.
+ *
+ * <p>Values are recorded into log-linear buckets, in the style of HdrHistogram: each
+ * power of two is split into a number of linear sub-buckets, so a recorded value is
+ * always reported to within 12.5% of its actual value, using a constant amount of
+ * memory and without allocating on the recording thread.</p>
+ */
+public final class LatencyHistogram {
+
+    /** The number of linear sub-buckets in each power of two, as a power of two */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Values are capped at 2^40 nanoseconds (about 18 minutes) */
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        } else if (nanos > MAX_VALUE) {
+            nanos = MAX_VALUE;
+        }
+
+        this.counts.incrementAndGet(bucketIndex(nanos));
+        this.sum.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     *
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Takes a snapshot of the values recorded so far.
+     *
+     * @return a snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.counts.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, this.sum.sum());
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the highest value which is recorded into the given bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value in the bucket
+     */
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = SUB_BUCKETS + (index % SUB_BUCKETS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * A point in time view of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return the count
+         */
+        public long count() {
+            return this.count;
+        }
+
+        /**
+         * Gets the sum of the values recorded, in nanoseconds.
+         *
+         * @return the sum
+         */
+        public long sum() {
+            return this.sum;
+        }
+
+        /**
+         * Gets the value at the given percentile, in nanoseconds.
+         *
+         * @param percentile the percentile, between 0 and 1
+         * @return the value, or 0 if nothing has been recorded
+         */
+        public long percentile(double percentile) {
+            if (this.count == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(percentile * this.count));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= target) {
+                    return highestEquivalentValue(i);
+                }
+            }
+            return MAX_VALUE;
+        }
+
+        /**
+         * Gets the highest value recorded, in nanoseconds.
+         *
+         * @return the highest value, or 0 if nothing has been recorded
+         */
+        public long max() {
+            for (int i = this.counts.length - 1; i >= 0; i--) {
+                if (this.counts[i] != 0) {
+                    return highestEquivalentValue(i);
+                }
+            }
+            return 0;
+        }
+    }
+
+}
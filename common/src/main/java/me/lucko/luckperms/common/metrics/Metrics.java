@@ -0,0 +1,185 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records always-on metrics about permission checks, cached data and context
+ * calculations, and storage operations.
+ *
+ * <p>Everything recorded here is cheap enough to do on every call: counters are
+ * {@link LongAdder}s and latencies are recorded into fixed size
+ * {@link LatencyHistogram}s.</p>
+ */
+public class Metrics {
+
+    /** The maximum number of distinct permissions tracked individually */
+    private static final int MAX_TRACKED_PERMISSIONS = 1000;
+
+    private final LongAdder permissionChecks = new LongAdder();
+    private final LatencyHistogram permissionCalculations = new LatencyHistogram();
+    private final Map<String, PermissionMetrics> permissions = new ConcurrentHashMap<>();
+    private final LongAdder untrackedPermissionChecks = new LongAdder();
+
+    private final LatencyHistogram permissionDataCalculations = new LatencyHistogram();
+    private final LatencyHistogram metaDataCalculations = new LatencyHistogram();
+    private final LatencyHistogram contextCalculations = new LatencyHistogram();
+    private final LatencyHistogram eventDrivenContextCalculations = new LatencyHistogram();
+
+    private final Map<String, StorageOperationMetrics> storageOperations = new ConcurrentHashMap<>();
+
+    /**
+     * Records a permission check, made against a permission calculator.
+     *
+     * <p>Permissions are tracked by the key they were checked with, so this
+     * doesn't need to normalise the case on every (cached) check.</p>
+     *
+     * @param permission the permission, as it was checked
+     */
+    public void recordPermissionCheck(String permission) {
+        this.permissionChecks.increment();
+
+        PermissionMetrics metrics = getPermission(permission);
+        if (metrics != null) {
+            metrics.checks.increment();
+        } else {
+            this.untrackedPermissionChecks.increment();
+        }
+    }
+
+    /**
+     * Records the calculation of a permission check result, after a lookup cache miss.
+     *
+     * @param permission the permission, as it was checked
+     * @param nanos the time taken
+     */
+    public void recordPermissionCalculation(String permission, long nanos) {
+        this.permissionCalculations.record(nanos);
+
+        PermissionMetrics metrics = getPermission(permission);
+        if (metrics != null) {
+            metrics.calculations.record(nanos);
+        }
+    }
+
+    private PermissionMetrics getPermission(String permission) {
+        PermissionMetrics metrics = this.permissions.get(permission);
+        if (metrics == null && this.permissions.size() < MAX_TRACKED_PERMISSIONS) {
+            metrics = this.permissions.computeIfAbsent(permission, p -> new PermissionMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the metrics for the storage operation with the given name.
+     *
+     * @param operation the name of the operation
+     * @return the metrics
+     */
+    public StorageOperationMetrics storageOperation(String operation) {
+        return this.storageOperations.computeIfAbsent(operation, o -> new StorageOperationMetrics());
+    }
+
+    public long getPermissionChecks() {
+        return this.permissionChecks.sum();
+    }
+
+    public long getUntrackedPermissionChecks() {
+        return this.untrackedPermissionChecks.sum();
+    }
+
+    public LatencyHistogram getPermissionCalculations() {
+        return this.permissionCalculations;
+    }
+
+    public Map<String, PermissionMetrics> getPermissions() {
+        return Collections.unmodifiableMap(this.permissions);
+    }
+
+    public LatencyHistogram getPermissionDataCalculations() {
+        return this.permissionDataCalculations;
+    }
+
+    public LatencyHistogram getMetaDataCalculations() {
+        return this.metaDataCalculations;
+    }
+
+    public LatencyHistogram getContextCalculations() {
+        return this.contextCalculations;
+    }
+
+    public LatencyHistogram getEventDrivenContextCalculations() {
+        return this.eventDrivenContextCalculations;
+    }
+
+    public Map<String, StorageOperationMetrics> getStorageOperations() {
+        return Collections.unmodifiableMap(this.storageOperations);
+    }
+
+    /**
+     * Metrics for checks of a single permission.
+     */
+    public static final class PermissionMetrics {
+        private final LongAdder checks = new LongAdder();
+        private final LatencyHistogram calculations = new LatencyHistogram();
+
+        public long getChecks() {
+            return this.checks.sum();
+        }
+
+        public LatencyHistogram getCalculations() {
+            return this.calculations;
+        }
+    }
+
+    /**
+     * Metrics for a single type of storage operation.
+     */
+    public static final class StorageOperationMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        public void record(long nanos, boolean failed) {
+            this.latency.record(nanos);
+            if (failed) {
+                this.failures.increment();
+            }
+        }
+
+        public LatencyHistogram getLatency() {
+            return this.latency;
+        }
+
+        public long getFailures() {
+            return this.failures.sum();
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.metrics.Metrics.PermissionMetrics;
+import me.lucko.luckperms.common.metrics.Metrics.StorageOperationMetrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes {@link Metrics} in the Prometheus text exposition format.
+ *
+ * <p>The output is intended to be picked up from a local file, for example by the
+ * node_exporter textfile collector.</p>
+ */
+public final class PrometheusExporter {
+    private PrometheusExporter() {}
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Writes the metrics to the given file.
+     *
+     * <p>The file is written alongside and then moved into place, so readers never
+     * see a partially written file.</p>
+     *
+     * @param metrics the metrics
+     * @param file the file
+     * @throws IOException if an error occurs whilst writing
+     */
+    public static void export(Metrics metrics, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            write(metrics, writer);
+        }
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the metrics to the given writer.
+     *
+     * @param metrics the metrics
+     * @param writer the writer
+     * @throws IOException if an error occurs whilst writing
+     */
+    public static void write(Metrics metrics, Writer writer) throws IOException {
+        LatencyHistogram.Snapshot calculations = metrics.getPermissionCalculations().snapshot();
+        long checks = metrics.getPermissionChecks();
+
+        header(writer, "luckperms_permission_checks_total", "counter", "The number of permission checks made against cached permission data");
+        sample(writer, "luckperms_permission_checks_total", "", checks);
+
+        header(writer, "luckperms_permission_lookup_cache_hits_total", "counter", "The number of permission checks answered from the lookup cache");
+        sample(writer, "luckperms_permission_lookup_cache_hits_total", "", Math.max(0, checks - calculations.count()));
+
+        header(writer, "luckperms_permission_lookup_cache_misses_total", "counter", "The number of permission checks which had to be calculated");
+        sample(writer, "luckperms_permission_lookup_cache_misses_total", "", calculations.count());
+
+        header(writer, "luckperms_permission_calculation_seconds", "summary", "The time taken to calculate the result of a permission check");
+        summary(writer, "luckperms_permission_calculation_seconds", "", calculations);
+
+        header(writer, "luckperms_permission_untracked_checks_total", "counter", "The number of checks for permissions which are not tracked individually");
+        sample(writer, "luckperms_permission_untracked_checks_total", "", metrics.getUntrackedPermissionChecks());
+
+        Map<String, PermissionMetrics> permissions = new TreeMap<>(metrics.getPermissions());
+
+        header(writer, "luckperms_permission_node_checks_total", "counter", "The number of checks made for each permission");
+        for (Map.Entry<String, PermissionMetrics> e : permissions.entrySet()) {
+            sample(writer, "luckperms_permission_node_checks_total", label("permission", e.getKey()), e.getValue().getChecks());
+        }
+
+        header(writer, "luckperms_permission_node_calculation_seconds", "summary", "The time taken to calculate the result of a check for each permission");
+        for (Map.Entry<String, PermissionMetrics> e : permissions.entrySet()) {
+            summary(writer, "luckperms_permission_node_calculation_seconds", label("permission", e.getKey()), e.getValue().getCalculations().snapshot());
+        }
+
+        header(writer, "luckperms_cached_data_calculation_seconds", "summary", "The time taken to calculate cached permission and meta data");
+        summary(writer, "luckperms_cached_data_calculation_seconds", label("type", "permission"), metrics.getPermissionDataCalculations().snapshot());
+        summary(writer, "luckperms_cached_data_calculation_seconds", label("type", "meta"), metrics.getMetaDataCalculations().snapshot());
+
+        header(writer, "luckperms_context_calculation_seconds", "summary", "The time taken to calculate the contexts of a subject");
+        summary(writer, "luckperms_context_calculation_seconds", label("type", "polled"), metrics.getContextCalculations().snapshot());
+        summary(writer, "luckperms_context_calculation_seconds", label("type", "event_driven"), metrics.getEventDrivenContextCalculations().snapshot());
+
+        Map<String, StorageOperationMetrics> storageOperations = new TreeMap<>(metrics.getStorageOperations());
+
+        header(writer, "luckperms_storage_operation_seconds", "summary", "The time taken to perform each type of storage operation");
+        for (Map.Entry<String, StorageOperationMetrics> e : storageOperations.entrySet()) {
+            summary(writer, "luckperms_storage_operation_seconds", label("operation", e.getKey()), e.getValue().getLatency().snapshot());
+        }
+
+        header(writer, "luckperms_storage_operation_failures_total", "counter", "The number of failed storage operations of each type");
+        for (Map.Entry<String, StorageOperationMetrics> e : storageOperations.entrySet()) {
+            sample(writer, "luckperms_storage_operation_failures_total", label("operation", e.getKey()), e.getValue().getFailures());
+        }
+    }
+
+    private static void header(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer writer, String name, String labels, long value) throws IOException {
+        writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + value + "\n");
+    }
+
+    private static void sample(Writer writer, String name, String labels, double value) throws IOException {
+        writer.write(name + (labels.isEmpty() ? "" : "{" + labels + "}") + " " + value + "\n");
+    }
+
+    private static void summary(Writer writer, String name, String labels, LatencyHistogram.Snapshot snapshot) throws IOException {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double quantile : QUANTILES) {
+            sample(writer, name, prefix + label("quantile", String.valueOf(quantile)), toSeconds(snapshot.percentile(quantile)));
+        }
+        sample(writer, name + "_sum", labels, toSeconds(snapshot.sum()));
+        sample(writer, name + "_count", labels, snapshot.count());
+    }
+
+    private static String label(String name, String value) {
+        StringBuilder sb = new StringBuilder(name.length() + value.length() + 3);
+        sb.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / 1_000_000_000d;
+    }
+
+}
@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.model;
 
+import com.google.common.collect.MapMaker;
+
 import me.lucko.luckperms.common.api.implementation.ApiGroup;
 import me.lucko.luckperms.common.cache.Cache;
 import me.lucko.luckperms.common.cacheddata.GroupCachedDataManager;
@@ -40,9 +42,11 @@ import net.luckperms.api.query.QueryOptions;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 
 public class Group extends PermissionHolder {
     private final ApiGroup apiProxy = new ApiGroup(this);
@@ -67,6 +71,12 @@ public class Group extends PermissionHolder {
      */
     private final GroupCachedDataManager cachedData;
 
+    /**
+     * The holders which inherit from this group, and whose cached data
+     * may therefore have been resolved from it
+     */
+    private final Set<PermissionHolder> dependents = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
     public Group(String name, LuckPermsPlugin plugin) {
         super(plugin, name.toLowerCase(Locale.ROOT));
         this.name = getIdentifier().getName();
@@ -84,6 +94,26 @@ public class Group extends PermissionHolder {
         this.displayNameCache.invalidate();
     }
 
+    /**
+     * Records that the given holder inherits from this group.
+     *
+     * @param holder the holder
+     */
+    public void registerDependent(PermissionHolder holder) {
+        this.dependents.add(holder);
+    }
+
+    /**
+     * Invalidates the cached data of this group, and of all holders which
+     * inherit from it.
+     */
+    public void invalidateDependentCaches() {
+        this.cachedData.invalidate();
+        for (PermissionHolder dependent : this.dependents) {
+            dependent.getCachedData().invalidate();
+        }
+    }
+
     // name getters
     public String getName() {
         return this.name;
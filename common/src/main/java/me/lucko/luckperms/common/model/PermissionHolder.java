@@ -60,6 +60,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
@@ -67,6 +68,7 @@ import java.util.Map;
 import java.util.OptionalInt;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
@@ -129,6 +131,11 @@ public abstract class PermissionHolder {
      */
     private final Comparator<? super PermissionHolder> inheritanceComparator;
 
+    /**
+     * Incremented each time the inheritance nodes held by this holder change
+     */
+    private final AtomicInteger inheritanceVersion = new AtomicInteger(0);
+
     /**
      * Creates a new instance
      *
@@ -175,6 +182,23 @@ public abstract class PermissionHolder {
         return this.identifier;
     }
 
+    /**
+     * Gets the current version of the inheritance nodes held by this holder.
+     *
+     * @return the version
+     */
+    public int getInheritanceVersion() {
+        return this.inheritanceVersion.get();
+    }
+
+    /**
+     * Marks the inheritance nodes held by this holder as changed, invalidating
+     * any memoized traversals which start at this holder.
+     */
+    public void invalidateInheritanceVersion() {
+        this.inheritanceVersion.incrementAndGet();
+    }
+
     /**
      * Gets the formatted display name of this permission holder
      * (for use in commands, etc)
@@ -216,6 +240,22 @@ public abstract class PermissionHolder {
         getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
     }
 
+    /**
+     * Updates the holders caches following a change to its nodes.
+     *
+     * <p>If possible, the changes are applied to the existing cached data in place,
+     * otherwise the caches are invalidated.</p>
+     *
+     * @param changes the changes
+     */
+    protected void invalidateCache(Difference<Node> changes) {
+        if (!getCachedData().applyChanges(changes)) {
+            invalidateCache();
+            return;
+        }
+        getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+    }
+
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
         // TODO: should we attempt to "replay" existing changes on top of the new data?
         normalData().discardChanges();
@@ -312,6 +352,33 @@ public abstract class PermissionHolder {
         return nodes;
     }
 
+    /**
+     * Finds the first node matching the predicate, in the same order as
+     * {@link #resolveInheritedNodes(QueryOptions)}.
+     *
+     * @param queryOptions the query options
+     * @param predicate the predicate
+     * @return the first matching node, or null
+     */
+    public @Nullable Node findFirstInheritedNode(QueryOptions queryOptions, Predicate<? super Node> predicate) {
+        Iterable<PermissionHolder> holders;
+        if (queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
+            holders = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions).traverse(this);
+        } else {
+            holders = Collections.singletonList(this);
+        }
+
+        for (PermissionHolder holder : holders) {
+            for (DataType dataType : holder.queryOrder(queryOptions)) {
+                Node node = holder.getData(dataType).findFirst(queryOptions, predicate);
+                if (node != null) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
     public <T extends Node> List<T> resolveInheritedNodes(NodeType<T> type, QueryOptions queryOptions) {
         if (!queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
             return getOwnNodes(type, queryOptions);
@@ -431,7 +498,7 @@ public abstract class PermissionHolder {
     private boolean auditTemporaryNodes(DataType dataType) {
         Difference<Node> result = getData(dataType).removeIf(Node::hasExpired);
         if (!result.isEmpty()) {
-            invalidateCache();
+            invalidateCache(result);
         }
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, result);
         return !result.isEmpty();
@@ -464,7 +531,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).add(node);
-        invalidateCache();
+        invalidateCache(changes);
         if (callEvent) {
             this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
         }
@@ -501,7 +568,7 @@ public abstract class PermissionHolder {
                 if (newNode != null) {
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -519,7 +586,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).remove(node);
-        invalidateCache();
+        invalidateCache(changes);
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
         return DataMutateResult.SUCCESS;
@@ -541,7 +608,7 @@ public abstract class PermissionHolder {
 
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -27,12 +27,28 @@ package me.lucko.luckperms.common.model.manager.group;
 
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Throwing;
 
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractGroupManager<T extends Group> extends AbstractManager<String, Group, T> implements GroupManager<T> {
 
+    private final LuckPermsPlugin plugin;
+
+    /** The number of bulk loads in progress */
+    private final AtomicInteger bulkLoads = new AtomicInteger(0);
+
+    /** If a new group has been loaded since caches were last invalidated */
+    private final AtomicBoolean newGroups = new AtomicBoolean(false);
+
+    public AbstractGroupManager(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
     @Override
     public T getByDisplayName(String name) {
         // try to get an exact match first
@@ -60,6 +76,55 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return null;
     }
 
+    @Override
+    public void bulkLoad(Throwing.Runnable task) throws Exception {
+        this.bulkLoads.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            this.bulkLoads.decrementAndGet();
+            checkNewGroups();
+        }
+    }
+
+    @Override
+    public T getOrMake(String id) {
+        boolean loaded = isLoaded(id);
+        T group = super.getOrMake(id);
+        if (!loaded) {
+            this.newGroups.set(true);
+            checkNewGroups();
+        }
+        return group;
+    }
+
+    /**
+     * Invalidates caches if new groups have been loaded, unless a bulk load is
+     * in progress, in which case the invalidation is deferred until it completes.
+     */
+    private void checkNewGroups() {
+        if (this.bulkLoads.get() == 0 && this.newGroups.getAndSet(false)) {
+            invalidateForNewGroups();
+        }
+    }
+
+    private void invalidateForNewGroups() {
+        // a newly loaded group may be the parent of an existing holder, which
+        // won't yet have been registered as a dependent of the group
+        this.plugin.getInheritanceGraphFactory().invalidate();
+        invalidateAllGroupCaches();
+        this.plugin.getUserManager().invalidateAllUserCaches();
+    }
+
+    @Override
+    public void unload(String id) {
+        T group = id == null ? null : getIfLoaded(id);
+        super.unload(id);
+        if (group != null) {
+            group.getPlugin().getInheritanceGraphFactory().invalidate();
+        }
+    }
+
     @Override
     protected String sanitizeIdentifier(String s) {
         return s.toLowerCase(Locale.ROOT);
@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.model.manager.group;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.Manager;
+import me.lucko.luckperms.common.util.Throwing;
 
 public interface GroupManager<T extends Group> extends Manager<String, Group, T> {
 
@@ -44,6 +45,15 @@ public interface GroupManager<T extends Group> extends Manager<String, Group, T>
      */
     T getByDisplayName(String name);
 
+    /**
+     * Runs a task which loads a number of groups, invalidating caches once after
+     * the task has completed, instead of once for each newly loaded group.
+     *
+     * @param task the task
+     * @throws Exception if the task throws an exception
+     */
+    void bulkLoad(Throwing.Runnable task) throws Exception;
+
     /**
      * Invalidates the cached data for *loaded* groups.
      */
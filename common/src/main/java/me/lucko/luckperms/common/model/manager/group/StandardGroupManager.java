@@ -32,6 +32,7 @@ public class StandardGroupManager extends AbstractGroupManager<Group> {
     private final LuckPermsPlugin plugin;
 
     public StandardGroupManager(LuckPermsPlugin plugin) {
+        super(plugin);
         this.plugin = plugin;
     }
 
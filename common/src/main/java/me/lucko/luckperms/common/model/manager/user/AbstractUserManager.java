@@ -32,7 +32,6 @@ import me.lucko.luckperms.common.model.manager.AbstractManager;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.node.types.Inheritance;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
-import me.lucko.luckperms.common.util.CompletableFutures;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 
 import net.luckperms.api.model.data.DataType;
@@ -166,9 +165,7 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         Set<UUID> ids = new HashSet<>(getAll().keySet());
         ids.addAll(this.plugin.getBootstrap().getOnlinePlayers());
 
-        return ids.stream()
-                .map(id -> this.plugin.getStorage().loadUser(id, null))
-                .collect(CompletableFutures.collector());
+        return this.plugin.getStorage().loadUsers(ids).thenAccept(users -> {});
     }
 
     @Override
@@ -39,6 +39,8 @@ import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -115,6 +117,8 @@ public interface NodeMap {
 
     void forEach(QueryOptions filter, Consumer<? super Node> consumer);
 
+    @Nullable Node findFirst(QueryOptions filter, Predicate<? super Node> predicate);
+
     void copyTo(Collection<? super Node> collection);
 
     void copyTo(ImmutableCollection.Builder<? super Node> collection);
@@ -37,6 +37,8 @@ import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.Flag;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,6 +47,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Base implementation of {@link NodeMap} query methods.
@@ -120,6 +123,35 @@ abstract class NodeMapBase implements NodeMap {
         }
     }
 
+    @Override
+    public @Nullable Node findFirst(QueryOptions filter, Predicate<? super Node> predicate) {
+        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map().entrySet()) {
+            if (!filter.satisfies(e.getKey(), defaultSatisfyMode())) {
+                continue;
+            }
+
+            if (normalNodesExcludeTest(filter, e.getKey())) {
+                if (inheritanceNodesIncludeTest(filter, e.getKey())) {
+                    SortedSet<InheritanceNode> inheritanceNodes = inheritanceMap().get(e.getKey());
+                    if (inheritanceNodes != null) {
+                        for (InheritanceNode node : inheritanceNodes) {
+                            if (predicate.test(node)) {
+                                return node;
+                            }
+                        }
+                    }
+                }
+            } else {
+                for (Node node : e.getValue()) {
+                    if (predicate.test(node)) {
+                        return node;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public void copyTo(Collection<? super Node> collection) {
         for (SortedSet<Node> values : map().values()) {
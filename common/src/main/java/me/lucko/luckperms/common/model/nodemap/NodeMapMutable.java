@@ -41,6 +41,7 @@ import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeEqualityPredicate;
 import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
 import net.luckperms.api.node.types.InheritanceNode;
+import net.luckperms.api.node.types.WeightNode;
 
 import java.util.Iterator;
 import java.util.Optional;
@@ -141,6 +142,11 @@ public class NodeMapMutable extends NodeMapBase {
             // mark that we added the node in the results
             result.recordChange(ChangeType.ADD, node);
 
+            // schedule the holder to be audited when the node expires
+            if (node.hasExpiry()) {
+                this.holder.getPlugin().getExpiryScheduler().schedule(this.holder, node);
+            }
+
             // remove any others that were in the set already with a different value/expiry time
             removeMatchingButNotSame(nodes.iterator(), node, result);
 
@@ -159,6 +165,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -189,6 +196,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -242,6 +250,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -258,6 +267,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -277,6 +287,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -333,6 +344,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
@@ -352,9 +364,26 @@ public class NodeMapMutable extends NodeMapBase {
             this.lock.unlock();
         }
 
+        checkInheritanceChanges(result);
         return result;
     }
 
+    /**
+     * Invalidates the memoized inheritance traversals affected by the given
+     * changes, if they affect the structure of the inheritance graph.
+     *
+     * @param changes the changes
+     */
+    private void checkInheritanceChanges(Difference<Node> changes) {
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            Node node = change.value();
+            if (node instanceof InheritanceNode || node instanceof WeightNode) {
+                this.holder.getPlugin().getInheritanceGraphFactory().invalidate(this.holder);
+                return;
+            }
+        }
+    }
+
     @Override
     public Difference<Node> setContent(Iterable<? extends Node> set) {
         Difference<Node> result = new Difference<>();
@@ -37,6 +37,8 @@ import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -181,6 +183,7 @@ public class RecordedNodeMap implements NodeMap {
     @Override public Map<ImmutableContextSet, Collection<InheritanceNode>> inheritanceAsMap() { return this.delegate.inheritanceAsMap(); }
     @Override public void forEach(Consumer<? super Node> consumer) { this.delegate.forEach(consumer); }
     @Override public void forEach(QueryOptions filter, Consumer<? super Node> consumer) { this.delegate.forEach(filter, consumer); }
+    @Override public @Nullable Node findFirst(QueryOptions filter, Predicate<? super Node> predicate) { return this.delegate.findFirst(filter, predicate); }
     @Override public void copyTo(Collection<? super Node> collection) { this.delegate.copyTo(collection); }
     @Override public void copyTo(ImmutableCollection.Builder<? super Node> collection) { this.delegate.copyTo(collection); }
     @Override public void copyTo(Collection<? super Node> collection, QueryOptions filter) { this.delegate.copyTo(collection, filter); }
@@ -29,6 +29,7 @@ import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.ApiRegistrationUtil;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.CalculatorInterner;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.config.generic.adapter.ConfigurationAdapter;
@@ -40,7 +41,6 @@ import me.lucko.luckperms.common.dependencies.Dependency;
 import me.lucko.luckperms.common.dependencies.DependencyManager;
 import me.lucko.luckperms.common.event.AbstractEventBus;
 import me.lucko.luckperms.common.event.EventDispatcher;
-import me.lucko.luckperms.common.event.gen.GeneratedEventClass;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.http.BytesocksClient;
@@ -50,6 +50,7 @@ import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
+import me.lucko.luckperms.common.metrics.Metrics;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.StorageFactory;
@@ -57,7 +58,8 @@ import me.lucko.luckperms.common.storage.StorageType;
 import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
 import me.lucko.luckperms.common.storage.misc.DataConstraints;
 import me.lucko.luckperms.common.tasks.CacheHousekeepingTask;
-import me.lucko.luckperms.common.tasks.ExpireTemporaryTask;
+import me.lucko.luckperms.common.tasks.ExpiryScheduler;
+import me.lucko.luckperms.common.tasks.MetricsExportTask;
 import me.lucko.luckperms.common.tasks.SyncTask;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
@@ -91,6 +93,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
     // init during enable
     private VerboseHandler verboseHandler;
+    private Metrics metrics;
     private PermissionRegistry permissionRegistry;
     private LogDispatcher logDispatcher;
     private LuckPermsConfiguration configuration;
@@ -103,8 +106,10 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private Storage storage;
     private InternalMessagingService messagingService = null;
     private SyncTask.Buffer syncTaskBuffer;
+    private ExpiryScheduler expiryScheduler;
     private InheritanceGraphFactory inheritanceGraphFactory;
     private CalculatorFactory calculatorFactory;
+    private CalculatorInterner calculatorInterner;
     private LuckPermsApiProvider apiProvider;
     private EventDispatcher eventDispatcher;
     private SimpleExtensionManager extensionManager;
@@ -133,7 +138,8 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         Message.STARTUP_BANNER.send(getConsoleSender(), getBootstrap());
 
         // load some utilities early
-        this.verboseHandler = new VerboseHandler(getBootstrap().getScheduler());
+        this.verboseHandler = new VerboseHandler(this);
+        this.metrics = new Metrics();
         this.logDispatcher = new LogDispatcher(this);
 
         // load configuration
@@ -185,6 +191,9 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // setup the update task buffer
         this.syncTaskBuffer = new SyncTask.Buffer(this);
 
+        // setup the scheduler for temporary node expiry
+        this.expiryScheduler = new ExpiryScheduler(this);
+
         // register commands
         registerCommands();
 
@@ -197,6 +206,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
         // init calculator factory
         this.calculatorFactory = provideCalculatorFactory();
+        this.calculatorInterner = new CalculatorInterner(getConfiguration().get(ConfigKeys.SHARE_PERMISSION_CALCULATORS));
 
         // setup contextmanager & register common calculators
         setupContextManager();
@@ -209,7 +219,6 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         this.apiProvider = new LuckPermsApiProvider(this);
         this.apiProvider.ensureApiWasLoadedByPlugin();
         this.eventDispatcher = new EventDispatcher(provideEventBus(this.apiProvider));
-        getBootstrap().getScheduler().executeAsync(GeneratedEventClass::preGenerate);
         ApiRegistrationUtil.registerProvider(this.apiProvider);
         registerApiOnPlatform(this.apiProvider);
 
@@ -223,6 +232,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
             getBootstrap().getScheduler().asyncRepeating(() -> this.syncTaskBuffer.request(), syncMins, TimeUnit.MINUTES);
         }
 
+        int metricsExportSeconds = getConfiguration().get(ConfigKeys.METRICS_EXPORT_INTERVAL);
+        if (metricsExportSeconds > 0) {
+            getBootstrap().getScheduler().asyncRepeating(new MetricsExportTask(this), metricsExportSeconds, TimeUnit.SECONDS);
+        }
+
         // run an update instantly.
         getLogger().info("Performing initial data load...");
         try {
@@ -245,6 +259,9 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         getLogger().info("Starting shutdown process...");
 
         // cancel delayed/repeating tasks
+        if (this.expiryScheduler != null) {
+            this.expiryScheduler.close();
+        }
         getBootstrap().getScheduler().shutdownScheduler();
 
         // close web editor sockets
@@ -303,7 +320,6 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
                 Dependency.CAFFEINE,
                 Dependency.OKIO,
                 Dependency.OKHTTP,
-                Dependency.BYTEBUDDY,
                 Dependency.EVENT
         );
     }
@@ -311,7 +327,6 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     // hooks called during enable
 
     protected void registerHousekeepingTasks() {
-        getBootstrap().getScheduler().asyncRepeating(new ExpireTemporaryTask(this), 3, TimeUnit.SECONDS);
         getBootstrap().getScheduler().asyncRepeating(new CacheHousekeepingTask(this), 2, TimeUnit.MINUTES);
     }
 
@@ -427,6 +442,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.verboseHandler;
     }
 
+    @Override
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
     @Override
     public PermissionRegistry getPermissionRegistry() {
         return this.permissionRegistry;
@@ -482,6 +502,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.syncTaskBuffer;
     }
 
+    @Override
+    public ExpiryScheduler getExpiryScheduler() {
+        return this.expiryScheduler;
+    }
+
     @Override
     public InheritanceGraphFactory getInheritanceGraphFactory() {
         return this.inheritanceGraphFactory;
@@ -492,6 +517,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.calculatorFactory;
     }
 
+    @Override
+    public CalculatorInterner getCalculatorInterner() {
+        return this.calculatorInterner;
+    }
+
     @Override
     public LuckPermsApiProvider getApiProvider() {
         return this.apiProvider;
@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.plugin;
 import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.CalculatorInterner;
 import me.lucko.luckperms.common.command.CommandManager;
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
@@ -41,6 +42,7 @@ import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.Metrics;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -53,6 +55,7 @@ import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.tasks.ExpiryScheduler;
 import me.lucko.luckperms.common.tasks.SyncTask;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
@@ -215,6 +218,13 @@ public interface LuckPermsPlugin {
      */
     CalculatorFactory getCalculatorFactory();
 
+    /**
+     * Gets the interner used to share PermissionCalculators between holders with identical data.
+     *
+     * @return the calculator interner
+     */
+    CalculatorInterner getCalculatorInterner();
+
     /**
      * Gets the verbose debug handler instance.
      *
@@ -222,6 +232,13 @@ public interface LuckPermsPlugin {
      */
     VerboseHandler getVerboseHandler();
 
+    /**
+     * Gets the metrics recorded by the plugin.
+     *
+     * @return the metrics
+     */
+    Metrics getMetrics();
+
     /**
      * Gets the permission registry for the platform.
      *
@@ -321,6 +338,13 @@ public interface LuckPermsPlugin {
      */
     SyncTask.Buffer getSyncTaskBuffer();
 
+    /**
+     * Gets the scheduler responsible for removing temporary nodes when they expire.
+     *
+     * @return the expiry scheduler
+     */
+    ExpiryScheduler getExpiryScheduler();
+
     /**
      * Called at the end of the sync task.
      */
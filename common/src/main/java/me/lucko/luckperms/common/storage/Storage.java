@@ -28,7 +28,10 @@ package me.lucko.luckperms.common.storage;
 import com.google.common.collect.ImmutableList;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.metrics.Metrics.StorageOperationMetrics;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -37,6 +40,7 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.split.SplitStorage;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerLoginResult;
 import me.lucko.luckperms.common.util.Throwing;
 
 import net.kyori.adventure.text.Component;
@@ -82,30 +86,31 @@ public class Storage {
         }
     }
 
-    private <T> CompletableFuture<T> future(Callable<T> supplier) {
+    private <T> CompletableFuture<T> future(String operation, Callable<T> supplier) {
+        StorageOperationMetrics metrics = this.plugin.getMetrics().storageOperation(operation);
         return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            boolean failed = true;
             try {
-                return supplier.call();
+                T result = supplier.call();
+                failed = false;
+                return result;
             } catch (Exception e) {
                 if (e instanceof RuntimeException) {
                     throw (RuntimeException) e;
                 }
                 throw new CompletionException(e);
+            } finally {
+                metrics.record(System.nanoTime() - start, failed);
             }
         }, this.plugin.getBootstrap().getScheduler().async());
     }
 
-    private CompletableFuture<Void> future(Throwing.Runnable runnable) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                runnable.run();
-            } catch (Exception e) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                }
-                throw new CompletionException(e);
-            }
-        }, this.plugin.getBootstrap().getScheduler().async());
+    private CompletableFuture<Void> future(String operation, Throwing.Runnable runnable) {
+        return future(operation, () -> {
+            runnable.run();
+            return null;
+        });
     }
 
     public String getName() {
@@ -133,19 +138,23 @@ public class Storage {
     }
 
     public CompletableFuture<Void> logAction(Action entry) {
-        return future(() -> this.implementation.logAction(entry));
+        return future("logAction", () -> this.implementation.logAction(entry));
     }
 
     public CompletableFuture<Log> getLog() {
-        return future(this.implementation::getLog);
+        return future("getLog", this.implementation::getLog);
+    }
+
+    public CompletableFuture<LogPage> getLogPage(LogQuery query, int pageNumber, int pageSize) {
+        return future("getLogPage", () -> this.implementation.getLogPage(query, pageNumber, pageSize));
     }
 
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
-        return future(() -> this.implementation.applyBulkUpdate(bulkUpdate));
+        return future("applyBulkUpdate", () -> this.implementation.applyBulkUpdate(bulkUpdate));
     }
 
     public CompletableFuture<User> loadUser(UUID uniqueId, String username) {
-        return future(() -> {
+        return future("loadUser", () -> {
             User user = this.implementation.loadUser(uniqueId, username);
             if (user != null) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -155,7 +164,7 @@ public class Storage {
     }
 
     public CompletableFuture<Map<UUID, User>> loadUsers(Set<UUID> uniqueIds) {
-        return future(() -> {
+        return future("loadUsers", () -> {
             Map<UUID, User> users = this.implementation.loadUsers(uniqueIds);
             for (User user : users.values()) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -165,15 +174,15 @@ public class Storage {
     }
 
     public CompletableFuture<Void> saveUser(User user) {
-        return future(() -> this.implementation.saveUser(user));
+        return future("saveUser", () -> this.implementation.saveUser(user));
     }
 
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
-        return future(this.implementation::getUniqueUsers);
+        return future("getUniqueUsers", this.implementation::getUniqueUsers);
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<UUID, N>>> searchUserNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchUserNodes", () -> {
             List<NodeEntry<UUID, N>> result = this.implementation.searchUserNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -181,7 +190,7 @@ public class Storage {
     }
 
     public CompletableFuture<Group> createAndLoadGroup(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadGroup", () -> {
             Group group = this.implementation.createAndLoadGroup(name.toLowerCase(Locale.ROOT));
             if (group != null) {
                 this.plugin.getEventDispatcher().dispatchGroupCreate(group, cause);
@@ -191,7 +200,7 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Group>> loadGroup(String name) {
-        return future(() -> {
+        return future("loadGroup", () -> {
             Optional<Group> group = this.implementation.loadGroup(name.toLowerCase(Locale.ROOT));
             if (group.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchGroupLoad(group.get());
@@ -201,25 +210,25 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllGroups() {
-        return future(() -> {
-            this.implementation.loadAllGroups();
+        return future("loadAllGroups", () -> {
+            this.plugin.getGroupManager().bulkLoad(this.implementation::loadAllGroups);
             this.plugin.getEventDispatcher().dispatchGroupLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveGroup(Group group) {
-        return future(() -> this.implementation.saveGroup(group));
+        return future("saveGroup", () -> this.implementation.saveGroup(group));
     }
 
     public CompletableFuture<Void> deleteGroup(Group group, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteGroup", () -> {
             this.implementation.deleteGroup(group);
             this.plugin.getEventDispatcher().dispatchGroupDelete(group, cause);
         });
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<String, N>>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchGroupNodes", () -> {
             List<NodeEntry<String, N>> result = this.implementation.searchGroupNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -227,7 +236,7 @@ public class Storage {
     }
 
     public CompletableFuture<Track> createAndLoadTrack(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadTrack", () -> {
             Track track = this.implementation.createAndLoadTrack(name.toLowerCase(Locale.ROOT));
             if (track != null) {
                 this.plugin.getEventDispatcher().dispatchTrackCreate(track, cause);
@@ -237,7 +246,7 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Track>> loadTrack(String name) {
-        return future(() -> {
+        return future("loadTrack", () -> {
             Optional<Track> track = this.implementation.loadTrack(name.toLowerCase(Locale.ROOT));
             if (track.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchTrackLoad(track.get());
@@ -247,25 +256,25 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllTracks() {
-        return future(() -> {
+        return future("loadAllTracks", () -> {
             this.implementation.loadAllTracks();
             this.plugin.getEventDispatcher().dispatchTrackLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveTrack(Track track) {
-        return future(() -> this.implementation.saveTrack(track));
+        return future("saveTrack", () -> this.implementation.saveTrack(track));
     }
 
     public CompletableFuture<Void> deleteTrack(Track track, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteTrack", () -> {
             this.implementation.deleteTrack(track);
             this.plugin.getEventDispatcher().dispatchTrackDelete(track, cause);
          });
     }
 
     public CompletableFuture<PlayerSaveResult> savePlayerData(UUID uniqueId, String username) {
-        return future(() -> {
+        return future("savePlayerData", () -> {
             PlayerSaveResult result = this.implementation.savePlayerData(uniqueId, username);
             if (result != null) {
                 this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result);
@@ -274,15 +283,28 @@ public class Storage {
         });
     }
 
+    public CompletableFuture<PlayerLoginResult> loginUser(UUID uniqueId, String username) {
+        return future("loginUser", () -> {
+            PlayerLoginResult result = this.implementation.loginUser(uniqueId, username);
+            if (result.getSaveResult() != null) {
+                this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result.getSaveResult());
+            }
+            if (result.getUser() != null) {
+                this.plugin.getEventDispatcher().dispatchUserLoad(result.getUser());
+            }
+            return result;
+        });
+    }
+
     public CompletableFuture<Void> deletePlayerData(UUID uniqueId) {
-        return future(() -> this.implementation.deletePlayerData(uniqueId));
+        return future("deletePlayerData", () -> this.implementation.deletePlayerData(uniqueId));
     }
 
     public CompletableFuture<UUID> getPlayerUniqueId(String username) {
-        return future(() -> this.implementation.getPlayerUniqueId(username));
+        return future("getPlayerUniqueId", () -> this.implementation.getPlayerUniqueId(username));
     }
 
     public CompletableFuture<String> getPlayerName(UUID uniqueId) {
-        return future(() -> this.implementation.getPlayerName(uniqueId));
+        return future("getPlayerName", () -> this.implementation.getPlayerName(uniqueId));
     }
 }
@@ -26,6 +26,8 @@
 package me.lucko.luckperms.common.storage.implementation;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
@@ -33,6 +35,7 @@ import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerLoginResult;
 
 import net.kyori.adventure.text.Component;
 import net.luckperms.api.actionlog.Action;
@@ -65,6 +68,22 @@ public interface StorageImplementation {
 
     Log getLog() throws Exception;
 
+    /**
+     * Reads a single page of the action log, filtered by the given query.
+     *
+     * <p>Implementations should override this to filter and paginate using
+     * the backing store, instead of reading the whole log.</p>
+     *
+     * @param query the query to filter entries by
+     * @param pageNumber the page number, or {@link LogPage#LATEST}
+     * @param pageSize the number of entries per page
+     * @return the page
+     * @throws Exception if an error occurs
+     */
+    default LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        return getLog().getPage(query, pageNumber, pageSize);
+    }
+
     void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception;
 
     User loadUser(UUID uniqueId, String username) throws Exception;
@@ -101,6 +120,23 @@ public interface StorageImplementation {
 
     PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws Exception;
 
+    /**
+     * Saves the player's data and loads their user, for when a player logs in.
+     *
+     * <p>Implementations should override this to perform both operations in as
+     * few round trips as possible.</p>
+     *
+     * @param uniqueId the players unique id
+     * @param username the players username
+     * @return the result
+     * @throws Exception if an error occurs
+     */
+    default PlayerLoginResult loginUser(UUID uniqueId, String username) throws Exception {
+        PlayerSaveResult saveResult = savePlayerData(uniqueId, username);
+        User user = loadUser(uniqueId, username);
+        return new PlayerLoginResult(saveResult, user);
+    }
+
     void deletePlayerData(UUID uniqueId) throws Exception;
 
     @Nullable UUID getPlayerUniqueId(String username) throws Exception;
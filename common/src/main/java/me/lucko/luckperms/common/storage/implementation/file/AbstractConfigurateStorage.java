@@ -28,6 +28,8 @@ package me.lucko.luckperms.common.storage.implementation.file;
 import com.google.common.collect.Iterables;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.serializer.ContextSetConfigurateSerializer;
@@ -46,6 +48,7 @@ import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.file.loader.ConfigurateLoader;
 import me.lucko.luckperms.common.storage.implementation.file.loader.JsonLoader;
 import me.lucko.luckperms.common.storage.implementation.file.loader.YamlLoader;
+import me.lucko.luckperms.common.storage.misc.ChunkedUserLoader;
 import me.lucko.luckperms.common.util.MoreFiles;
 
 import net.luckperms.api.actionlog.Action;
@@ -150,7 +153,7 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
         this.uuidCache.load(this.uuidCacheFile);
 
         // setup the action logger
-        this.actionLogger.init(this.dataDirectory.resolve("actions.txt"), this.dataDirectory.resolve("actions.json"));
+        this.actionLogger.init(this.dataDirectory.resolve("actions.txt"), this.dataDirectory.resolve("actions.index"), this.dataDirectory.resolve("actions.json"));
     }
 
     @Override
@@ -169,6 +172,11 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
         return this.actionLogger.getLog();
     }
 
+    @Override
+    public LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        return this.actionLogger.getLogPage(query, pageNumber, pageSize);
+    }
+
     @Override
     public User loadUser(UUID uniqueId, String username) throws IOException {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
@@ -203,12 +211,19 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
 
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
-        // add multithreading here?
-        Map<UUID, User> map = new HashMap<>();
-        for (UUID uniqueId : uniqueIds) {
-            map.put(uniqueId, loadUser(uniqueId, null));
-        }
-        return map;
+        return ChunkedUserLoader.load(this.plugin, uniqueIds, chunk -> {
+            Map<UUID, User> map = new HashMap<>();
+            for (UUID uniqueId : chunk) {
+                // each user is stored in its own file, so one that can't be read
+                // shouldn't prevent the rest of the chunk from loading
+                try {
+                    map.put(uniqueId, loadUser(uniqueId, null));
+                } catch (Exception e) {
+                    this.plugin.getLogger().severe("Exception whilst loading user " + uniqueId, e);
+                }
+            }
+            return map;
+        });
     }
 
     @Override
@@ -0,0 +1,400 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A sidecar index for the action log file.
+ *
+ * <p>The index holds a fixed size record for each line in the log file: its
+ * offset, timestamp and hashes of the fields which are filtered on. Queries
+ * scan the index instead of parsing the whole log, and only read the lines
+ * on the requested page.</p>
+ *
+ * <p>The log file is append-only, so before each query any lines appended
+ * since the index was last used are indexed. If the log file has been
+ * replaced or truncated, the index is rebuilt.</p>
+ */
+final class FileActionLogIndex {
+    private static final int MAGIC = 0x4C50414C; // LPAL
+    private static final int VERSION = 1;
+
+    // magic, version, indexed length of the log file, record count
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    // offset, timestamp, source, target type, target unique id, target name
+    private static final int RECORD_SIZE = 8 + 8 + 8 + 1 + 8 + 8;
+
+    private final Path contentFile;
+    private final Path indexFile;
+
+    FileActionLogIndex(Path contentFile, Path indexFile) {
+        this.contentFile = contentFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Reads a page of entries from the log file. Must be called with
+     * exclusive access to the log file.
+     *
+     * @param query the query
+     * @param pageNumber the page number
+     * @param pageSize the page size
+     * @return the page
+     * @throws Exception if an error occurs
+     */
+    public LogPage getPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        if (!Files.exists(this.contentFile)) {
+            return LogPage.create(pageNumber, pageSize, 0, (skip, limit) -> new ArrayList<>());
+        }
+
+        update();
+
+        OffsetList offsets = query.getSearch() == null ? findIndexed(query) : findSearched(query);
+        return LogPage.create(pageNumber, pageSize, offsets.size, (skip, limit) -> {
+            List<LoggedAction> actions = new ArrayList<>(limit);
+            try (FileChannel channel = FileChannel.open(this.contentFile, StandardOpenOption.READ)) {
+                for (int i = offsets.size - 1 - skip; i >= 0 && actions.size() < limit; i--) {
+                    LoggedAction action = parse(readLine(channel, offsets.values[i]));
+                    // records are matched by hash, so check the entry actually matches
+                    if (action != null && query.matches(action)) {
+                        actions.add(action);
+                    }
+                }
+            }
+            return actions;
+        });
+    }
+
+    /**
+     * Finds the offsets of the lines which match the query, using the index.
+     */
+    private OffsetList findIndexed(LogQuery query) throws IOException {
+        long source = query.getSource() == null ? 0 : hash(query.getSource());
+        byte type = query.getTargetType() == null ? 0 : (byte) LoggedAction.getTypeCharacter(query.getTargetType());
+        long targetUniqueId = query.getTargetUniqueId() == null ? 0 : hash(query.getTargetUniqueId());
+        long targetName = query.getTargetName() == null ? 0 : hash(query.getTargetName());
+        long since = query.getSince() == null ? Long.MIN_VALUE : query.getSince().getEpochSecond();
+        long until = query.getUntil() == null ? Long.MAX_VALUE : query.getUntil().getEpochSecond();
+
+        OffsetList offsets = new OffsetList();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.indexFile), 1 << 16))) {
+            in.skipBytes(HEADER_SIZE);
+            while (true) {
+                long offset;
+                try {
+                    offset = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long recordTimestamp = in.readLong();
+                long recordSource = in.readLong();
+                byte recordType = in.readByte();
+                long recordTargetUniqueId = in.readLong();
+                long recordTargetName = in.readLong();
+
+                if ((source == 0 || source == recordSource) &&
+                        (type == 0 || type == recordType) &&
+                        (targetUniqueId == 0 || targetUniqueId == recordTargetUniqueId) &&
+                        (targetName == 0 || targetName == recordTargetName) &&
+                        recordTimestamp >= since && recordTimestamp < until) {
+                    offsets.add(offset);
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Finds the offsets of the lines which match a text search, by scanning the log file.
+     */
+    private OffsetList findSearched(LogQuery query) throws IOException {
+        // the raw line can be checked for the search text before it is parsed, so
+        // long as the text wouldn't be escaped or change length when lower cased
+        String search = query.getSearch();
+        byte[] rawSearch = isRawSearchable(search) ? search.getBytes(StandardCharsets.US_ASCII) : null;
+
+        OffsetList offsets = new OffsetList();
+        try (LineReader reader = new LineReader(Files.newInputStream(this.contentFile), 0)) {
+            byte[] line;
+            while ((line = reader.readLine()) != null) {
+                if (rawSearch != null && !containsIgnoreCase(line, reader.lineLength(), rawSearch)) {
+                    continue;
+                }
+
+                LoggedAction action = parse(new String(line, 0, reader.lineLength(), StandardCharsets.UTF_8));
+                if (action != null && query.matches(action)) {
+                    offsets.add(reader.lineOffset());
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Indexes any lines appended to the log file since the index was last updated.
+     */
+    private void update() throws IOException {
+        long contentLength = Files.size(this.contentFile);
+        long indexedLength = 0;
+        long records = 0;
+
+        boolean indexExists = Files.exists(this.indexFile);
+        if (indexExists) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(this.indexFile))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                    indexedLength = in.readLong();
+                    records = in.readLong();
+                }
+            } catch (EOFException e) {
+                // rebuild
+            }
+        }
+
+        if (indexedLength > contentLength) {
+            // the log has been replaced
+            indexedLength = 0;
+            records = 0;
+        }
+        if (indexExists && indexedLength == contentLength && Files.size(this.indexFile) == HEADER_SIZE + records * RECORD_SIZE) {
+            return;
+        }
+
+        // discard any records past those accounted for in the header
+        try (FileChannel channel = FileChannel.open(this.indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(records == 0 ? 0 : HEADER_SIZE + records * RECORD_SIZE);
+        }
+
+        try (LineReader reader = new LineReader(Files.newInputStream(this.contentFile), indexedLength);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.indexFile, StandardOpenOption.APPEND), 1 << 16))) {
+
+            if (records == 0) {
+                writeHeader(out, 0, 0);
+            }
+
+            byte[] line;
+            while ((line = reader.readLine()) != null) {
+                LoggedAction action = parse(new String(line, 0, reader.lineLength(), StandardCharsets.UTF_8));
+                if (action != null) {
+                    out.writeLong(reader.lineOffset());
+                    out.writeLong(action.getTimestamp().getEpochSecond());
+                    out.writeLong(hash(action.getSource().getUniqueId()));
+                    out.writeByte(LoggedAction.getTypeCharacter(action.getTarget().getType()));
+                    out.writeLong(action.getTarget().getUniqueId().map(FileActionLogIndex::hash).orElse(0L));
+                    out.writeLong(hash(action.getTarget().getName()));
+                    records++;
+                }
+            }
+            indexedLength = reader.position();
+        }
+
+        // the header is written last, so that records from an interrupted update are discarded
+        try (FileChannel channel = FileChannel.open(this.indexFile, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_SIZE);
+            writeHeader(new DataOutputStream(header), indexedLength, records);
+            channel.write(ByteBuffer.wrap(header.toByteArray()), 0);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, long indexedLength, long records) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(indexedLength);
+        out.writeLong(records);
+        out.flush();
+    }
+
+    private static LoggedAction parse(String line) {
+        try {
+            return ActionJsonSerializer.deserialize(GsonProvider.parser().parse(line));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String readLine(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(512);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+
+        long position = offset;
+        while (channel.read(buf, position) > 0) {
+            buf.flip();
+            int len = buf.remaining();
+            for (int i = 0; i < len; i++) {
+                if (buf.get(i) == '\n') {
+                    line.write(buf.array(), 0, i);
+                    return line.toString("UTF-8");
+                }
+            }
+            line.write(buf.array(), 0, len);
+            position += len;
+            buf.clear();
+        }
+        return line.toString("UTF-8");
+    }
+
+    private static boolean isRawSearchable(String search) {
+        for (int i = 0; i < search.length(); i++) {
+            char c = search.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(byte[] haystack, int length, byte[] lowerCaseNeedle) {
+        outer:
+        for (int i = 0; i <= length - lowerCaseNeedle.length; i++) {
+            for (int j = 0; j < lowerCaseNeedle.length; j++) {
+                byte b = haystack[i + j];
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != lowerCaseNeedle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static long hash(UUID uuid) {
+        long hash = uuid.getMostSignificantBits() * 31 + uuid.getLeastSignificantBits();
+        return hash == 0 ? 1 : hash;
+    }
+
+    static long hash(String string) {
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < string.length(); i++) {
+            hash ^= string.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * A growable list of offsets.
+     */
+    private static final class OffsetList {
+        private long[] values = new long[64];
+        private int size = 0;
+
+        void add(long value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+    }
+
+    /**
+     * Reads complete lines from the log file, keeping track of their offsets.
+     * A trailing line without a line break is assumed to be incomplete, and is not read.
+     */
+    private static final class LineReader implements AutoCloseable {
+        private final InputStream in;
+        private byte[] line = new byte[512];
+        private int lineLength;
+        private long lineOffset;
+        private long position;
+
+        LineReader(InputStream in, long position) throws IOException {
+            this.in = new BufferedInputStream(in, 1 << 16);
+            this.position = position;
+
+            long remaining = position;
+            while (remaining > 0) {
+                long skipped = this.in.skip(remaining);
+                if (skipped <= 0) {
+                    throw new EOFException();
+                }
+                remaining -= skipped;
+            }
+        }
+
+        byte[] readLine() throws IOException {
+            int length = 0;
+            int b;
+            while ((b = this.in.read()) != -1) {
+                if (b == '\n') {
+                    // strip the carriage return from windows line endings
+                    this.lineLength = length > 0 && this.line[length - 1] == '\r' ? length - 1 : length;
+                    this.lineOffset = this.position;
+                    this.position += length + 1;
+                    return this.line;
+                }
+                if (length == this.line.length) {
+                    this.line = Arrays.copyOf(this.line, length * 2);
+                }
+                this.line[length++] = (byte) b;
+            }
+            return null;
+        }
+
+        int lineLength() {
+            return this.lineLength;
+        }
+
+        long lineOffset() {
+            return this.lineOffset;
+        }
+
+        long position() {
+            return this.position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+}
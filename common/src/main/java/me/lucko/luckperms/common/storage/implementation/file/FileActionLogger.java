@@ -31,6 +31,8 @@ import com.google.gson.stream.JsonReader;
 
 import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
@@ -57,6 +59,11 @@ public class FileActionLogger {
      */
     private Path contentFile;
 
+    /**
+     * The index of the content file
+     */
+    private FileActionLogIndex index;
+
     /**
      * Lock to ensure the file isn't written to by multiple threads
      */
@@ -73,8 +80,9 @@ public class FileActionLogger {
         this.saveBuffer = new SaveBuffer(plugin);
     }
 
-    public void init(Path contentFile, Path legacyFile) {
+    public void init(Path contentFile, Path indexFile, Path legacyFile) {
         this.contentFile = contentFile;
+        this.index = new FileActionLogIndex(contentFile, indexFile);
 
         if (Files.exists(legacyFile)) {
             // migrate
@@ -154,6 +162,17 @@ public class FileActionLogger {
         return log.build();
     }
 
+    public LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        // write any pending entries, and ensure the file isn't written to while the index is used
+        flush();
+        this.writeLock.lock();
+        try {
+            return this.index.getPage(query, pageNumber, pageSize);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
     private final class SaveBuffer extends BufferedRequest<Void> {
         public SaveBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
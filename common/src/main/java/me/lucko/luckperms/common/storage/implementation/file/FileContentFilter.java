@@ -0,0 +1,173 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A cheap check against the raw bytes of a data file, to skip parsing files
+ * which cannot contain any node matching a set of constraints.
+ *
+ * <p>Only pieces of a constraint which are always written verbatim to the file
+ * are used: pieces of a single node key segment, which contain no characters
+ * that any of the file formats might escape or quote differently, and which
+ * can't be part of the type marker of an inheritance, chat meta or meta node
+ * (as those are written to separate sections, without the marker).</p>
+ */
+final class FileContentFilter {
+    private static final FileContentFilter ALL = new FileContentFilter(new ArrayList<>());
+
+    private static final String[] NODE_MARKERS = {"group", "prefix", "suffix", "meta"};
+
+    private static final Pattern REGEX_SPECIAL_CHARACTERS = Pattern.compile("[\\\\^$|?*+()\\[\\]{}]");
+
+    public static FileContentFilter forBulkUpdate(BulkUpdate bulkUpdate) {
+        List<byte[]> required = new ArrayList<>();
+        for (Query query : bulkUpdate.getQueries()) {
+            // context values of "global" aren't written to the file
+            if (query.getField() != QueryField.PERMISSION && query.getConstraint().eval("global")) {
+                continue;
+            }
+
+            addRequiredPieces(query.getConstraint(), required);
+        }
+        return required.isEmpty() ? ALL : new FileContentFilter(required);
+    }
+
+    public static FileContentFilter forKey(Constraint constraint) {
+        List<byte[]> required = new ArrayList<>();
+        addRequiredPieces(constraint, required);
+        return required.isEmpty() ? ALL : new FileContentFilter(required);
+    }
+
+    /**
+     * Adds the pieces of text which any value satisfying the constraint must contain.
+     *
+     * @param constraint the constraint
+     * @param required the list to add the pieces to, in lower case
+     */
+    private static void addRequiredPieces(Constraint constraint, List<byte[]> required) {
+        String expression = constraint.getExpressionValue();
+        String[] pieces;
+        if (constraint.getComparison() == StandardComparison.EQUAL) {
+            pieces = expression.split("\\.");
+        } else if (constraint.getComparison() == StandardComparison.SIMILAR) {
+            // other than the wildcards, the expression is matched as a regex
+            if (REGEX_SPECIAL_CHARACTERS.matcher(expression).find()) {
+                return;
+            }
+            pieces = expression.split("[.%_]");
+        } else {
+            return;
+        }
+
+        for (String piece : pieces) {
+            if (isVerbatim(piece)) {
+                required.add(piece.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    private static boolean isVerbatim(String piece) {
+        if (piece.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < piece.length(); i++) {
+            char c = piece.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '*';
+            if (!allowed) {
+                return false;
+            }
+        }
+
+        String lower = piece.toLowerCase(Locale.ROOT);
+        for (String marker : NODE_MARKERS) {
+            if (marker.contains(lower)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final List<byte[]> required;
+
+    private FileContentFilter(List<byte[]> required) {
+        this.required = required;
+    }
+
+    /**
+     * Gets if every file needs to be parsed.
+     *
+     * @return true if the filter can't exclude any files
+     */
+    public boolean isEmpty() {
+        return this.required.isEmpty();
+    }
+
+    /**
+     * Tests if a file with the given content could contain a matching node.
+     *
+     * @param content the raw content of the file
+     * @return false if the file definitely doesn't contain a matching node
+     */
+    public boolean test(byte[] content) {
+        for (byte[] piece : this.required) {
+            if (!containsIgnoreCase(content, piece)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(byte[] haystack, byte[] lowerCaseNeedle) {
+        outer:
+        for (int i = 0; i <= haystack.length - lowerCaseNeedle.length; i++) {
+            for (int j = 0; j < lowerCaseNeedle.length; j++) {
+                byte b = haystack[i + j];
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != lowerCaseNeedle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+}
@@ -29,6 +29,7 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdateStatistics;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
@@ -46,9 +47,13 @@ import net.luckperms.api.node.Node;
 import ninja.leaping.configurate.ConfigurationNode;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +62,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -138,7 +144,14 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
                 return;
             }
 
-            this.loader.loader(file).save(node);
+            // write to a temporary file first, so the file is never left partially written
+            Path temp = file.resolveSibling(file.getFileName().toString() + ".tmp");
+            this.loader.loader(temp).save(node);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
         } finally {
             lock.unlock();
         }
@@ -214,42 +227,57 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
 
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
-        if (bulkUpdate.getDataType().isIncludingUsers()) {
-            try (Stream<Path> s = Files.list(getDirectory(StorageLocation.USERS))) {
-                s.filter(this.fileExtensionFilter).forEach(file -> {
-                    try {
-                        registerFileAction(StorageLocation.USERS, file);
-                        ConfigurationNode object = readFile(file);
-                        if (processBulkUpdate(bulkUpdate, object, HolderType.USER)) {
-                            saveFile(file, object);
-                        }
-                    } catch (Exception e) {
-                        this.plugin.getLogger().severe(
-                                "Exception whilst performing bulkupdate",
-                                new FileIOException(file.getFileName().toString(), e)
-                        );
-                    }
-                });
+        FileContentFilter filter = FileContentFilter.forBulkUpdate(bulkUpdate);
+        List<Path> users = bulkUpdate.getDataType().isIncludingUsers() ? listFiles(StorageLocation.USERS) : Collections.emptyList();
+        List<Path> groups = bulkUpdate.getDataType().isIncludingGroups() ? listFiles(StorageLocation.GROUPS) : Collections.emptyList();
+
+        BulkUpdateStatistics statistics = bulkUpdate.getStatistics();
+        statistics.incrementTotalHolders(users.size() + groups.size());
+
+        // the async executor is a fork join pool, so parallel streams started
+        // from within it are split between its workers
+        users.parallelStream().forEach(file -> applyBulkUpdate(bulkUpdate, filter, StorageLocation.USERS, HolderType.USER, file));
+        groups.parallelStream().forEach(file -> applyBulkUpdate(bulkUpdate, filter, StorageLocation.GROUPS, HolderType.GROUP, file));
+    }
+
+    private void applyBulkUpdate(BulkUpdate bulkUpdate, FileContentFilter filter, StorageLocation location, HolderType holderType, Path file) {
+        try {
+            if (!filter.isEmpty() && !filter.test(readBytes(file))) {
+                return;
             }
-        }
 
-        if (bulkUpdate.getDataType().isIncludingGroups()) {
-            try (Stream<Path> s = Files.list(getDirectory(StorageLocation.GROUPS))) {
-                s.filter(this.fileExtensionFilter).forEach(file -> {
-                    try {
-                        registerFileAction(StorageLocation.GROUPS, file);
-                        ConfigurationNode object = readFile(file);
-                        if (processBulkUpdate(bulkUpdate, object, HolderType.GROUP)) {
-                            saveFile(file, object);
-                        }
-                    } catch (Exception e) {
-                        this.plugin.getLogger().severe(
-                                "Exception whilst performing bulkupdate",
-                                new FileIOException(file.getFileName().toString(), e)
-                        );
-                    }
-                });
+            ReentrantLock lock = Objects.requireNonNull(this.ioLocks.get(file));
+            lock.lock();
+            try {
+                registerFileAction(location, file);
+                ConfigurationNode object = readFile(file);
+                if (object != null && processBulkUpdate(bulkUpdate, object, holderType)) {
+                    saveFile(file, object);
+                }
+            } finally {
+                lock.unlock();
             }
+        } catch (Exception e) {
+            this.plugin.getLogger().severe(
+                    "Exception whilst performing bulkupdate",
+                    new FileIOException(file.getFileName().toString(), e)
+            );
+        } finally {
+            bulkUpdate.getStatistics().incrementProcessedHolders();
+        }
+    }
+
+    private List<Path> listFiles(StorageLocation location) throws IOException {
+        try (Stream<Path> s = Files.list(getDirectory(location))) {
+            return s.filter(this.fileExtensionFilter).collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] readBytes(Path file) throws IOException {
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return new byte[0];
         }
     }
 
@@ -267,31 +295,7 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
 
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
-        List<NodeEntry<UUID, N>> held = new ArrayList<>();
-        try (Stream<Path> stream = Files.list(getDirectory(StorageLocation.USERS))) {
-            stream.filter(this.fileExtensionFilter)
-                    .forEach(file -> {
-                        String fileName = file.getFileName().toString();
-                        try {
-                            registerFileAction(StorageLocation.USERS, file);
-                            ConfigurationNode object = readFile(file);
-                            UUID holder = UUID.fromString(fileName.substring(0, fileName.length() - this.fileExtension.length()));
-                            Set<Node> nodes = readNodes(object);
-                            for (Node e : nodes) {
-                                N match = constraint.match(e);
-                                if (match != null) {
-                                    held.add(NodeEntry.of(holder, match));
-                                }
-                            }
-                        } catch (Exception e) {
-                            this.plugin.getLogger().severe(
-                                    "Exception whilst searching user nodes",
-                                    new FileIOException(file.getFileName().toString(), e)
-                            );
-                        }
-                    });
-        }
-        return held;
+        return searchNodes(StorageLocation.USERS, constraint, "Exception whilst searching user nodes", UUID::fromString);
     }
 
     @Override
@@ -313,31 +317,40 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
 
     @Override
     public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
-        List<NodeEntry<String, N>> held = new ArrayList<>();
-        try (Stream<Path> stream = Files.list(getDirectory(StorageLocation.GROUPS))) {
-            stream.filter(this.fileExtensionFilter)
-                    .forEach(file -> {
-                        String fileName = file.getFileName().toString();
-                        try {
-                            registerFileAction(StorageLocation.GROUPS, file);
-                            ConfigurationNode object = readFile(file);
-                            String holder = fileName.substring(0, fileName.length() - this.fileExtension.length());
-                            Set<Node> nodes = readNodes(object);
-                            for (Node e : nodes) {
-                                N match = constraint.match(e);
-                                if (match != null) {
-                                    held.add(NodeEntry.of(holder, match));
-                                }
+        return searchNodes(StorageLocation.GROUPS, constraint, "Exception whilst searching group nodes", Function.identity());
+    }
+
+    private <H extends Comparable<H>, N extends Node> List<NodeEntry<H, N>> searchNodes(StorageLocation location, ConstraintNodeMatcher<N> constraint, String errorMessage, Function<String, H> holderParser) throws IOException {
+        FileContentFilter filter = FileContentFilter.forKey(constraint.getConstraint());
+        return listFiles(location).parallelStream()
+                .flatMap(file -> {
+                    String fileName = file.getFileName().toString();
+                    try {
+                        if (!filter.isEmpty() && !filter.test(readBytes(file))) {
+                            return Stream.empty();
+                        }
+
+                        registerFileAction(location, file);
+                        ConfigurationNode object = readFile(file);
+                        if (object == null) {
+                            return Stream.empty();
+                        }
+
+                        H holder = holderParser.apply(fileName.substring(0, fileName.length() - this.fileExtension.length()));
+                        List<NodeEntry<H, N>> held = new ArrayList<>();
+                        for (Node e : readNodes(object)) {
+                            N match = constraint.match(e);
+                            if (match != null) {
+                                held.add(NodeEntry.of(holder, match));
                             }
-                        } catch (Exception e) {
-                            this.plugin.getLogger().severe(
-                                    "Exception whilst searching group nodes",
-                                    new FileIOException(file.getFileName().toString(), e)
-                            );
                         }
-                    });
-        }
-        return held;
+                        return held.stream();
+                    } catch (Exception e) {
+                        this.plugin.getLogger().severe(errorMessage, new FileIOException(fileName, e));
+                        return Stream.empty();
+                    }
+                })
+                .collect(Collectors.toList());
     }
 
     @Override
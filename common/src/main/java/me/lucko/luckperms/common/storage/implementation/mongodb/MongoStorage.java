@@ -34,12 +34,30 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.action.DeleteAction;
+import me.lucko.luckperms.common.bulkupdate.action.UpdateAction;
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
 import me.lucko.luckperms.common.context.MutableContextSetImpl;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
@@ -51,7 +69,10 @@ import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.ActionLogBuffer;
+import me.lucko.luckperms.common.storage.misc.ChunkedUserLoader;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerLoginResult;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.storage.misc.StorageCredentials;
 import me.lucko.luckperms.common.util.Iterators;
@@ -67,21 +88,26 @@ import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
 
+import org.bson.BsonDocument;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
+import org.bson.conversions.Bson;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
@@ -93,11 +119,14 @@ public class MongoStorage implements StorageImplementation {
     private final String prefix;
     private final String connectionUri;
 
+    private final ActionLogBuffer actionLogBuffer;
+
     public MongoStorage(LuckPermsPlugin plugin, StorageCredentials configuration, String prefix, String connectionUri) {
         this.plugin = plugin;
         this.configuration = configuration;
         this.prefix = prefix;
         this.connectionUri = connectionUri;
+        this.actionLogBuffer = new ActionLogBuffer(plugin.getBootstrap().getScheduler(), plugin.getLogger(), this::writeActions);
     }
 
     @Override
@@ -140,11 +169,15 @@ public class MongoStorage implements StorageImplementation {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+        createActionIndexes();
+        createNodeIndexes(this.database.getCollection(this.prefix + "users"));
+        createNodeIndexes(this.database.getCollection(this.prefix + "groups"));
     }
 
     @Override
     public void shutdown() {
         if (this.mongoClient != null) {
+            this.actionLogBuffer.flush();
             this.mongoClient.close();
         }
     }
@@ -185,8 +218,18 @@ public class MongoStorage implements StorageImplementation {
 
     @Override
     public void logAction(Action entry) {
-        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        this.actionLogBuffer.add(entry);
+    }
 
+    private void writeActions(List<Action> entries) {
+        List<Document> documents = new ArrayList<>(entries.size());
+        for (Action entry : entries) {
+            documents.add(actionToDoc(entry));
+        }
+        this.database.getCollection(this.prefix + "action").insertMany(documents);
+    }
+
+    private static Document actionToDoc(Action entry) {
         Document doc = new Document()
                 .append("timestamp", entry.getTimestamp().getEpochSecond())
                 .append("source", new Document()
@@ -204,74 +247,171 @@ public class MongoStorage implements StorageImplementation {
 
         doc.append("target", target);
         doc.append("description", entry.getDescription());
-
-        c.insertOne(doc);
+        return doc;
     }
 
     @Override
     public Log getLog() {
+        this.actionLogBuffer.flush();
         Log.Builder log = Log.builder();
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
-
-                if (d.containsKey("source")) {
-                    // new format
-                    Document source = d.get("source", Document.class);
-                    Document target = d.get("target", Document.class);
+                log.add(readAction(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                    UUID targetUniqueId = null;
-                    if (target.containsKey("uniqueId")) {
-                        targetUniqueId = target.get("uniqueId", UUID.class);
-                    }
+    @Override
+    public LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        this.actionLogBuffer.flush();
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        Bson filter = actionFilter(query);
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(source.get("uniqueId", UUID.class))
-                            .sourceName(source.getString("name"))
-                            .targetType(LoggedAction.parseType(target.getString("type")))
-                            .target(targetUniqueId)
-                            .targetName(target.getString("name"))
-                            .description(d.getString("description"))
-                            .build();
-
-                    log.add(e);
-                } else {
-                    // old format
-                    UUID actedUuid = null;
-                    if (d.containsKey("acted")) {
-                        actedUuid = d.get("acted", UUID.class);
-                    }
+        long total = query.isEmpty() ? c.estimatedDocumentCount() : c.countDocuments(filter);
+        return LogPage.create(pageNumber, pageSize, (int) total, (skip, limit) -> {
+            List<LoggedAction> actions = new ArrayList<>(limit);
+            try (MongoCursor<Document> cursor = c.find(filter).sort(Sorts.descending("timestamp")).skip(skip).limit(limit).iterator()) {
+                while (cursor.hasNext()) {
+                    actions.add(readAction(cursor.next()));
+                }
+            }
+            return actions;
+        });
+    }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(d.get("actor", UUID.class))
-                            .sourceName(d.getString("actorName"))
-                            .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
-                            .target(actedUuid)
-                            .targetName(d.getString("actedName"))
-                            .description(d.getString("action"))
-                            .build();
-
-                    log.add(e);
+    private void createActionIndexes() {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        c.createIndex(Indexes.descending("timestamp"));
+        c.createIndex(Indexes.compoundIndex(Indexes.ascending("source.uniqueId"), Indexes.descending("timestamp")));
+        c.createIndex(Indexes.compoundIndex(Indexes.ascending("target.uniqueId"), Indexes.descending("timestamp")));
+        c.createIndex(Indexes.compoundIndex(Indexes.ascending("target.name"), Indexes.descending("timestamp")));
+
+        // entries in the old format, only present in a few documents
+        IndexOptions sparse = new IndexOptions().sparse(true);
+        c.createIndex(Indexes.ascending("actor"), sparse);
+        c.createIndex(Indexes.ascending("acted"), sparse);
+        c.createIndex(Indexes.ascending("actedName"), sparse);
+    }
+
+    private static void createNodeIndexes(MongoCollection<Document> c) {
+        // the indexes are only used by node filters if they share the same collation,
+        // so replace any indexes created without one
+        List<String> outdated = new ArrayList<>();
+        try (MongoCursor<Document> cursor = c.listIndexes().iterator()) {
+            while (cursor.hasNext()) {
+                Document index = cursor.next();
+                String name = index.getString("name");
+                if ((name.equals("permissions.key_1") || name.equals("permissions.permission_1")) && !index.containsKey("collation")) {
+                    outdated.add(name);
                 }
             }
         }
-        return log.build();
+        outdated.forEach(c::dropIndex);
+
+        c.createIndex(Indexes.ascending("permissions.key"), new IndexOptions().collation(NodeFilter.COLLATION));
+
+        // nodes in the old format, only present in a few documents
+        c.createIndex(Indexes.ascending("permissions.permission"), new IndexOptions().collation(NodeFilter.COLLATION).sparse(true));
+    }
+
+    private static Bson actionFilter(LogQuery query) {
+        if (query.isEmpty()) {
+            return new Document();
+        }
+
+        // each constraint matches entries in both the new and the old format
+        List<Bson> filters = new ArrayList<>();
+        if (query.getSource() != null) {
+            filters.add(Filters.or(Filters.eq("source.uniqueId", query.getSource()), Filters.eq("actor", query.getSource())));
+        }
+        if (query.getTargetType() != null) {
+            filters.add(Filters.or(
+                    Filters.eq("target.type", query.getTargetType().name()),
+                    Filters.eq("type", Character.toString(LoggedAction.getTypeCharacter(query.getTargetType())))
+            ));
+        }
+        if (query.getTargetUniqueId() != null) {
+            filters.add(Filters.or(Filters.eq("target.uniqueId", query.getTargetUniqueId()), Filters.eq("acted", query.getTargetUniqueId())));
+        }
+        if (query.getTargetName() != null) {
+            filters.add(Filters.or(Filters.eq("target.name", query.getTargetName()), Filters.eq("actedName", query.getTargetName())));
+        }
+        if (query.getSince() != null) {
+            filters.add(Filters.gte("timestamp", query.getSince().getEpochSecond()));
+        }
+        if (query.getUntil() != null) {
+            filters.add(Filters.lt("timestamp", query.getUntil().getEpochSecond()));
+        }
+        if (query.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(query.getSearch()), Pattern.CASE_INSENSITIVE);
+            filters.add(Filters.or(
+                    Filters.regex("source.name", pattern),
+                    Filters.regex("target.name", pattern),
+                    Filters.regex("description", pattern),
+                    Filters.regex("actorName", pattern),
+                    Filters.regex("actedName", pattern),
+                    Filters.regex("action", pattern)
+            ));
+        }
+        return Filters.and(filters);
+    }
+
+    private static LoggedAction readAction(Document d) {
+        if (d.containsKey("source")) {
+            // new format
+            Document source = d.get("source", Document.class);
+            Document target = d.get("target", Document.class);
+
+            UUID targetUniqueId = null;
+            if (target.containsKey("uniqueId")) {
+                targetUniqueId = target.get("uniqueId", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(source.get("uniqueId", UUID.class))
+                    .sourceName(source.getString("name"))
+                    .targetType(LoggedAction.parseType(target.getString("type")))
+                    .target(targetUniqueId)
+                    .targetName(target.getString("name"))
+                    .description(d.getString("description"))
+                    .build();
+        } else {
+            // old format
+            UUID actedUuid = null;
+            if (d.containsKey("acted")) {
+                actedUuid = d.get("acted", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(d.get("actor", UUID.class))
+                    .sourceName(d.getString("actorName"))
+                    .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
+                    .target(actedUuid)
+                    .targetName(d.getString("actedName"))
+                    .description(d.getString("action"))
+                    .build();
+        }
     }
 
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) {
+        NodeFilter filter = NodeFilter.of(bulkUpdate.getQueries());
+
         if (bulkUpdate.getDataType().isIncludingUsers()) {
             MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
-                    UUID uuid = getDocumentId(d);
-                    Document results = processBulkUpdate(d, bulkUpdate, HolderType.USER);
-                    if (results != null) {
-                        c.replaceOne(new Document("_id", uuid), results);
+            if (!applyBulkUpdateOnServer(c, bulkUpdate, filter, HolderType.USER)) {
+                try (MongoCursor<Document> cursor = c.find(filter.documents()).collation(NodeFilter.COLLATION).iterator()) {
+                    while (cursor.hasNext()) {
+                        Document d = cursor.next();
+                        UUID uuid = getDocumentId(d);
+                        Document results = processBulkUpdate(d, bulkUpdate, HolderType.USER);
+                        if (results != null) {
+                            c.replaceOne(new Document("_id", uuid), results);
+                        }
                     }
                 }
             }
@@ -279,19 +419,113 @@ public class MongoStorage implements StorageImplementation {
 
         if (bulkUpdate.getDataType().isIncludingGroups()) {
             MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
-                    String holder = d.getString("_id");
-                    Document results = processBulkUpdate(d, bulkUpdate, HolderType.GROUP);
-                    if (results != null) {
-                        c.replaceOne(new Document("_id", holder), results);
+            if (!applyBulkUpdateOnServer(c, bulkUpdate, filter, HolderType.GROUP)) {
+                try (MongoCursor<Document> cursor = c.find(filter.documents()).collation(NodeFilter.COLLATION).iterator()) {
+                    while (cursor.hasNext()) {
+                        Document d = cursor.next();
+                        String holder = d.getString("_id");
+                        Document results = processBulkUpdate(d, bulkUpdate, HolderType.GROUP);
+                        if (results != null) {
+                            c.replaceOne(new Document("_id", holder), results);
+                        }
                     }
                 }
             }
         }
     }
 
+    /**
+     * Applies a bulk update using a single update operation, if the update
+     * can be expressed exactly as one.
+     *
+     * @return true if the update was applied
+     */
+    private static boolean applyBulkUpdateOnServer(MongoCollection<Document> c, BulkUpdate bulkUpdate, NodeFilter filter, HolderType holderType) {
+        if (!filter.isExact()) {
+            return false;
+        }
+
+        Bson update;
+        UpdateOptions options = new UpdateOptions().collation(NodeFilter.COLLATION);
+        if (bulkUpdate.getAction() instanceof DeleteAction) {
+            BsonDocument nodes = filter.nodes("").toBsonDocument(BsonDocument.class, c.getCodecRegistry());
+            update = Updates.pullByFilter(new BsonDocument("permissions", nodes));
+        } else if (bulkUpdate.getAction() instanceof UpdateAction && ((UpdateAction) bulkUpdate.getAction()).getField() == QueryField.PERMISSION) {
+            update = Updates.combine(
+                    Updates.set("permissions.$[node].key", ((UpdateAction) bulkUpdate.getAction()).getValue()),
+                    Updates.unset("permissions.$[node].permission")
+            );
+            options.arrayFilters(Collections.singletonList(filter.nodes("node.")));
+        } else {
+            // context updates replace all values of the context, which needs the whole node
+            return false;
+        }
+
+        if (bulkUpdate.isTrackingStatistics()) {
+            List<Bson> pipeline = Arrays.asList(
+                    Aggregates.match(filter.documents()),
+                    Aggregates.unwind("$permissions"),
+                    Aggregates.match(filter.nodes("permissions.")),
+                    Aggregates.count()
+            );
+            Document count = c.aggregate(pipeline).collation(NodeFilter.COLLATION).first();
+            bulkUpdate.getStatistics().incrementAffectedNodes(count == null ? 0 : count.getInteger("count"));
+        }
+
+        UpdateResult result = c.updateMany(filter.documents(), update, options);
+        if (bulkUpdate.isTrackingStatistics()) {
+            bulkUpdate.getStatistics().incrementAffected(holderType, (int) result.getModifiedCount());
+        }
+
+        if (bulkUpdate.getAction() instanceof UpdateAction) {
+            removeDuplicateNodes(c, ((UpdateAction) bulkUpdate.getAction()).getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Removes duplicate nodes from the documents with more than one node with the
+     * given key, as the nodes are deduplicated when a bulk update is applied to a
+     * document client side.
+     *
+     * <p>Renaming nodes on the server may leave a holder with several nodes which
+     * differ only by their (old) key, or with a renamed copy of a node it already had.</p>
+     */
+    private static void removeDuplicateNodes(MongoCollection<Document> c, String key) {
+        NodeFilter filter = NodeFilter.forKey(Constraint.of(StandardComparison.EQUAL, key));
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.match(filter.documents()),
+                Aggregates.unwind("$permissions"),
+                Aggregates.match(filter.nodes("permissions.")),
+                Aggregates.group("$_id", Accumulators.sum("count", 1)),
+                Aggregates.match(Filters.gt("count", 1))
+        );
+
+        List<Object> candidates = new ArrayList<>();
+        try (MongoCursor<Document> cursor = c.aggregate(pipeline).collation(NodeFilter.COLLATION).iterator()) {
+            while (cursor.hasNext()) {
+                candidates.add(cursor.next().get("_id"));
+            }
+        }
+
+        for (Object id : candidates) {
+            Document d = c.find(new Document("_id", id)).first();
+            if (d == null) {
+                continue;
+            }
+
+            List<Node> nodes = nodesFromDoc(d);
+            Set<Node> unique = new LinkedHashSet<>(nodes);
+            if (unique.size() != nodes.size()) {
+                List<Document> newNodes = unique.stream()
+                        .map(MongoStorage::nodeToDoc)
+                        .collect(Collectors.toList());
+                d.append("permissions", newNodes).remove("perms");
+                c.replaceOne(new Document("_id", id), d);
+            }
+        }
+    }
+
     private Document processBulkUpdate(Document document, BulkUpdate bulkUpdate, HolderType holderType) {
         Set<Node> nodes = new HashSet<>(nodesFromDoc(document));
         Set<Node> results = bulkUpdate.apply(nodes, holderType);
@@ -313,41 +547,60 @@ public class MongoStorage implements StorageImplementation {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
         try (MongoCursor<Document> cursor = c.find(new Document("_id", user.getUniqueId())).iterator()) {
-            if (cursor.hasNext()) {
-                // User exists, let's load.
-                Document d = cursor.next();
-                String name = d.getString("name");
-
-                user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
-                user.setUsername(name, true);
-
-                user.loadNodesFromStorage(nodesFromDoc(d));
-                this.plugin.getUserManager().giveDefaultIfNeeded(user);
-
-
-                boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
-                if (updatedUsername | user.auditTemporaryNodes()) {
-                    c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
-                }
-            } else {
-                if (this.plugin.getUserManager().isNonDefaultUser(user)) {
-                    user.loadNodesFromStorage(Collections.emptyList());
-                    user.getPrimaryGroup().setStoredValue(null);
-                    this.plugin.getUserManager().giveDefaultIfNeeded(user);
-                }
-            }
+            loadUser(c, user, cursor.hasNext() ? cursor.next() : null);
         }
         return user;
     }
 
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
-        // make this a bulk search?
-        Map<UUID, User> map = new HashMap<>();
-        for (UUID uniqueId : uniqueIds) {
-            map.put(uniqueId, loadUser(uniqueId, null));
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        return ChunkedUserLoader.load(this.plugin, uniqueIds, chunk -> {
+            Map<UUID, Document> documents = new HashMap<>();
+            try (MongoCursor<Document> cursor = c.find(Filters.in("_id", chunk)).iterator()) {
+                while (cursor.hasNext()) {
+                    Document d = cursor.next();
+                    documents.put(getDocumentId(d), d);
+                }
+            }
+
+            Map<UUID, User> map = new HashMap<>();
+            for (UUID uniqueId : chunk) {
+                try {
+                    User user = this.plugin.getUserManager().getOrMake(uniqueId, null);
+                    loadUser(c, user, documents.get(uniqueId));
+                    map.put(uniqueId, user);
+                } catch (Exception e) {
+                    this.plugin.getLogger().severe("Exception whilst loading user " + uniqueId, e);
+                }
+            }
+            return map;
+        });
+    }
+
+    private void loadUser(MongoCollection<Document> c, User user, Document d) {
+        if (d != null) {
+            // User exists, let's load.
+            String name = d.getString("name");
+
+            user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
+            user.setUsername(name, true);
+
+            user.loadNodesFromStorage(nodesFromDoc(d));
+            this.plugin.getUserManager().giveDefaultIfNeeded(user);
+
+
+            boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
+            if (updatedUsername | user.auditTemporaryNodes()) {
+                c.replaceOne(new Document("_id", user.getUniqueId()), userToDoc(user));
+            }
+        } else {
+            if (this.plugin.getUserManager().isNonDefaultUser(user)) {
+                user.loadNodesFromStorage(Collections.emptyList());
+                user.getPrimaryGroup().setStoredValue(null);
+                this.plugin.getUserManager().giveDefaultIfNeeded(user);
+            }
         }
-        return map;
     }
 
     @Override
@@ -381,17 +634,15 @@ public class MongoStorage implements StorageImplementation {
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         List<NodeEntry<UUID, N>> held = new ArrayList<>();
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-        try (MongoCursor<Document> cursor = c.find().iterator()) {
+        try (MongoCursor<Document> cursor = searchNodes(c, constraint)) {
             while (cursor.hasNext()) {
                 Document d = cursor.next();
                 UUID holder = getDocumentId(d);
 
-                Set<Node> nodes = new HashSet<>(nodesFromDoc(d));
-                for (Node e : nodes) {
-                    N match = constraint.match(e);
-                    if (match != null) {
-                        held.add(NodeEntry.of(holder, match));
-                    }
+                Node node = nodeFromDoc(d.get("permissions", Document.class));
+                N match = node == null ? null : constraint.match(node);
+                if (match != null) {
+                    held.add(NodeEntry.of(holder, match));
                 }
             }
         }
@@ -463,23 +714,35 @@ public class MongoStorage implements StorageImplementation {
     public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         List<NodeEntry<String, N>> held = new ArrayList<>();
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
-        try (MongoCursor<Document> cursor = c.find().iterator()) {
+        try (MongoCursor<Document> cursor = searchNodes(c, constraint)) {
             while (cursor.hasNext()) {
                 Document d = cursor.next();
                 String holder = d.getString("_id");
 
-                Set<Node> nodes = new HashSet<>(nodesFromDoc(d));
-                for (Node e : nodes) {
-                    N match = constraint.match(e);
-                    if (match != null) {
-                        held.add(NodeEntry.of(holder, match));
-                    }
+                Node node = nodeFromDoc(d.get("permissions", Document.class));
+                N match = node == null ? null : constraint.match(node);
+                if (match != null) {
+                    held.add(NodeEntry.of(holder, match));
                 }
             }
         }
         return held;
     }
 
+    /**
+     * Finds the nodes which might match the constraint, one document for each
+     * node, with the node in the "permissions" field.
+     */
+    private static MongoCursor<Document> searchNodes(MongoCollection<Document> c, ConstraintNodeMatcher<?> constraint) {
+        NodeFilter filter = NodeFilter.forKey(constraint.getConstraint());
+        return c.aggregate(Arrays.asList(
+                Aggregates.match(filter.documents()),
+                Aggregates.unwind("$permissions"),
+                Aggregates.match(filter.nodes("permissions.")),
+                Aggregates.project(Projections.include("permissions"))
+        )).collation(NodeFilter.COLLATION).iterator();
+    }
+
     @Override
     public Track createAndLoadTrack(String name) {
         Track track = this.plugin.getTrackManager().getOrMake(name);
@@ -574,6 +837,38 @@ public class MongoStorage implements StorageImplementation {
         return result;
     }
 
+    @Override
+    public PlayerLoginResult loginUser(UUID uniqueId, String username) {
+        username = username.toLowerCase(Locale.ROOT);
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "uuid");
+
+        // upsert the mapping, and get the previous value in the same operation
+        Document previous = c.findOneAndUpdate(
+                Filters.eq("_id", uniqueId),
+                Updates.set("name", username),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE)
+        );
+        String oldUsername = previous == null ? null : previous.getString("name");
+
+        PlayerSaveResultImpl saveResult = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
+
+        Set<UUID> conflicting = new HashSet<>();
+        try (MongoCursor<Document> cursor = c.find(Filters.and(Filters.eq("name", username), Filters.ne("_id", uniqueId))).iterator()) {
+            while (cursor.hasNext()) {
+                conflicting.add(getDocumentId(cursor.next()));
+            }
+        }
+
+        if (!conflicting.isEmpty()) {
+            // remove the mappings for conflicting uuids
+            c.deleteMany(Filters.in("_id", conflicting));
+            saveResult = saveResult.withOtherUuidsPresent(conflicting);
+        }
+
+        User user = loadUser(uniqueId, username);
+        return new PlayerLoginResult(saveResult, user);
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "uuid");
@@ -0,0 +1,268 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.mongodb;
+
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Filters;
+
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
+
+import net.luckperms.api.context.DefaultContextKeys;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Translates bulk update queries and node key constraints into filters on
+ * the node sub-documents stored in the "permissions" array of a holder.
+ *
+ * <p>Constraints which can't be expressed as a filter are left out, so the
+ * filter matches a superset of the nodes, and {@link #isExact()} returns false.</p>
+ *
+ * <p>Exact comparisons are expressed as equality filters, which are only
+ * case-insensitive (and able to use the node indexes) when the operation is
+ * run with {@link #COLLATION}. Regular expressions are only used for
+ * comparisons containing wildcards.</p>
+ */
+final class NodeFilter {
+
+    /**
+     * The collation node filters must be run with, and the node indexes created with.
+     */
+    public static final Collation COLLATION = Collation.builder()
+            .locale("en")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+
+    // node keys are stored in "key", or "permission" in the legacy format
+    private static final String[] KEY_FIELDS = {"key", "permission"};
+
+    private static final Pattern REGEX_SPECIAL_CHARACTERS = Pattern.compile("[\\\\^$|?*+()\\[\\]{}]");
+
+    public static NodeFilter of(List<Query> queries) {
+        List<Query> translatable = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            if (isTranslatable(query.getConstraint())) {
+                translatable.add(query);
+            }
+        }
+        return new NodeFilter(translatable, translatable.size() == queries.size());
+    }
+
+    public static NodeFilter forKey(Constraint constraint) {
+        return of(Collections.singletonList(Query.of(QueryField.PERMISSION, constraint)));
+    }
+
+    private final List<Query> queries;
+    private final boolean exact;
+
+    private NodeFilter(List<Query> queries, boolean exact) {
+        this.queries = queries;
+        this.exact = exact;
+    }
+
+    /**
+     * Gets if the filter matches exactly the nodes which satisfy the queries.
+     *
+     * @return if the filter is exact
+     */
+    public boolean isExact() {
+        return this.exact;
+    }
+
+    /**
+     * Gets a filter for holder documents containing at least one matching node.
+     *
+     * @return the document filter
+     */
+    public Bson documents() {
+        if (this.queries.isEmpty()) {
+            return new Document();
+        }
+
+        List<Bson> filters = new ArrayList<>();
+        for (Bson branch : branches("")) {
+            filters.add(Filters.elemMatch("permissions", branch));
+        }
+        return filters.size() == 1 ? filters.get(0) : Filters.or(filters);
+    }
+
+    /**
+     * Gets a filter for a single node sub-document.
+     *
+     * @param prefix the path to the node sub-document, e.g. "permissions." after an unwind
+     * @return the node filter
+     */
+    public Bson nodes(String prefix) {
+        if (this.queries.isEmpty()) {
+            return new Document();
+        }
+
+        List<Bson> branches = branches(prefix);
+        return branches.size() == 1 ? branches.get(0) : Filters.or(branches);
+    }
+
+    private List<Bson> branches(String prefix) {
+        List<Bson> contextFilters = new ArrayList<>();
+        List<Constraint> keyConstraints = new ArrayList<>();
+        for (Query query : this.queries) {
+            switch (query.getField()) {
+                case PERMISSION:
+                    keyConstraints.add(query.getConstraint());
+                    break;
+                case SERVER:
+                    contextFilters.add(contextFilter(prefix, DefaultContextKeys.SERVER_KEY, query.getConstraint()));
+                    break;
+                case WORLD:
+                    contextFilters.add(contextFilter(prefix, DefaultContextKeys.WORLD_KEY, query.getConstraint()));
+                    break;
+                default:
+                    throw new RuntimeException();
+            }
+        }
+
+        if (keyConstraints.isEmpty()) {
+            return Collections.singletonList(Filters.and(contextFilters));
+        }
+
+        // one branch for each key format, each able to use its own index
+        List<Bson> branches = new ArrayList<>(KEY_FIELDS.length);
+        for (String keyField : KEY_FIELDS) {
+            String field = prefix + keyField;
+            List<Bson> filters = new ArrayList<>();
+            filters.add(Filters.exists(field));
+            for (Constraint constraint : keyConstraints) {
+                filters.add(fieldFilter(field, constraint));
+            }
+            filters.addAll(contextFilters);
+            branches.add(Filters.and(filters));
+        }
+        return branches;
+    }
+
+    private static Bson contextFilter(String prefix, String contextKey, Constraint constraint) {
+        // the context is stored in the "context" list, or in a field of its own in the legacy format
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.elemMatch(prefix + "context", Filters.and(
+                Filters.eq("key", contextKey),
+                fieldFilter("value", constraint)
+        )));
+        filters.add(Filters.and(
+                Filters.exists(prefix + contextKey),
+                fieldFilter(prefix + contextKey, constraint)
+        ));
+
+        // nodes without the context are compared as "global"
+        if (constraint.eval("global")) {
+            filters.add(Filters.and(
+                    Filters.not(Filters.elemMatch(prefix + "context", Filters.eq("key", contextKey))),
+                    Filters.exists(prefix + contextKey, false)
+            ));
+        }
+        return Filters.or(filters);
+    }
+
+    private static Bson fieldFilter(String field, Constraint constraint) {
+        String expression = constraint.getExpressionValue();
+        switch ((StandardComparison) constraint.getComparison()) {
+            case EQUAL:
+                return Filters.eq(field, expression);
+            case NOT_EQUAL:
+                return Filters.ne(field, expression);
+            case SIMILAR:
+                return hasWildcards(expression) ? Filters.regex(field, toPattern(expression)) : Filters.eq(field, expression);
+            case NOT_SIMILAR:
+                return hasWildcards(expression) ? Filters.not(Filters.regex(field, toPattern(expression))) : Filters.ne(field, expression);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Gets if a constraint can be expressed as a filter.
+     *
+     * @param constraint the constraint
+     * @return if the constraint can be translated
+     */
+    private static boolean isTranslatable(Constraint constraint) {
+        if (!(constraint.getComparison() instanceof StandardComparison)) {
+            return false;
+        }
+
+        switch ((StandardComparison) constraint.getComparison()) {
+            case EQUAL:
+            case NOT_EQUAL:
+                return true;
+            case SIMILAR:
+            case NOT_SIMILAR:
+                // other than the wildcards, the expression is matched as a java regex,
+                // which doesn't always behave the same on the server
+                return !REGEX_SPECIAL_CHARACTERS.matcher(constraint.getExpressionValue()).find();
+            default:
+                return false;
+        }
+    }
+
+    private static boolean hasWildcards(String expression) {
+        return expression.contains(StandardComparison.WILDCARD) || expression.contains(StandardComparison.WILDCARD_ONE);
+    }
+
+    /**
+     * Converts a LIKE expression to an equivalent case-insensitive regex.
+     *
+     * @param expression the expression
+     * @return the pattern
+     */
+    private static Pattern toPattern(String expression) {
+        StringBuilder regex = new StringBuilder("^");
+        StringBuilder literal = new StringBuilder();
+        for (char c : expression.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() != 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() != 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.append('$').toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+}
@@ -28,6 +28,8 @@ package me.lucko.luckperms.common.storage.implementation.split;
 import com.google.common.collect.ImmutableMap;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
@@ -38,6 +40,7 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageType;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerLoginResult;
 
 import net.kyori.adventure.text.Component;
 import net.luckperms.api.actionlog.Action;
@@ -134,6 +137,11 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.LOG).getLog();
     }
 
+    @Override
+    public LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        return implFor(SplitStorageType.LOG).getLogPage(query, pageNumber, pageSize);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         StorageType userType = this.types.get(SplitStorageType.USER);
@@ -232,6 +240,15 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.UUID).savePlayerData(uniqueId, username);
     }
 
+    @Override
+    public PlayerLoginResult loginUser(UUID uniqueId, String username) throws Exception {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        if (userImpl == implFor(SplitStorageType.UUID)) {
+            return userImpl.loginUser(uniqueId, username);
+        }
+        return StorageImplementation.super.loginUser(uniqueId, username);
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws Exception {
         implFor(SplitStorageType.UUID).deletePlayerData(uniqueId);
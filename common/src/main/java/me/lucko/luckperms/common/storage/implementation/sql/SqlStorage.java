@@ -30,6 +30,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.gson.reflect.TypeToken;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdateStatistics;
@@ -45,7 +47,10 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.ConnectionFactory;
+import me.lucko.luckperms.common.storage.misc.ActionLogBuffer;
+import me.lucko.luckperms.common.storage.misc.ChunkedUserLoader;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.storage.misc.PlayerLoginResult;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.util.Difference;
 import me.lucko.luckperms.common.util.Uuids;
@@ -71,6 +76,7 @@ import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -103,7 +109,6 @@ public class SqlStorage implements StorageImplementation {
     private static final String PLAYER_DELETE_ALL_UUIDS_BY_USERNAME = "DELETE FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_SELECT_BY_UUID = "SELECT username, primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
     private static final String PLAYER_SELECT_BY_UUID_MULTIPLE = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE ";
-    private static final String PLAYER_SELECT_PRIMARY_GROUP_BY_UUID = "SELECT primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
     private static final String PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID = "UPDATE '{prefix}players' SET primary_group=? WHERE uuid=?";
 
     private static final String GROUP_PERMISSIONS_SELECT = "SELECT id, permission, value, server, world, expiry, contexts FROM '{prefix}group_permissions' WHERE name=?";
@@ -131,16 +136,51 @@ public class SqlStorage implements StorageImplementation {
 
     private static final String ACTION_INSERT = "INSERT INTO '{prefix}actions' (time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
+    private static final String ACTION_SELECT = "SELECT time, actor_uuid, actor_name, type, acted_uuid, acted_name, action FROM '{prefix}actions'";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
+
+    // indexes used to search nodes and filter the action log, ensured to exist on tables created by older versions
+    private static final Map<String, Map<String, String>> INDEXES = ImmutableMap.of(
+            "{prefix}user_permissions", ImmutableMap.of(
+                    "{prefix}user_permissions_uuid_permission", "CREATE INDEX '{prefix}user_permissions_uuid_permission' ON '{prefix}user_permissions' (uuid, permission)",
+                    "{prefix}user_permissions_permission", "CREATE INDEX '{prefix}user_permissions_permission' ON '{prefix}user_permissions' (permission, uuid)"
+            ),
+            "{prefix}group_permissions", ImmutableMap.of(
+                    "{prefix}group_permissions_name_permission", "CREATE INDEX '{prefix}group_permissions_name_permission' ON '{prefix}group_permissions' (name, permission)",
+                    "{prefix}group_permissions_permission", "CREATE INDEX '{prefix}group_permissions_permission' ON '{prefix}group_permissions' (permission, name)"
+            ),
+            "{prefix}actions", ImmutableMap.of(
+                    "{prefix}actions_time", "CREATE INDEX '{prefix}actions_time' ON '{prefix}actions' (time)",
+                    "{prefix}actions_actor_uuid", "CREATE INDEX '{prefix}actions_actor_uuid' ON '{prefix}actions' (actor_uuid, time)",
+                    "{prefix}actions_acted_uuid", "CREATE INDEX '{prefix}actions_acted_uuid' ON '{prefix}actions' (acted_uuid, time)",
+                    "{prefix}actions_acted_name", "CREATE INDEX '{prefix}actions_acted_name' ON '{prefix}actions' (acted_name, time)"
+            )
+    );
+
+    // the single column indexes created by older versions, superseded by the (holder, permission) indexes
+    private static final Map<String, String> SUPERSEDED_INDEXES = ImmutableMap.of(
+            "{prefix}user_permissions", "uuid",
+            "{prefix}group_permissions", "name"
+    );
+
+    private static final Map<String, String> INDEX_DROP = ImmutableMap.of(
+            "MySQL", "DROP INDEX '{index}' ON '{table}'",
+            "MariaDB", "DROP INDEX '{index}' ON '{table}'"
+    );
+    private static final String INDEX_DROP_DEFAULT = "DROP INDEX '{index}'";
 
     private final LuckPermsPlugin plugin;
     
     private final ConnectionFactory connectionFactory;
     private final Function<String, String> statementProcessor;
 
+    private final ActionLogBuffer actionLogBuffer;
+
     public SqlStorage(LuckPermsPlugin plugin, ConnectionFactory connectionFactory, String tablePrefix) {
         this.plugin = plugin;
         this.connectionFactory = connectionFactory;
         this.statementProcessor = connectionFactory.getStatementProcessor().compose(s -> s.replace("{prefix}", tablePrefix));
+        this.actionLogBuffer = new ActionLogBuffer(plugin.getBootstrap().getScheduler(), plugin.getLogger(), this::writeActions);
     }
 
     @Override
@@ -172,6 +212,75 @@ public class SqlStorage implements StorageImplementation {
 
         if (!tableExists) {
             applySchema();
+        } else {
+            try (Connection c = this.connectionFactory.getConnection()) {
+                for (Map.Entry<String, Map<String, String>> table : INDEXES.entrySet()) {
+                    applyIndexes(c, table.getKey(), table.getValue());
+                }
+            }
+        }
+    }
+
+    private void applyIndexes(Connection c, String tableName, Map<String, String> indexes) throws SQLException {
+        String table = this.statementProcessor.apply(tableName);
+
+        // the columns of each existing index, keyed by index name
+        Map<String, List<String>> existing = new HashMap<>();
+
+        // some databases (e.g. H2) store identifiers in upper case
+        for (String name : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = c.getMetaData().getIndexInfo(c.getCatalog(), null, name, false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String columnName = rs.getString("COLUMN_NAME");
+                    if (indexName != null && columnName != null) {
+                        existing.computeIfAbsent(indexName, k -> new ArrayList<>()).add(columnName.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            if (!existing.isEmpty()) {
+                table = name;
+                break;
+            }
+        }
+
+        Set<String> existingNames = existing.keySet().stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        boolean created = true;
+        try (Statement s = c.createStatement()) {
+            for (Map.Entry<String, String> index : indexes.entrySet()) {
+                String name = this.statementProcessor.apply(index.getKey());
+                if (!existingNames.contains(name.toLowerCase(Locale.ROOT))) {
+                    this.plugin.getLogger().info("Creating index " + name + " on the " + table + " table, this may take a while...");
+                    try {
+                        s.execute(this.statementProcessor.apply(index.getValue()));
+                    } catch (SQLException e) {
+                        // the index only makes queries faster, so carry on without it
+                        this.plugin.getLogger().warn("Unable to create index " + name, e);
+                        created = false;
+                    }
+                }
+            }
+
+            // drop the indexes made redundant by those above, so writes don't maintain both
+            String supersededColumn = SUPERSEDED_INDEXES.get(tableName);
+            if (supersededColumn != null && created) {
+                String drop = this.statementProcessor.apply(INDEX_DROP.getOrDefault(this.connectionFactory.getImplementationName(), INDEX_DROP_DEFAULT));
+                for (Map.Entry<String, List<String>> index : existing.entrySet()) {
+                    if (!index.getValue().equals(Collections.singletonList(supersededColumn))) {
+                        continue;
+                    }
+
+                    this.plugin.getLogger().info("Dropping redundant index " + index.getKey() + " on the " + table + " table...");
+                    try {
+                        s.execute(drop.replace("{index}", index.getKey()).replace("{table}", table));
+                    } catch (SQLException e) {
+                        this.plugin.getLogger().warn("Unable to drop index " + index.getKey(), e);
+                    }
+                }
+            }
         }
     }
 
@@ -223,6 +332,7 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public void shutdown() {
+        this.actionLogBuffer.flush();
         try {
             this.connectionFactory.shutdown();
         } catch (Exception e) {
@@ -246,17 +356,25 @@ public class SqlStorage implements StorageImplementation {
     }
 
     @Override
-    public void logAction(Action entry) throws SQLException {
+    public void logAction(Action entry) {
+        this.actionLogBuffer.add(entry);
+    }
+
+    private void writeActions(List<Action> entries) throws SQLException {
         try (Connection c = this.connectionFactory.getConnection()) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_INSERT))) {
-                writeAction(entry, ps);
-                ps.execute();
+                for (Action entry : entries) {
+                    writeAction(entry, ps);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
             }
         }
     }
 
     @Override
     public Log getLog() throws SQLException {
+        this.actionLogBuffer.flush();
         final Log.Builder log = Log.builder();
         try (Connection c = this.connectionFactory.getConnection()) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_SELECT_ALL))) {
@@ -270,6 +388,80 @@ public class SqlStorage implements StorageImplementation {
         return log.build();
     }
 
+    @Override
+    public LogPage getLogPage(LogQuery query, int pageNumber, int pageSize) throws Exception {
+        this.actionLogBuffer.flush();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            int total;
+
+            PreparedStatementBuilder count = new PreparedStatementBuilder().append(ACTION_COUNT);
+            appendActionConstraints(count, query);
+            try (PreparedStatement ps = count.build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    total = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+
+            return LogPage.create(pageNumber, pageSize, total, (skip, limit) -> {
+                PreparedStatementBuilder select = new PreparedStatementBuilder().append(ACTION_SELECT);
+                appendActionConstraints(select, query);
+                select.append(" ORDER BY time DESC, id DESC LIMIT ").variable(limit).append(" OFFSET ").variable(skip);
+
+                List<LoggedAction> actions = new ArrayList<>(limit);
+                try (PreparedStatement ps = select.build(c, this.statementProcessor)) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            actions.add(readAction(rs));
+                        }
+                    }
+                }
+                return actions;
+            });
+        }
+    }
+
+    private static void appendActionConstraints(PreparedStatementBuilder builder, LogQuery query) {
+        if (query.isEmpty()) {
+            return;
+        }
+
+        builder.append(" WHERE ");
+
+        String and = "";
+        if (query.getSource() != null) {
+            builder.append(and).append("actor_uuid = ").variable(query.getSource().toString());
+            and = " AND ";
+        }
+        if (query.getTargetType() != null) {
+            builder.append(and).append("type = ").variable(Character.toString(LoggedAction.getTypeCharacter(query.getTargetType())));
+            and = " AND ";
+        }
+        if (query.getTargetUniqueId() != null) {
+            builder.append(and).append("acted_uuid = ").variable(query.getTargetUniqueId().toString());
+            and = " AND ";
+        }
+        if (query.getTargetName() != null) {
+            builder.append(and).append("acted_name = ").variable(query.getTargetName());
+            and = " AND ";
+        }
+        if (query.getSince() != null) {
+            builder.append(and).append("time >= ").variable(query.getSince().getEpochSecond());
+            and = " AND ";
+        }
+        if (query.getUntil() != null) {
+            builder.append(and).append("time < ").variable(query.getUntil().getEpochSecond());
+            and = " AND ";
+        }
+        if (query.getSearch() != null) {
+            String pattern = "%" + query.getSearch().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+            builder.append(and).append('(')
+                    .append("LOWER(actor_name) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(" OR LOWER(acted_name) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(" OR LOWER(action) LIKE ").variable(pattern).append(" ESCAPE ").variable("!")
+                    .append(')');
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         BulkUpdateStatistics stats = bulkUpdate.getStatistics();
@@ -346,6 +538,11 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
+        // bounds the length of the IN (...) lists
+        return ChunkedUserLoader.load(this.plugin, uniqueIds, this::loadUserChunk);
+    }
+
+    private Map<UUID, User> loadUserChunk(Set<UUID> uniqueIds) throws SQLException {
         Map<UUID, List<Node>> nodesMap;
         Map<UUID, SqlPlayerData> playerDataMap;
 
@@ -358,7 +555,11 @@ public class SqlStorage implements StorageImplementation {
         for (UUID uniqueId : uniqueIds) {
             SqlPlayerData playerData = playerDataMap.get(uniqueId);
             List<Node> nodes = nodesMap.get(uniqueId);
-            users.put(uniqueId, createUser(uniqueId, null, playerData, nodes, false));
+            try {
+                users.put(uniqueId, createUser(uniqueId, null, playerData, nodes, true));
+            } catch (Exception e) {
+                this.plugin.getLogger().severe("Exception whilst loading user " + uniqueId, e);
+            }
         }
         return users;
     }
@@ -408,12 +609,15 @@ public class SqlStorage implements StorageImplementation {
             return;
         }
 
+        // write the node changes and player data in a single transaction
         try (Connection c = this.connectionFactory.getConnection()) {
-            updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
-            insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
-                    user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
-                    user.getUsername().orElse("null").toLowerCase(Locale.ROOT)
-            ));
+            inTransaction(c, () -> {
+                updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
+                insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
+                        user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
+                        user.getUsername().orElse("null").toLowerCase(Locale.ROOT)
+                ));
+            });
         }
     }
 
@@ -520,7 +724,7 @@ public class SqlStorage implements StorageImplementation {
 
         if (!changes.isEmpty()) {
             try (Connection c = this.connectionFactory.getConnection()) {
-                updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
+                inTransaction(c, () -> updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved()));
             }
         }
     }
@@ -696,6 +900,91 @@ public class SqlStorage implements StorageImplementation {
         return result;
     }
 
+    @Override
+    public PlayerLoginResult loginUser(UUID uniqueId, String username) throws SQLException {
+        username = username.toLowerCase(Locale.ROOT);
+
+        SqlPlayerData existingPlayerData;
+        Set<UUID> conflicting = new HashSet<>();
+        List<Node> nodes;
+
+        // perform the player data upsert, conflict check and user load
+        // on a single connection, in a single transaction
+        try (Connection c = this.connectionFactory.getConnection()) {
+            boolean transaction = this.connectionFactory.supportsTransactions() && c.getAutoCommit();
+            if (transaction) {
+                c.setAutoCommit(false);
+            }
+
+            try {
+                existingPlayerData = selectPlayerData(c, uniqueId);
+                if (existingPlayerData == null) {
+                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT))) {
+                        ps.setString(1, uniqueId.toString());
+                        ps.setString(2, username);
+                        ps.setString(3, GroupManager.DEFAULT_GROUP_NAME);
+                        ps.execute();
+                    }
+                } else if (!username.equals(existingPlayerData.username)) {
+                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
+                        ps.setString(1, username);
+                        ps.setString(2, uniqueId.toString());
+                        ps.execute();
+                    }
+                }
+
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_ALL_UUIDS_BY_USERNAME))) {
+                    ps.setString(1, username);
+                    ps.setString(2, uniqueId.toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            conflicting.add(UUID.fromString(rs.getString("uuid")));
+                        }
+                    }
+                }
+
+                if (!conflicting.isEmpty()) {
+                    // remove the mappings for conflicting uuids
+                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
+                        ps.setString(1, username);
+                        ps.setString(2, uniqueId.toString());
+                        ps.execute();
+                    }
+                }
+
+                nodes = selectUserPermissions(c, uniqueId);
+
+                if (transaction) {
+                    c.commit();
+                }
+            } catch (SQLException e) {
+                if (transaction) {
+                    c.rollback();
+                }
+                throw e;
+            } finally {
+                if (transaction) {
+                    c.setAutoCommit(true);
+                }
+            }
+        }
+
+        String oldUsername = existingPlayerData == null ? null : existingPlayerData.username;
+        PlayerSaveResultImpl saveResult = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
+        if (!conflicting.isEmpty()) {
+            saveResult = saveResult.withOtherUuidsPresent(conflicting);
+        }
+
+        // the player data row now reflects the new username
+        SqlPlayerData playerData = new SqlPlayerData(
+                existingPlayerData == null ? GroupManager.DEFAULT_GROUP_NAME : existingPlayerData.primaryGroup,
+                username
+        );
+        User user = createUser(uniqueId, username, playerData, nodes, true);
+
+        return new PlayerLoginResult(saveResult, user);
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws SQLException {
         try (Connection c = this.connectionFactory.getConnection()) {
@@ -873,6 +1162,45 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    /**
+     * Runs an action using the connection, in a single transaction if the database supports them.
+     *
+     * <p>Committing once means the changes are written together, rather than
+     * each statement in a batch being committed on its own.</p>
+     *
+     * @param c the connection
+     * @param action the action
+     * @throws SQLException if the action fails, after the transaction is rolled back
+     */
+    private void inTransaction(Connection c, SqlAction action) throws SQLException {
+        boolean transaction = this.connectionFactory.supportsTransactions() && c.getAutoCommit();
+        if (transaction) {
+            c.setAutoCommit(false);
+        }
+
+        try {
+            action.run();
+
+            if (transaction) {
+                c.commit();
+            }
+        } catch (SQLException e) {
+            if (transaction) {
+                c.rollback();
+            }
+            throw e;
+        } finally {
+            if (transaction) {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
     private List<Node> selectUserPermissions(Connection c, UUID user) throws SQLException {
         List<Node> nodes = new ArrayList<>();
         try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_SELECT))) {
@@ -881,7 +1209,7 @@ public class SqlStorage implements StorageImplementation {
                 while (rs.next()) {
                     Node node = readNode(rs);
                     if (node != null) {
-                        nodes.add(readNode(rs));
+                        nodes.add(node);
                     }
                 }
             }
@@ -967,23 +1295,15 @@ public class SqlStorage implements StorageImplementation {
     }
 
     private void insertPlayerData(Connection c, UUID user, SqlPlayerData data) throws SQLException {
-        boolean hasPrimaryGroupSaved;
-        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_PRIMARY_GROUP_BY_UUID))) {
-            ps.setString(1, user.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                hasPrimaryGroupSaved = rs.next();
-            }
+        // try to update an existing row first, and only insert if there wasn't one
+        int updated;
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID))) {
+            ps.setString(1, data.primaryGroup);
+            ps.setString(2, user.toString());
+            updated = ps.executeUpdate();
         }
 
-        if (hasPrimaryGroupSaved) {
-            // update
-            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID))) {
-                ps.setString(1, data.primaryGroup);
-                ps.setString(2, user.toString());
-                ps.execute();
-            }
-        } else {
-            // insert
+        if (updated == 0) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT))) {
                 ps.setString(1, user.toString());
                 ps.setString(2, data.username);
@@ -52,4 +52,13 @@ public interface ConnectionFactory {
 
     Connection getConnection() throws SQLException;
 
+    /**
+     * Gets if connections returned by this factory can be used for transactions.
+     *
+     * @return true if transactions are supported
+     */
+    default boolean supportsTransactions() {
+        return true;
+    }
+
 }
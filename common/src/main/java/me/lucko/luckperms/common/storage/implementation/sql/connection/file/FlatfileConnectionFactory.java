@@ -75,6 +75,12 @@ abstract class FlatfileConnectionFactory implements ConnectionFactory {
         return connection;
     }
 
+    @Override
+    public boolean supportsTransactions() {
+        // the same connection is shared between all threads
+        return false;
+    }
+
     @Override
     public void shutdown() throws Exception {
         if (this.connection != null) {
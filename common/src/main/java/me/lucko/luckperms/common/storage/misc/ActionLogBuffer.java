@@ -0,0 +1,215 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+
+import net.luckperms.api.actionlog.Action;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers action log entries, and writes them to storage in batches.
+ *
+ * <p>Entries are written once a full batch is waiting, or at most a second
+ * after they were added. If the queue fills up faster than entries can be
+ * written, the thread adding an entry writes a batch itself.</p>
+ *
+ * <p>A batch which fails to be written is kept, and retried before any other
+ * entries on the next flush. Whilst writes are failing, entries are only
+ * buffered up to {@link #QUEUE_CAPACITY}, and any more are dropped and counted.</p>
+ */
+public final class ActionLogBuffer {
+
+    /** The maximum number of entries written in a single batch */
+    static final int BATCH_SIZE = 100;
+
+    /** The maximum number of entries waiting to be written, including a failed batch */
+    static final int QUEUE_CAPACITY = 10000;
+
+    /** The maximum time in milliseconds an entry waits before it is written */
+    static final long FLUSH_DELAY = 1000;
+
+    /**
+     * Writes a batch of entries to storage.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<Action> entries) throws Exception;
+    }
+
+    private final SchedulerAdapter scheduler;
+    private final PluginLogger logger;
+    private final BatchWriter writer;
+
+    // room is left for a failed batch, so the total never exceeds QUEUE_CAPACITY
+    private final BlockingQueue<Action> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY - BATCH_SIZE);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    /** A batch which failed to be written, to be retried first. Only modified whilst holding the flush lock */
+    private volatile List<Action> failedBatch = null;
+
+    /** The number of entries dropped because the queue was full */
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    /** The value of {@link #dropped} when it was last reported. Guarded by the flush lock */
+    private long droppedReported = 0;
+
+    public ActionLogBuffer(SchedulerAdapter scheduler, PluginLogger logger, BatchWriter writer) {
+        this.scheduler = scheduler;
+        this.logger = logger;
+        this.writer = writer;
+    }
+
+    public void add(Action entry) {
+        if (!this.queue.offer(entry)) {
+            // make room by writing a batch, unless writes are currently failing,
+            // in which case the scheduled flush retries them
+            if (this.failedBatch == null) {
+                flush();
+            }
+            if (!this.queue.offer(entry)) {
+                if (this.dropped.getAndIncrement() == 0) {
+                    this.logger.warn("The action log buffer is full, new entries will be dropped until they can be written");
+                }
+                scheduleFlush();
+                return;
+            }
+        }
+
+        if (this.queue.size() >= BATCH_SIZE && this.failedBatch == null) {
+            // write the batch now, unless another thread is already writing
+            if (this.flushLock.tryLock()) {
+                try {
+                    writeBatches();
+                } finally {
+                    this.flushLock.unlock();
+                }
+            }
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * Writes all of the entries which are waiting to be written.
+     *
+     * <p>If a batch fails to be written, it is kept to be retried, and the
+     * remaining entries are left in the queue.</p>
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            writeBatches();
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of entries waiting to be written, including a failed batch.
+     *
+     * @return the number of pending entries
+     */
+    public int getPendingCount() {
+        List<Action> failedBatch = this.failedBatch;
+        return this.queue.size() + (failedBatch == null ? 0 : failedBatch.size());
+    }
+
+    /**
+     * Gets the total number of entries which have been dropped because the buffer was full.
+     *
+     * @return the number of dropped entries
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    private void scheduleFlush() {
+        if (getPendingCount() == 0 || !this.flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.scheduler.asyncLater(() -> {
+                this.flushScheduled.set(false);
+                flush();
+                scheduleFlush();
+            }, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the scheduler has been shutdown, the entries are written when the storage is
+            this.flushScheduled.set(false);
+        }
+    }
+
+    private void writeBatches() {
+        if (this.failedBatch != null) {
+            if (!write(this.failedBatch, true)) {
+                return;
+            }
+            this.failedBatch = null;
+        }
+
+        List<Action> batch = new ArrayList<>(BATCH_SIZE);
+        while (this.queue.drainTo(batch, BATCH_SIZE) != 0) {
+            if (!write(batch, false)) {
+                this.failedBatch = batch;
+                return;
+            }
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+
+    private boolean write(List<Action> batch, boolean retry) {
+        try {
+            this.writer.write(batch);
+        } catch (Exception e) {
+            // only log the first failure, rather than every retry
+            if (!retry) {
+                this.logger.severe("Exception whilst writing " + batch.size() + " action log entries, they will be retried", e);
+            }
+            return false;
+        }
+
+        long dropped = this.dropped.get();
+        if (dropped != this.droppedReported) {
+            this.logger.warn("Dropped " + (dropped - this.droppedReported) + " action log entries whilst the action log buffer was full");
+            this.droppedReported = dropped;
+        }
+        return true;
+    }
+
+}
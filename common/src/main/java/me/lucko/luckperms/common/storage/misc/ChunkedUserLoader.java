@@ -0,0 +1,122 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import com.google.common.collect.Iterables;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CompletableFutures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Loads a large number of users by splitting them into chunks, and loading
+ * a number of chunks at the same time using the async scheduler.
+ *
+ * <p>The chunk size and the number of chunks loaded at once are set in the config.</p>
+ */
+public final class ChunkedUserLoader {
+    private ChunkedUserLoader() {}
+
+    /**
+     * Loads a chunk of users.
+     */
+    @FunctionalInterface
+    public interface ChunkLoader {
+
+        /**
+         * Loads the users in the chunk. Called concurrently for different chunks.
+         *
+         * @param chunk the unique ids of the users to load
+         * @return the loaded users
+         * @throws Exception if an error occurs
+         */
+        Map<UUID, User> load(Set<UUID> chunk) throws Exception;
+    }
+
+    /**
+     * Loads the given users.
+     *
+     * <p>If a chunk fails to load, the error is logged and the remaining chunks
+     * are still loaded, so one bad record can't prevent every other user from
+     * loading. The users in a failed chunk are omitted from the result.</p>
+     *
+     * @param plugin the plugin instance
+     * @param uniqueIds the unique ids of the users to load
+     * @param loader the chunk loader
+     * @return the users which were loaded
+     */
+    public static Map<UUID, User> load(LuckPermsPlugin plugin, Set<UUID> uniqueIds, ChunkLoader loader) {
+        int chunkSize = plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_CHUNK_SIZE);
+        if (uniqueIds.size() <= chunkSize) {
+            Map<UUID, User> users = new HashMap<>(uniqueIds.size());
+            loadChunk(plugin, loader, uniqueIds, users);
+            return users;
+        }
+
+        Queue<Set<UUID>> chunks = new ConcurrentLinkedQueue<>();
+        for (List<UUID> chunk : Iterables.partition(uniqueIds, chunkSize)) {
+            chunks.add(new HashSet<>(chunk));
+        }
+
+        // each worker keeps taking chunks until there are none left
+        int parallelism = Math.min(plugin.getConfiguration().get(ConfigKeys.USER_BULK_LOAD_PARALLELISM), chunks.size());
+        Map<UUID, User> users = new ConcurrentHashMap<>(uniqueIds.size());
+        List<CompletableFuture<Void>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                Set<UUID> chunk;
+                while ((chunk = chunks.poll()) != null) {
+                    loadChunk(plugin, loader, chunk, users);
+                }
+            }, plugin.getBootstrap().getScheduler().async()));
+        }
+
+        CompletableFutures.allOf(workers).join();
+        return new HashMap<>(users);
+    }
+
+    private static void loadChunk(LuckPermsPlugin plugin, ChunkLoader loader, Set<UUID> chunk, Map<UUID, User> users) {
+        try {
+            users.putAll(loader.load(chunk));
+        } catch (Exception e) {
+            plugin.getLogger().severe("Exception whilst loading a chunk of " + chunk.size() + " users", e);
+        }
+    }
+
+}
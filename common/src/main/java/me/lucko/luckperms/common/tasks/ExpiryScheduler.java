@@ -0,0 +1,227 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.tasks;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+
+import net.luckperms.api.node.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes temporary nodes from holders when they expire.
+ *
+ * <p>Holders are scheduled by {@link me.lucko.luckperms.common.model.nodemap.NodeMapMutable}
+ * whenever a node with an expiry time is added. Pending expiries are kept in a queue ordered
+ * by expiry time, and the scheduler only wakes when the earliest of them is due, at which point
+ * only the holders with nodes due to expire are audited.</p>
+ *
+ * <p>Entries are not removed from the queue when the node is removed before it expires - the
+ * holder is instead audited when the entry is due, which is then a no-op.</p>
+ */
+public class ExpiryScheduler implements Runnable {
+    private final LuckPermsPlugin plugin;
+
+    /** The pending expiries, ordered by expiry time */
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    /** The entries in the queue, used to avoid scheduling duplicates when a holder is reloaded */
+    private final Set<Entry> pending = new HashSet<>();
+
+    /** The currently scheduled wake-up task */
+    private SchedulerTask task = null;
+
+    /** The time the current task is scheduled to run at */
+    private long taskTime = Long.MAX_VALUE;
+
+    /** If the scheduler has been closed */
+    private boolean closed = false;
+
+    public ExpiryScheduler(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Schedules the holder to be audited once the given node expires.
+     *
+     * @param holder the holder
+     * @param node the node
+     */
+    public void schedule(PermissionHolder holder, Node node) {
+        if (!node.hasExpiry()) {
+            return;
+        }
+
+        // Node#hasExpired is only true once the expiry time has passed
+        long time = node.getExpiry().toEpochMilli() + 1;
+
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            Entry entry = new Entry(holder, time);
+            if (!this.pending.add(entry)) {
+                return;
+            }
+            this.queue.add(entry);
+            if (time < this.taskTime) {
+                reschedule(time);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        Set<PermissionHolder> holders = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        synchronized (this) {
+            this.task = null;
+            this.taskTime = Long.MAX_VALUE;
+
+            long now = System.currentTimeMillis();
+            while (!this.queue.isEmpty() && this.queue.peek().time <= now) {
+                Entry entry = this.queue.poll();
+                this.pending.remove(entry);
+
+                PermissionHolder holder = entry.holder.get();
+                if (holder != null) {
+                    holders.add(holder);
+                }
+            }
+        }
+
+        for (PermissionHolder holder : holders) {
+            try {
+                audit(holder);
+            } catch (Exception e) {
+                this.plugin.getLogger().warn("Exception occurred whilst expiring temporary nodes for " + holder.getPlainDisplayName(), e);
+            }
+        }
+
+        synchronized (this) {
+            Entry next = this.queue.peek();
+            if (next != null && next.time < this.taskTime) {
+                reschedule(next.time);
+            }
+        }
+    }
+
+    private void audit(PermissionHolder holder) {
+        if (holder instanceof User) {
+            User user = (User) holder;
+
+            // ignore holders which have since been unloaded
+            if (this.plugin.getUserManager().getIfLoaded(user.getUniqueId()) != user) {
+                return;
+            }
+            if (user.auditTemporaryNodes()) {
+                this.plugin.getStorage().saveUser(user);
+            }
+        } else if (holder instanceof Group) {
+            Group group = (Group) holder;
+
+            if (this.plugin.getGroupManager().getIfLoaded(group.getName()) != group) {
+                return;
+            }
+            if (group.auditTemporaryNodes()) {
+                this.plugin.getStorage().saveGroup(group);
+                group.invalidateDependentCaches();
+            }
+        }
+    }
+
+    // must be called while holding the monitor
+    private void reschedule(long time) {
+        if (this.task != null) {
+            this.task.cancel();
+        }
+        long delay = Math.max(0, time - System.currentTimeMillis());
+        this.task = this.plugin.getBootstrap().getScheduler().asyncLater(this, delay, TimeUnit.MILLISECONDS);
+        this.taskTime = time;
+    }
+
+    /**
+     * Removes entries for holders which have since been garbage collected.
+     */
+    public synchronized void cleanup() {
+        this.queue.removeIf(entry -> entry.holder.get() == null);
+        this.pending.removeIf(entry -> entry.holder.get() == null);
+    }
+
+    /**
+     * Stops the scheduler, cancelling any pending wake-up.
+     */
+    public synchronized void close() {
+        this.closed = true;
+        this.queue.clear();
+        this.pending.clear();
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final WeakReference<PermissionHolder> holder;
+        private final long time;
+        private final int hashCode;
+
+        Entry(PermissionHolder holder, long time) {
+            this.holder = new WeakReference<>(holder);
+            this.time = time;
+            this.hashCode = 31 * System.identityHashCode(holder) + Long.hashCode(time);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry other = (Entry) o;
+            PermissionHolder holder = this.holder.get();
+            return this.time == other.time && holder != null && holder == other.holder.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(this.time, other.time);
+        }
+    }
+}
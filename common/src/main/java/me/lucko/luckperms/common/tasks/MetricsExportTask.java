@@ -25,37 +25,41 @@
 
 package me.lucko.luckperms.common.tasks;
 
-import me.lucko.luckperms.common.model.Group;
-import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.metrics.PrometheusExporter;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
-public class ExpireTemporaryTask implements Runnable {
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the plugin metrics to a file in the data directory, in the Prometheus text format.
+ */
+public class MetricsExportTask implements Runnable {
     private final LuckPermsPlugin plugin;
 
-    public ExpireTemporaryTask(LuckPermsPlugin plugin) {
+    public MetricsExportTask(LuckPermsPlugin plugin) {
         this.plugin = plugin;
     }
 
-    @Override
-    public void run() {
-        boolean groupChanges = false;
-        for (Group group : this.plugin.getGroupManager().getAll().values()) {
-            if (group.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveGroup(group);
-                groupChanges = true;
-            }
-        }
+    public Path getFile() {
+        return this.plugin.getBootstrap().getDataDirectory().resolve("metrics.prom");
+    }
 
-        for (User user : this.plugin.getUserManager().getAll().values()) {
-            if (user.auditTemporaryNodes()) {
-                this.plugin.getStorage().saveUser(user);
-            }
-        }
+    /**
+     * Writes the metrics to {@link #getFile()}.
+     *
+     * @throws IOException if an error occurs whilst writing
+     */
+    public void export() throws IOException {
+        PrometheusExporter.export(this.plugin.getMetrics(), getFile());
+    }
 
-        if (groupChanges) {
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+    @Override
+    public void run() {
+        try {
+            export();
+        } catch (IOException e) {
+            this.plugin.getLogger().warn("Unable to export metrics to " + getFile(), e);
         }
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.tasks;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sync task which only reloads specific groups and tracks.
+ *
+ * <p>Used in place of a {@link SyncTask} when another server reports exactly
+ * which groups and tracks it has changed.</p>
+ */
+public class PartialSyncTask implements Runnable {
+    private final LuckPermsPlugin plugin;
+    private final Set<String> groups;
+    private final Set<String> tracks;
+
+    public PartialSyncTask(LuckPermsPlugin plugin, Set<String> groups, Set<String> tracks) {
+        this.plugin = plugin;
+        this.groups = groups;
+        this.tracks = tracks;
+    }
+
+    /**
+     * Runs the update task
+     *
+     * <p>Called <b>async</b>.</p>
+     */
+    @Override
+    public void run() {
+        if (this.plugin.getEventDispatcher().dispatchPreSync(false)) {
+            return;
+        }
+
+        try {
+            sync();
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Exception occurred whilst performing a partial sync, falling back to a full sync", e);
+            this.plugin.getSyncTaskBuffer().request();
+            return;
+        }
+
+        this.plugin.getEventDispatcher().dispatchPostSync();
+    }
+
+    private void sync() {
+        boolean groupsRemoved = false;
+
+        for (String name : this.groups) {
+            Optional<Group> group = this.plugin.getStorage().loadGroup(name).join();
+            if (group.isPresent()) {
+                group.get().invalidateDependentCaches();
+            } else if (name.equals(GroupManager.DEFAULT_GROUP_NAME)) {
+                // the default group needs to be recreated
+                throw new IllegalStateException("default group is missing");
+            } else if (this.plugin.getGroupManager().isLoaded(name)) {
+                // the group has been deleted
+                this.plugin.getGroupManager().unload(name);
+                groupsRemoved = true;
+            }
+        }
+
+        for (String name : this.tracks) {
+            Optional<Track> track = this.plugin.getStorage().loadTrack(name).join();
+            if (!track.isPresent()) {
+                // the track has been deleted
+                this.plugin.getTrackManager().unload(name);
+            }
+        }
+
+        if (groupsRemoved) {
+            this.plugin.getGroupManager().invalidateAllGroupCaches();
+            this.plugin.getUserManager().invalidateAllUserCaches();
+        }
+    }
+}
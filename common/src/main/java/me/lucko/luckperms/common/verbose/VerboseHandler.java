@@ -27,7 +27,8 @@ package me.lucko.luckperms.common.verbose;
 
 import me.lucko.luckperms.common.cacheddata.result.StringResult;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
@@ -37,31 +38,47 @@ import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Accepts {@link VerboseEvent}s and passes them onto registered {@link VerboseListener}s.
+ *
+ * <p>Events are tested against the filter of each listener on the thread which made
+ * the check, so that only events which will actually be recorded are queued, and
+ * so that the (comparatively expensive) stack trace is only captured for those.</p>
  */
 public class VerboseHandler implements AutoCloseable {
 
+    /** The maximum number of events waiting to be handled before new events are dropped */
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private final LuckPermsPlugin plugin;
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
-    /** A queue of verbose events to be handled */
-    private final Queue<VerboseEvent> queue;
-    /** If there are any listeners registered */
-    private boolean listening = false;
+    /** A snapshot of the registered listeners, empty if there are none */
+    private volatile VerboseListener[] activeListeners = new VerboseListener[0];
+    /** A bounded queue of verbose events to be handled */
+    private final BlockingQueue<QueuedEvent> queue;
+    /** A stack trace is captured for one in every n matched events */
+    private volatile int traceSamplingRate = 1;
+    /** The maximum number of stack trace elements kept for each event */
+    private volatile int traceDepth = Integer.MAX_VALUE;
     /** The tick task */
     private final SchedulerTask task;
 
-    public VerboseHandler(SchedulerAdapter scheduler) {
+    public VerboseHandler(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
-        this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.task = plugin.getBootstrap().getScheduler().asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -78,16 +95,15 @@ public class VerboseHandler implements AutoCloseable {
      */
     public void offerPermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String permission, TristateResult result) {
         // don't bother even processing the check if there are no listeners registered
-        if (!this.listening) {
+        VerboseListener[] listeners = this.activeListeners;
+        if (listeners.length == 0) {
             return;
         }
 
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        offer(listeners, new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, permission, result));
     }
 
     /**
@@ -104,16 +120,45 @@ public class VerboseHandler implements AutoCloseable {
      */
     public void offerMetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String key, StringResult<?> result) {
         // don't bother even processing the check if there are no listeners registered
-        if (!this.listening) {
+        VerboseListener[] listeners = this.activeListeners;
+        if (listeners.length == 0) {
             return;
         }
 
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
         String thread = Thread.currentThread().getName();
 
+        offer(listeners, new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, thread, key, result));
+    }
+
+    private void offer(VerboseListener[] listeners, VerboseEvent event) {
+        // test the event against each listener's filter now, using only the check data
+        List<VerboseListener> matched = null;
+        for (VerboseListener listener : listeners) {
+            if (listener.test(event)) {
+                if (matched == null) {
+                    matched = new ArrayList<>(listeners.length);
+                }
+                matched.add(listener);
+            }
+        }
+
+        if (matched == null) {
+            return;
+        }
+
+        // only capture a stack trace for the events we are going to keep
+        int samplingRate = this.traceSamplingRate;
+        if (samplingRate <= 1 || ThreadLocalRandom.current().nextInt(samplingRate) == 0) {
+            event.setCheckTrace(new Throwable());
+        }
+
         // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        if (!this.queue.offer(new QueuedEvent(event, matched))) {
+            for (VerboseListener listener : matched) {
+                listener.recordDropped();
+            }
+        }
     }
 
     /**
@@ -127,8 +172,11 @@ public class VerboseHandler implements AutoCloseable {
         // flush out anything before this listener was added
         flush();
 
+        this.traceSamplingRate = this.plugin.getConfiguration().get(ConfigKeys.VERBOSE_TRACE_SAMPLING_RATE);
+        this.traceDepth = this.plugin.getConfiguration().get(ConfigKeys.VERBOSE_TRACE_DEPTH);
+
         this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify));
-        this.listening = true;
+        updateActiveListeners();
     }
 
     /**
@@ -141,27 +189,34 @@ public class VerboseHandler implements AutoCloseable {
         // immediately flush, so the listener gets all current data
         flush();
 
-        return this.listeners.remove(sender.getUniqueId());
+        VerboseListener listener = this.listeners.remove(sender.getUniqueId());
+        updateActiveListeners();
+        return listener;
     }
 
     private void tick() {
         // remove listeners where the sender is no longer valid
-        this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid());
+        if (this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid())) {
+            updateActiveListeners();
+        }
 
         // handle all events in the queue
         flush();
+    }
 
-        // update listening state
-        this.listening = !this.listeners.isEmpty();
+    private void updateActiveListeners() {
+        this.activeListeners = this.listeners.values().toArray(new VerboseListener[0]);
     }
 
     /**
      * Flushes the pending events to listeners.
      */
     public synchronized void flush() {
-        for (VerboseEvent e; (e = this.queue.poll()) != null; ) {
-            for (VerboseListener listener : this.listeners.values()) {
-                listener.acceptEvent(e);
+        int traceDepth = this.traceDepth;
+        for (QueuedEvent e; (e = this.queue.poll()) != null; ) {
+            e.event.trimCheckTrace(traceDepth);
+            for (VerboseListener listener : e.listeners) {
+                listener.acceptEvent(e.event);
             }
         }
     }
@@ -171,4 +226,17 @@ public class VerboseHandler implements AutoCloseable {
         this.task.cancel();
     }
 
+    /**
+     * A queued event, along with the listeners whose filter it matched.
+     */
+    private static final class QueuedEvent {
+        private final VerboseEvent event;
+        private final List<VerboseListener> listeners;
+
+        QueuedEvent(VerboseEvent event, List<VerboseListener> listeners) {
+            this.event = event;
+            this.listeners = listeners;
+        }
+    }
+
 }
@@ -115,6 +115,8 @@ public class VerboseListener {
     // the number of events we have processed and accepted, based on the filter rules for this
     // listener
     private final AtomicInteger matchedCounter = new AtomicInteger(0);
+    // the number of events which were accepted, but dropped as the handler couldn't keep up
+    private final AtomicInteger droppedCounter = new AtomicInteger(0);
     // the events which passed the filter, up to a max size of #DATA_TRUNCATION
     private final List<VerboseEvent> results = new ArrayList<>(DATA_TRUNCATION / 10);
 
@@ -125,22 +127,40 @@ public class VerboseListener {
     }
 
     /**
-     * Accepts and processes verbose events.
+     * Tests if the event passes the filter for this listener, and counts it.
      *
-     * @param event the event to process
+     * <p>Called on the thread which made the check, before the event is queued.</p>
+     *
+     * @param event the event to test
+     * @return true if the event should be passed to {@link #acceptEvent(VerboseEvent)}
      */
-    public void acceptEvent(VerboseEvent event) {
+    public boolean test(VerboseEvent event) {
         // increment handled counter
         this.counter.incrementAndGet();
 
         // check if the data passes our filter
         if (!this.filter.evaluate(event)) {
-            return;
+            return false;
         }
 
         // increment the matched filter
         this.matchedCounter.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records that a matched event was dropped, because the queue was full.
+     */
+    public void recordDropped() {
+        this.droppedCounter.incrementAndGet();
+    }
 
+    /**
+     * Accepts and processes a verbose event which has passed {@link #test(VerboseEvent)}.
+     *
+     * @param event the event to process
+     */
+    public void acceptEvent(VerboseEvent event) {
         // record the check, if we have space for it
         if (this.results.size() < DATA_TRUNCATION) {
             this.results.add(event);
@@ -248,7 +268,7 @@ public class VerboseListener {
         String startDate = DATE_FORMAT.format(this.startTime);
         String endDate = DATE_FORMAT.format(Instant.now());
         String duration = DurationFormatter.CONCISE.formatString(Duration.between(this.startTime, Instant.now()));
-        boolean truncated = this.matchedCounter.get() > this.results.size();
+        boolean truncated = this.matchedCounter.get() - this.droppedCounter.get() > this.results.size();
 
         JObject metadata = new JObject()
                 .add("startTime", startDate)
@@ -257,6 +277,7 @@ public class VerboseListener {
                 .add("count", new JObject()
                         .add("matched", this.matchedCounter.get())
                         .add("total", this.counter.get())
+                        .add("dropped", this.droppedCounter.get())
                 )
                 .add("uploader", new JObject()
                         .add("name", this.notifiedSender.getNameWithLocation())
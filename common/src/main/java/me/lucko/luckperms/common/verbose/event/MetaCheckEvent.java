@@ -34,8 +34,6 @@ import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 
 import net.luckperms.api.query.QueryOptions;
 
-import java.util.Locale;
-
 public class MetaCheckEvent extends VerboseEvent {
 
     /**
@@ -48,8 +46,8 @@ public class MetaCheckEvent extends VerboseEvent {
      */
     private final StringResult<?> result;
 
-    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String key, StringResult<?> result) {
-        super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread, String key, StringResult<?> result) {
+        super(origin, checkTarget, checkQueryOptions, checkTime, checkThread);
         this.key = key;
         this.result = result;
     }
@@ -105,7 +103,7 @@ public class MetaCheckEvent extends VerboseEvent {
     public boolean eval(String variable) {
         return variable.equals("meta") ||
                 getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getKey().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
+                getKey().regionMatches(true, 0, variable, 0, variable.length()) ||
                 String.valueOf(getResult().result()).equalsIgnoreCase(variable);
     }
 
@@ -48,8 +48,8 @@ public class PermissionCheckEvent extends VerboseEvent {
      */
     private final TristateResult result;
 
-    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String permission, TristateResult result) {
-        super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
+    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread, String permission, TristateResult result) {
+        super(origin, checkTarget, checkQueryOptions, checkTime, checkThread);
         this.permission = permission;
         this.result = result;
     }
@@ -108,7 +108,7 @@ public class PermissionCheckEvent extends VerboseEvent {
     public boolean eval(String variable) {
         return variable.equals("permission") ||
                 getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getPermission().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
+                getPermission().regionMatches(true, 0, variable, 0, variable.length()) ||
                 getResult().result().name().equalsIgnoreCase(variable);
     }
 
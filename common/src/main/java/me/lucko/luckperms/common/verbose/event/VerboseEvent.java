@@ -38,6 +38,7 @@ import net.luckperms.api.context.Context;
 import net.luckperms.api.query.QueryMode;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
@@ -46,6 +47,7 @@ import java.util.UUID;
  * Represents a verbose event.
  */
 public abstract class VerboseEvent implements VariableEvaluator {
+    private static final StackTraceElement[] NO_TRACE = new StackTraceElement[0];
 
     /**
      * The origin of the check
@@ -68,21 +70,25 @@ public abstract class VerboseEvent implements VariableEvaluator {
     private final long checkTime;
 
     /**
-     * The throwable created when the check took place
+     * The throwable created when the check took place, or null if a trace wasn't captured
      */
-    private final Throwable checkTrace;
+    private Throwable checkTrace;
+
+    /**
+     * The stack trace of the check, once it has been taken from {@link #checkTrace}
+     */
+    private StackTraceElement[] checkTraceElements;
 
     /**
      * The name of the thread where the check took place
      */
     private final String checkThread;
 
-    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, String checkThread) {
         this.origin = origin;
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
         this.checkTime = checkTime;
-        this.checkTrace = checkTrace;
         this.checkThread = checkThread;
     }
 
@@ -104,8 +110,34 @@ public abstract class VerboseEvent implements VariableEvaluator {
         return this.checkTime;
     }
 
+    public void setCheckTrace(Throwable checkTrace) {
+        this.checkTrace = checkTrace;
+    }
+
+    /**
+     * Takes the stack trace elements from the captured throwable, keeping at most
+     * {@code depth} elements, and releases the throwable.
+     *
+     * @param depth the maximum number of elements to keep
+     */
+    public void trimCheckTrace(int depth) {
+        if (this.checkTrace == null) {
+            return;
+        }
+
+        StackTraceElement[] elements = this.checkTrace.getStackTrace();
+        if (elements.length > depth) {
+            elements = Arrays.copyOf(elements, depth);
+        }
+        this.checkTraceElements = elements;
+        this.checkTrace = null;
+    }
+
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        if (this.checkTraceElements == null) {
+            trimCheckTrace(Integer.MAX_VALUE);
+        }
+        return this.checkTraceElements == null ? NO_TRACE : this.checkTraceElements;
     }
 
     public String getCheckThread() {
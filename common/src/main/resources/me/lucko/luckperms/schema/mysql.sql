@@ -11,7 +11,8 @@ CREATE TABLE `{prefix}user_permissions` (
   `contexts`   VARCHAR(200)       NOT NULL,
   PRIMARY KEY (`id`)
 ) DEFAULT CHARSET = utf8mb4;
-CREATE INDEX `{prefix}user_permissions_uuid` ON `{prefix}user_permissions` (`uuid`);
+CREATE INDEX `{prefix}user_permissions_uuid_permission` ON `{prefix}user_permissions` (`uuid`, `permission`);
+CREATE INDEX `{prefix}user_permissions_permission` ON `{prefix}user_permissions` (`permission`, `uuid`);
 
 CREATE TABLE `{prefix}group_permissions` (
   `id`         INT AUTO_INCREMENT NOT NULL,
@@ -24,7 +25,8 @@ CREATE TABLE `{prefix}group_permissions` (
   `contexts`   VARCHAR(200)       NOT NULL,
   PRIMARY KEY (`id`)
 ) DEFAULT CHARSET = utf8mb4;
-CREATE INDEX `{prefix}group_permissions_name` ON `{prefix}group_permissions` (`name`);
+CREATE INDEX `{prefix}group_permissions_name_permission` ON `{prefix}group_permissions` (`name`, `permission`);
+CREATE INDEX `{prefix}group_permissions_permission` ON `{prefix}group_permissions` (`permission`, `name`);
 
 CREATE TABLE `{prefix}players` (
   `uuid`          VARCHAR(36) NOT NULL,
@@ -50,6 +52,10 @@ CREATE TABLE `{prefix}actions` (
   `action`     VARCHAR(300)       NOT NULL,
   PRIMARY KEY (`id`)
 ) DEFAULT CHARSET = utf8mb4;
+CREATE INDEX `{prefix}actions_time` ON `{prefix}actions` (`time`);
+CREATE INDEX `{prefix}actions_actor_uuid` ON `{prefix}actions` (`actor_uuid`, `time`);
+CREATE INDEX `{prefix}actions_acted_uuid` ON `{prefix}actions` (`acted_uuid`, `time`);
+CREATE INDEX `{prefix}actions_acted_name` ON `{prefix}actions` (`acted_name`, `time`);
 
 CREATE TABLE `{prefix}tracks` (
   `name`   VARCHAR(36) NOT NULL,
@@ -10,7 +10,8 @@ CREATE TABLE "{prefix}user_permissions" (
   "expiry"     BIGINT                  NOT NULL,
   "contexts"   VARCHAR(200)            NOT NULL
 );
-CREATE INDEX "{prefix}user_permissions_uuid" ON "{prefix}user_permissions" ("uuid");
+CREATE INDEX "{prefix}user_permissions_uuid_permission" ON "{prefix}user_permissions" ("uuid", "permission");
+CREATE INDEX "{prefix}user_permissions_permission" ON "{prefix}user_permissions" ("permission", "uuid");
 
 CREATE TABLE "{prefix}group_permissions" (
   "id"         SERIAL PRIMARY KEY       NOT NULL,
@@ -22,7 +23,8 @@ CREATE TABLE "{prefix}group_permissions" (
   "expiry"     BIGINT                   NOT NULL,
   "contexts"   VARCHAR(200)             NOT NULL
 );
-CREATE INDEX "{prefix}group_permissions_name" ON "{prefix}group_permissions" ("name");
+CREATE INDEX "{prefix}group_permissions_name_permission" ON "{prefix}group_permissions" ("name", "permission");
+CREATE INDEX "{prefix}group_permissions_permission" ON "{prefix}group_permissions" ("permission", "name");
 
 CREATE TABLE "{prefix}players" (
   "uuid"          VARCHAR(36) PRIMARY KEY NOT NULL,
@@ -45,6 +47,10 @@ CREATE TABLE "{prefix}actions" (
   "acted_name" VARCHAR(36)              NOT NULL,
   "action"     VARCHAR(300)             NOT NULL
 );
+CREATE INDEX "{prefix}actions_time" ON "{prefix}actions" ("time");
+CREATE INDEX "{prefix}actions_actor_uuid" ON "{prefix}actions" ("actor_uuid", "time");
+CREATE INDEX "{prefix}actions_acted_uuid" ON "{prefix}actions" ("acted_uuid", "time");
+CREATE INDEX "{prefix}actions_acted_name" ON "{prefix}actions" ("acted_name", "time");
 
 CREATE TABLE "{prefix}tracks" (
   "name"   VARCHAR(36) PRIMARY KEY NOT NULL,
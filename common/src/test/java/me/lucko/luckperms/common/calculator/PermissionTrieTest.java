@@ -0,0 +1,156 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.common.node.types.Permission;
+
+import net.luckperms.api.node.Node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PermissionTrieTest {
+
+    private static Node node(String permission) {
+        return Permission.builder().permission(permission).build();
+    }
+
+    private static final Node A = node("a");
+    private static final Node A_B = node("a.b");
+    private static final Node A_WILDCARD = node("a.*");
+    private static final Node A_B_C_WILDCARD = node("a.b.c.*");
+    private static final Node ROOT = node("*");
+    private static final Node EMPTY_SEGMENT = node("x..y");
+
+    private static final Map<String, Node> SOURCE = ImmutableMap.<String, Node>builder()
+            .put("a", A)
+            .put("a.b", A_B)
+            .put("a.*", A_WILDCARD)
+            .put("a.b.c.*", A_B_C_WILDCARD)
+            .put("x..y", EMPTY_SEGMENT)
+            .build();
+
+    @Test
+    void testEmpty() {
+        PermissionTrie trie = PermissionTrie.compile(ImmutableMap.of());
+        assertNull(trie.getExact("a"));
+        assertNull(trie.getWildcard("a.b"));
+        assertNull(trie.getParent("a.b"));
+        assertNull(trie.getRootWildcard());
+    }
+
+    @Test
+    void testExact() {
+        PermissionTrie trie = PermissionTrie.compile(SOURCE);
+        assertSame(A, trie.getExact("a"));
+        assertSame(A_B, trie.getExact("a.b"));
+        assertSame(A_WILDCARD, trie.getExact("a.*"));
+        assertSame(EMPTY_SEGMENT, trie.getExact("x..y"));
+        assertNull(trie.getExact("a.b.c"));
+        assertNull(trie.getExact("a.c"));
+        assertNull(trie.getExact("x.y"));
+        assertNull(trie.getExact("b"));
+        assertNull(trie.getExact(""));
+    }
+
+    @Test
+    void testWildcard() {
+        PermissionTrie trie = PermissionTrie.compile(SOURCE);
+        assertSame(A_WILDCARD, trie.getWildcard("a.b"));
+        assertSame(A_WILDCARD, trie.getWildcard("a.b.c"));
+        assertSame(A_B_C_WILDCARD, trie.getWildcard("a.b.c.d"));
+        assertSame(A_B_C_WILDCARD, trie.getWildcard("a.b.c.d.e"));
+        assertSame(A_WILDCARD, trie.getWildcard("a.b.cd.e"));
+        assertNull(trie.getWildcard("a"));
+        assertNull(trie.getWildcard("b.c"));
+    }
+
+    @Test
+    void testRootWildcard() {
+        PermissionTrie trie = PermissionTrie.compile(ImmutableMap.of("*", ROOT, "a.*", A_WILDCARD));
+        assertSame(ROOT, trie.getRootWildcard());
+        assertSame(ROOT, trie.getWildcard("b"));
+        assertSame(ROOT, trie.getWildcard("a"));
+        assertSame(A_WILDCARD, trie.getWildcard("a.b"));
+    }
+
+    @Test
+    void testParent() {
+        PermissionTrie trie = PermissionTrie.compile(SOURCE);
+        assertSame(A, trie.getParent("a.c"));
+        assertSame(A_B, trie.getParent("a.b.c"));
+        assertSame(A_B, trie.getParent("a.b.c.d"));
+        assertNull(trie.getParent("a"));
+        assertSame(A_B, trie.getParent("a.b.c.d.e.f.g"));
+    }
+
+    @Test
+    void testWith() {
+        PermissionTrie original = PermissionTrie.compile(SOURCE);
+
+        Node added = node("a.b.c");
+        PermissionTrie trie = original.with("a.b.c", added)
+                .with("a.*", null)
+                .with("x..y", null);
+
+        assertSame(added, trie.getExact("a.b.c"));
+        assertSame(A, trie.getExact("a"));
+        assertSame(A_B, trie.getParent("a.b.c"));
+        assertNull(trie.getExact("a.*"));
+        assertNull(trie.getExact("x..y"));
+        assertNull(trie.getWildcard("a.b"));
+        assertSame(A_B_C_WILDCARD, trie.getWildcard("a.b.c.d"));
+
+        // the original is unchanged
+        assertNull(original.getExact("a.b.c"));
+        assertSame(A_WILDCARD, original.getWildcard("a.b"));
+        assertSame(EMPTY_SEGMENT, original.getExact("x..y"));
+
+        // removing something which isn't there returns the same trie
+        assertSame(trie, trie.with("b.c", null));
+    }
+
+    @Test
+    void testWithResize() {
+        PermissionTrie trie = PermissionTrie.EMPTY;
+        Node[] nodes = new Node[50];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = node("p." + i);
+            trie = trie.with("p." + i, nodes[i]);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            assertSame(nodes[i], trie.getExact("p." + i));
+        }
+        assertNull(PermissionTrie.EMPTY.getExact("p.0"));
+    }
+
+}
@@ -155,4 +155,34 @@ public class ContextSetTest {
         }
     }
 
+    @Test
+    public void testImmutableSatisfiedByMatchesMutable() {
+        ImmutableContextSet set = new ImmutableContextSetImpl.BuilderImpl()
+                .add("aaa", "a")
+                .add("aaa", "c")
+                .add("bbb", "b")
+                .build();
+
+        List<Consumer<ImmutableContextSet.Builder>> tests = ImmutableList.of(
+                builder -> builder.add("aaa", "a").add("aaa", "c").add("bbb", "b"),
+                builder -> builder.add("aaa", "a").add("aaa", "b").add("aaa", "c").add("bbb", "b").add("ccc", "a"),
+                builder -> builder.add("aaa", "c").add("bbb", "b"),
+                builder -> builder.add("aaa", "b").add("bbb", "b"),
+                builder -> builder.add("aaa", "a").add("aaa", "c").add("bbb", "a"),
+                builder -> builder.add("aaa", "a").add("aaa", "c").add("ccc", "b"),
+                builder -> builder.add("000", "a").add("aaa", "a").add("bbb", "b").add("zzz", "z"),
+                builder -> {}
+        );
+
+        for (Consumer<ImmutableContextSet.Builder> test : tests) {
+            ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
+            test.accept(builder);
+            ImmutableContextSet other = builder.build();
+
+            for (ContextSatisfyMode mode : ContextSatisfyMode.values()) {
+                assertEquals(set.isSatisfiedBy(other.mutableCopy(), mode), set.isSatisfiedBy(other, mode), other + " " + mode);
+            }
+        }
+    }
+
 }
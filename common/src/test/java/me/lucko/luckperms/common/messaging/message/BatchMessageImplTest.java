@@ -0,0 +1,146 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+
+import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.messenger.message.Message;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchMessageImplTest {
+
+    @Test
+    public void testRoundTrip() {
+        List<AbstractMessage> messages = new ArrayList<>();
+        messages.add(new UpdateMessageImpl(UUID.randomUUID()));
+        messages.add(new UpdateMessageImpl(UUID.randomUUID(), ImmutableSet.of("default", "admin"), ImmutableSet.of("staff")));
+        messages.add(new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID()));
+
+        List<AbstractMessage> batches = BatchMessageImpl.pack(messages, UUID::randomUUID);
+        assertEquals(1, batches.size());
+
+        String encoded = batches.get(0).asEncodedString();
+        assertTrue(BatchMessageImpl.isBatch(encoded));
+
+        BatchMessageImpl decoded = BatchMessageImpl.decode(encoded);
+        assertEquals(batches.get(0).getId(), decoded.getId());
+        assertEquals(3, decoded.getMessages().size());
+
+        UpdateMessageImpl full = (UpdateMessageImpl) decoded.getMessages().get(0);
+        assertEquals(messages.get(0).getId(), full.getId());
+        assertFalse(full.isPartial());
+
+        UpdateMessageImpl partial = (UpdateMessageImpl) decoded.getMessages().get(1);
+        assertEquals(messages.get(1).getId(), partial.getId());
+        assertTrue(partial.isPartial());
+        assertEquals(ImmutableSet.of("default", "admin"), partial.getGroups());
+        assertEquals(ImmutableSet.of("staff"), partial.getTracks());
+
+        UserUpdateMessageImpl userUpdate = (UserUpdateMessageImpl) decoded.getMessages().get(2);
+        assertEquals(messages.get(2).getId(), userUpdate.getId());
+        assertEquals(((UserUpdateMessageImpl) messages.get(2)).getUserUniqueId(), userUpdate.getUserUniqueId());
+    }
+
+    @Test
+    public void testSplitsLargeBatches() {
+        List<AbstractMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            messages.add(new UserUpdateMessageImpl(UUID.randomUUID(), UUID.randomUUID()));
+        }
+
+        List<AbstractMessage> batches = BatchMessageImpl.pack(messages, UUID::randomUUID);
+        assertTrue(batches.size() > 1);
+
+        List<Message> decoded = new ArrayList<>();
+        for (AbstractMessage batch : batches) {
+            String encoded = batch.asEncodedString();
+            assertTrue(encoded.length() <= BatchMessageImpl.MAX_ENCODED_LENGTH);
+            decoded.addAll(BatchMessageImpl.decode(encoded).getMessages());
+        }
+
+        assertEquals(messages.size(), decoded.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).getId(), decoded.get(i).getId());
+        }
+    }
+
+    private static ActionLogMessageImpl logMessage(int descriptionLength) {
+        LoggedAction action = LoggedAction.build()
+                .source(UUID.randomUUID())
+                .sourceName("Actor")
+                .targetType(Action.Target.Type.GROUP)
+                .targetName("default")
+                .description(Strings.repeat("a", descriptionLength))
+                .build();
+        return new ActionLogMessageImpl(UUID.randomUUID(), action);
+    }
+
+    @Test
+    public void testFramesFitPluginMessages() {
+        List<AbstractMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(logMessage(7000 + i * 500));
+        }
+        // too large to fit in a frame, even on its own
+        AbstractMessage oversized = logMessage(30000);
+        messages.add(5, oversized);
+
+        List<AbstractMessage> packed = BatchMessageImpl.pack(messages, UUID::randomUUID);
+
+        List<UUID> ids = new ArrayList<>();
+        for (AbstractMessage message : packed) {
+            if (message == oversized) {
+                ids.add(message.getId());
+                continue;
+            }
+
+            String encoded = message.asEncodedString();
+            assertTrue(encoded.length() <= BatchMessageImpl.MAX_ENCODED_LENGTH);
+            for (Message decoded : BatchMessageImpl.decode(encoded).getMessages()) {
+                ids.add(decoded.getId());
+            }
+        }
+
+        assertTrue(packed.contains(oversized));
+        assertEquals(messages.size(), ids.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).getId(), ids.get(i));
+        }
+    }
+}
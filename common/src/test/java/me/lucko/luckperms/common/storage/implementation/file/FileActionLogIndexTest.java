@@ -0,0 +1,168 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
+import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.util.Paginated;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+
+import net.luckperms.api.actionlog.Action;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileActionLogIndexTest {
+
+    private static final UUID ACTOR = UUID.randomUUID();
+    private static final UUID USER = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    private static LoggedAction action(int i) {
+        LoggedAction.Builder builder = LoggedAction.build()
+                .timestamp(Instant.ofEpochSecond(1000 + i))
+                .source(i % 2 == 0 ? ACTOR : UUID.randomUUID())
+                .sourceName("Actor" + i)
+                .description("permission set test.node" + i);
+
+        if (i % 3 == 0) {
+            builder.targetType(Action.Target.Type.USER).target(USER).targetName("Bob");
+        } else {
+            builder.targetType(Action.Target.Type.GROUP).targetName(i % 3 == 1 ? "admin" : "default");
+        }
+        return builder.build();
+    }
+
+    private static void append(Path file, List<LoggedAction> actions) throws Exception {
+        List<String> lines = actions.stream()
+                .map(a -> GsonProvider.normal().toJson(ActionJsonSerializer.serialize(a)))
+                .collect(Collectors.toList());
+        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void assertSamePage(LogPage expected, LogPage actual) {
+        assertEquals(expected.getTotalEntries(), actual.getTotalEntries());
+        assertEquals(expected.getPageNumber(), actual.getPageNumber());
+        assertEquals(expected.getMaxPage(), actual.getMaxPage());
+        assertEquals(expected.getEntries().size(), actual.getEntries().size());
+        for (int i = 0; i < expected.getEntries().size(); i++) {
+            Paginated.Entry<LoggedAction> e = expected.getEntries().get(i);
+            Paginated.Entry<LoggedAction> a = actual.getEntries().get(i);
+            assertEquals(e.position(), a.position());
+            assertEquals(e.value(), a.value());
+        }
+    }
+
+    @Test
+    public void testMatchesInMemoryLog() throws Exception {
+        Path content = this.directory.resolve("actions.txt");
+        FileActionLogIndex index = new FileActionLogIndex(content, this.directory.resolve("actions.index"));
+
+        Log.Builder log = Log.builder();
+        List<LoggedAction> actions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            actions.add(action(i));
+        }
+        actions.forEach(log::add);
+        append(content, actions);
+
+        // append more entries after the index has been built
+        index.getPage(LogQuery.all(), LogPage.LATEST, 10);
+        actions.clear();
+        for (int i = 40; i < 55; i++) {
+            actions.add(action(i));
+        }
+        actions.forEach(log::add);
+        append(content, actions);
+
+        Log expected = log.build();
+        LogQuery[] queries = {
+                LogQuery.all(),
+                LogQuery.source(ACTOR),
+                LogQuery.user(USER),
+                LogQuery.group("admin"),
+                LogQuery.search("node1"),
+                LogQuery.search("ACTOR5"),
+                LogQuery.builder().targetType(Action.Target.Type.GROUP).since(Instant.ofEpochSecond(1010)).until(Instant.ofEpochSecond(1030)).build()
+        };
+        for (LogQuery query : queries) {
+            for (int page : new int[]{LogPage.LATEST, 1, 2, 100}) {
+                assertSamePage(expected.getPage(query, page, 10), index.getPage(query, page, 10));
+            }
+        }
+    }
+
+    @Test
+    public void testRebuildsWhenReplaced() throws Exception {
+        Path content = this.directory.resolve("actions.txt");
+        FileActionLogIndex index = new FileActionLogIndex(content, this.directory.resolve("actions.index"));
+
+        List<LoggedAction> actions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            actions.add(action(i));
+        }
+        append(content, actions);
+        assertEquals(20, index.getPage(LogQuery.all(), LogPage.LATEST, 10).getTotalEntries());
+
+        Files.delete(content);
+        append(content, actions.subList(0, 5));
+        assertEquals(5, index.getPage(LogQuery.all(), LogPage.LATEST, 10).getTotalEntries());
+        assertEquals(2, index.getPage(LogQuery.user(USER), LogPage.LATEST, 10).getTotalEntries());
+    }
+
+    @Test
+    public void testEmptyLogWithoutIndex() throws Exception {
+        Path content = this.directory.resolve("actions.txt");
+        Path indexFile = this.directory.resolve("actions.index");
+        FileActionLogIndex index = new FileActionLogIndex(content, indexFile);
+
+        Files.createFile(content);
+        assertEquals(0, index.getPage(LogQuery.all(), LogPage.LATEST, 10).getTotalEntries());
+        assertTrue(Files.exists(indexFile));
+
+        append(content, Collections.singletonList(action(0)));
+        assertEquals(1, index.getPage(LogQuery.all(), LogPage.LATEST, 10).getTotalEntries());
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.file;
+
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileContentFilterTest {
+
+    private static final byte[] CONTENT = String.join("\n",
+            "uuid: c1d60c50-70b5-4722-8057-87767557e50d",
+            "name: luck",
+            "primary-group: default",
+            "permissions:",
+            "  - Essentials.Fly",
+            "parents:",
+            "  - admin",
+            "prefixes:",
+            "  - '&c[Admin]':",
+            "      priority: 100",
+            ""
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private static boolean test(StandardComparison comparison, String expression) {
+        return FileContentFilter.forKey(Constraint.of(comparison, expression)).test(CONTENT);
+    }
+
+    @Test
+    public void testEqual() {
+        assertTrue(test(StandardComparison.EQUAL, "essentials.fly"));
+        assertTrue(test(StandardComparison.EQUAL, "group.admin"));
+        assertTrue(test(StandardComparison.EQUAL, "prefix.100.&c[Admin]"));
+        assertFalse(test(StandardComparison.EQUAL, "essentials.build"));
+        assertFalse(test(StandardComparison.EQUAL, "group.mod"));
+    }
+
+    @Test
+    public void testSimilar() {
+        assertTrue(test(StandardComparison.SIMILAR, "essentials.%"));
+        assertTrue(test(StandardComparison.SIMILAR, "group.adm_n"));
+        assertFalse(test(StandardComparison.SIMILAR, "worldedit.%"));
+
+        // regex syntax means nothing is definitely required
+        assertTrue(test(StandardComparison.SIMILAR, "worldedit(s)?.%"));
+    }
+
+    @Test
+    public void testNoUsablePiece() {
+        FileContentFilter filter = FileContentFilter.forKey(Constraint.of(StandardComparison.NOT_EQUAL, "essentials.fly"));
+        assertTrue(filter.isEmpty());
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+
+import net.luckperms.api.actionlog.Action;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ActionLogBufferTest {
+
+    private static Action action(int i) {
+        return LoggedAction.build()
+                .source(UUID.randomUUID())
+                .sourceName("Actor")
+                .targetType(Action.Target.Type.GROUP)
+                .targetName("default")
+                .description(Integer.toString(i))
+                .build();
+    }
+
+    private static void assertWrittenInOrder(List<Action> written, int count) {
+        assertEquals(count, written.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.toString(i), written.get(i).getDescription());
+        }
+    }
+
+    @Test
+    public void testFlushesAtBatchSize() {
+        RecordingWriter writer = new RecordingWriter();
+        ActionLogBuffer buffer = new ActionLogBuffer(new StubScheduler(), new StubLogger(), writer);
+
+        for (int i = 0; i < ActionLogBuffer.BATCH_SIZE - 1; i++) {
+            buffer.add(action(i));
+        }
+        assertEquals(0, writer.batches.get());
+
+        buffer.add(action(ActionLogBuffer.BATCH_SIZE - 1));
+        assertEquals(1, writer.batches.get());
+        assertWrittenInOrder(writer.written, ActionLogBuffer.BATCH_SIZE);
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    public void testFlushesAfterDelay() {
+        StubScheduler scheduler = new StubScheduler();
+        RecordingWriter writer = new RecordingWriter();
+        ActionLogBuffer buffer = new ActionLogBuffer(scheduler, new StubLogger(), writer);
+
+        for (int i = 0; i < 5; i++) {
+            buffer.add(action(i));
+        }
+        assertEquals(0, writer.batches.get());
+
+        // a single flush is scheduled for the deadline
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(ActionLogBuffer.FLUSH_DELAY, scheduler.delays.get(0));
+
+        scheduler.runNext();
+        assertWrittenInOrder(writer.written, 5);
+        assertEquals(0, buffer.getPendingCount());
+
+        // nothing left to write, so no further flush is scheduled
+        assertEquals(0, scheduler.tasks.size());
+    }
+
+    @Test
+    public void testBlocksWhenFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingWriter writer = new RecordingWriter() {
+            @Override
+            public void write(List<Action> entries) throws Exception {
+                if (this.batches.get() == 0) {
+                    writing.countDown();
+                    release.await();
+                }
+                super.write(entries);
+            }
+        };
+        ActionLogBuffer buffer = new ActionLogBuffer(new StubScheduler(), new StubLogger(), writer);
+
+        // the first full batch is written by this thread, which holds up the writer
+        Thread first = new Thread(() -> {
+            for (int i = 0; i < ActionLogBuffer.BATCH_SIZE; i++) {
+                buffer.add(action(i));
+            }
+        });
+        first.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // fill the queue, and then add one more entry, which waits for room
+        int count = ActionLogBuffer.QUEUE_CAPACITY - ActionLogBuffer.BATCH_SIZE + 1;
+        Thread second = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                buffer.add(action(ActionLogBuffer.BATCH_SIZE + i));
+            }
+        });
+        second.start();
+
+        second.join(200);
+        assertTrue(second.isAlive());
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        buffer.flush();
+
+        assertWrittenInOrder(writer.written, ActionLogBuffer.BATCH_SIZE + count);
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void testRetriesFailedBatches() {
+        StubScheduler scheduler = new StubScheduler();
+        StubLogger logger = new StubLogger();
+        RecordingWriter writer = new RecordingWriter();
+        writer.failing = true;
+        ActionLogBuffer buffer = new ActionLogBuffer(scheduler, logger, writer);
+
+        // the failed batch is kept, and the queue fills up to the capacity
+        int extra = 5;
+        for (int i = 0; i < ActionLogBuffer.QUEUE_CAPACITY + extra; i++) {
+            buffer.add(action(i));
+        }
+        assertEquals(0, writer.written.size());
+        assertEquals(ActionLogBuffer.QUEUE_CAPACITY, buffer.getPendingCount());
+        assertEquals(extra, buffer.getDroppedCount());
+        assertEquals(1, logger.severe.get());
+
+        // retries keep failing without losing anything
+        scheduler.runNext();
+        assertEquals(ActionLogBuffer.QUEUE_CAPACITY, buffer.getPendingCount());
+        assertEquals(1, logger.severe.get());
+
+        // once writes succeed, everything which was accepted is written in order
+        writer.failing = false;
+        scheduler.runNext();
+        assertWrittenInOrder(writer.written, ActionLogBuffer.QUEUE_CAPACITY);
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(2, logger.warn.get());
+    }
+
+    private static class RecordingWriter implements ActionLogBuffer.BatchWriter {
+        final List<Action> written = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger batches = new AtomicInteger(0);
+        volatile boolean failing = false;
+
+        @Override
+        public void write(List<Action> entries) throws Exception {
+            if (this.failing) {
+                throw new Exception("test failure");
+            }
+            this.written.addAll(entries);
+            this.batches.incrementAndGet();
+        }
+    }
+
+    private static final class StubScheduler implements SchedulerAdapter {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        void runNext() {
+            this.delays.remove(0);
+            this.tasks.remove(0).run();
+        }
+
+        @Override
+        public Executor async() {
+            return Runnable::run;
+        }
+
+        @Override
+        public Executor sync() {
+            return Runnable::run;
+        }
+
+        @Override
+        public synchronized SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+            this.tasks.add(task);
+            this.delays.add(unit.toMillis(delay));
+            return () -> {};
+        }
+
+        @Override
+        public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void shutdownScheduler() {
+
+        }
+
+        @Override
+        public void shutdownExecutor() {
+
+        }
+    }
+
+    private static final class StubLogger implements PluginLogger {
+        final AtomicInteger warn = new AtomicInteger(0);
+        final AtomicInteger severe = new AtomicInteger(0);
+
+        @Override
+        public void info(String s) {
+
+        }
+
+        @Override
+        public void warn(String s) {
+            this.warn.incrementAndGet();
+        }
+
+        @Override
+        public void warn(String s, Throwable t) {
+            this.warn.incrementAndGet();
+        }
+
+        @Override
+        public void severe(String s) {
+            this.severe.incrementAndGet();
+        }
+
+        @Override
+        public void severe(String s, Throwable t) {
+            this.severe.incrementAndGet();
+        }
+    }
+}
@@ -113,6 +113,12 @@ public class FabricPlayerCalculator implements ContextCalculator<ServerPlayerEnt
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        // game mode changes aren't signalled
+        return !this.gamemode;
+    }
+
     private static String getContextKey(Identifier key) {
         if (key.getNamespace().equals("minecraft")) {
             return key.getPath();
@@ -121,6 +121,11 @@ public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
     private static String getContextKey(ResourceLocation key) {
         if (key.getNamespace().equals("minecraft")) {
             return key.getPath();
@@ -106,6 +106,11 @@ public class NukkitPlayerCalculator implements ContextCalculator<Player>, Listen
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
     private static String getGamemodeName(int mode) {
         switch (mode) {
             case Player.SURVIVAL: return "survival";
@@ -70,6 +70,7 @@ public class SpongeGroupManager extends AbstractGroupManager<SpongeGroup> implem
     private SubjectCollection spongeProxy = null;
 
     public SpongeGroupManager(LPSpongePlugin plugin) {
+        super(plugin);
         this.plugin = plugin;
         this.subjectLoadingCache = Caffeine.newBuilder()
                 .executor(plugin.getBootstrap().getScheduler().async())
@@ -28,6 +28,7 @@ package me.lucko.luckperms.velocity.context;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ServerConnection;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
@@ -70,8 +71,19 @@ public class VelocityPlayerCalculator implements ContextCalculator<Player> {
         return builder.build();
     }
 
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    }
+
     @Subscribe(order = PostOrder.FIRST)
     public void onServerConnect(ServerConnectedEvent e) {
         this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
     }
+
+    // the current server is only updated once the connection is complete
+    @Subscribe(order = PostOrder.FIRST)
+    public void onServerPostConnect(ServerPostConnectEvent e) {
+        this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+    }
 }